@@ -0,0 +1,33 @@
+package compunet.webserver;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada de benchmarks.jar
+ * Acepta las mismas opciones que org.openjdk.jmh.Main (filtro por nombre, -p, -f, -rf json...)
+ * y agrega siempre el profiler gc, para ver la tasa de asignación junto con el throughput
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException {
+        CommandLineOptions commandLine;
+        try {
+            commandLine = new CommandLineOptions(args);
+        } catch (CommandLineOptionException e) {
+            System.err.println("[ERROR] " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
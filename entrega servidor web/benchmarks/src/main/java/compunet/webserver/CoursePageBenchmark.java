@@ -0,0 +1,104 @@
+package compunet.webserver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Consulta y generación de la página de cursos según el tamaño del catálogo
+ * El catálogo se escribe en un archivo temporal con el formato de CourseImporter y se mapea
+ * como en el servidor. Se ejecuta desde la carpeta del proyecto, donde está templates/
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class CoursePageBenchmark {
+
+    private static final String[] PROFESSORS = {"Juan Pérez", "María López", "Carlos García", "Ana Torres"};
+
+    @Param({"6", "1000", "100000", "1000000"})
+    public int catalogSize;
+
+    /** Columna de orden de la consulta */
+    @Param({"name", "credits"})
+    public String sort;
+
+    private Path catalogFile;
+    private RequestRouter router;
+    private HttpRequest middlePage;
+    private int middle;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, HttpParseException {
+        List<Course> courses = new ArrayList<>(catalogSize);
+        Random random = new Random(42);
+        for (int id = 1; id <= catalogSize; id++) {
+            courses.add(new Course(id, "Curso " + Integer.toString(random.nextInt(Integer.MAX_VALUE), 36),
+                    PROFESSORS[id % PROFESSORS.length], 1 + random.nextInt(6)));
+        }
+        catalogFile = Files.createTempFile("catalogo-", ".db");
+        MappedCourseStore.write(courses, catalogFile);
+        CourseManager.getInstance().loadCatalog(catalogFile);
+
+        // Sin caché de páginas: cada solicitud genera el HTML con las plantillas
+        ServerConfig config = new ServerConfig();
+        config.set("page-cache-bytes", "0");
+        config.set("compression", "off");
+        config.set("access-log", "");
+        router = new RequestRouter(config);
+
+        middle = Math.max(0, catalogSize / 10 / 2);
+        byte[] data = ("GET /courses?page=" + middle + "&size=10&sort=" + sort + " HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        middlePage = new HttpRequest();
+        new HttpRequestParser().parse(data, 0, data.length, middlePage);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(catalogFile);
+    }
+
+    @Benchmark
+    public Page<Course> getPaginatedCoursesFirst() {
+        return CourseManager.getInstance().getPaginatedCourses(0, 10, sort, "asc");
+    }
+
+    /**
+     * Una página del medio del catálogo, que no se resuelve leyendo solo el principio del orden
+     */
+    @Benchmark
+    public Page<Course> getPaginatedCoursesMiddle() {
+        return CourseManager.getInstance().getPaginatedCourses(middle, 10, sort, "desc");
+    }
+
+    /**
+     * Página HTML completa (lo que hacía generateCoursesHTML): consulta, modelo y plantillas
+     */
+    @Benchmark
+    public HTTPResponse renderCoursesPage() throws IOException {
+        return router.handleRequest(middlePage);
+    }
+}
@@ -0,0 +1,72 @@
+package compunet.webserver;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Armado de la respuesta: headers más cuerpo en memoria
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HTTPResponseBenchmark {
+
+    /** Tamaño del cuerpo: un error corto o una página de cursos típica */
+    @Param({"32", "4096"})
+    public int bodySize;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        body = new byte[bodySize];
+        Arrays.fill(body, (byte) 'a');
+    }
+
+    private HTTPResponse newResponse() {
+        HTTPResponse response = new HTTPResponse(200, "text/html");
+        response.setBodyBytes(body);
+        response.setHeader("Vary", "Accept, Accept-Encoding");
+        response.setHttpVersion(HttpRequest.HTTP_1_1);
+        response.setKeepAlive(true);
+        return response;
+    }
+
+    /**
+     * Respuesta completa copiada en un solo arreglo (respuestas de error y 503)
+     */
+    @Benchmark
+    public byte[] getBytes() throws IOException {
+        return newResponse().getBytes();
+    }
+
+    /**
+     * Fragmentos que envían los motores, sin copiar el cuerpo
+     */
+    @Benchmark
+    public void toChunks(Blackhole blackhole) throws IOException {
+        List<ResponseChunk> chunks = newResponse().toChunks();
+        blackhole.consume(chunks);
+        for (ResponseChunk chunk : chunks) {
+            chunk.release();
+        }
+    }
+}
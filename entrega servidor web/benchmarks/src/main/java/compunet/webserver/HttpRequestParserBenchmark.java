@@ -0,0 +1,113 @@
+package compunet.webserver;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Interpretación de una solicitud de navegador: cabecera completa y parámetros de la URL
+ * (lo que antes hacía ClientHandler.parseQueryString). baselineReadLine repite el camino
+ * anterior sobre los mismos bytes, como referencia para comparar
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpRequestParserBenchmark {
+
+    private final byte[] data = ("GET /courses?page=3&size=10&sort=credits&direction=desc&q=Historia%20del%20Arte HTTP/1.1\r\n"
+            + "Host: localhost:8080\r\n"
+            + "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:128.0) Gecko/20100101 Firefox/128.0\r\n"
+            + "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n"
+            + "Accept-Language: es-CO,es;q=0.8,en-US;q=0.5,en;q=0.3\r\n"
+            + "Accept-Encoding: gzip, deflate, br\r\n"
+            + "Referer: http://localhost:8080/index.html\r\n"
+            + "Connection: keep-alive\r\n"
+            + "\r\n").getBytes(StandardCharsets.US_ASCII);
+    private final HttpRequestParser parser = new HttpRequestParser();
+    private final HttpRequest request = new HttpRequest();
+
+    /**
+     * Solo la cabecera: los headers y parámetros se decodifican bajo demanda
+     */
+    @Benchmark
+    public int parseHeaders() throws HttpParseException {
+        return parser.parse(data, 0, data.length, request);
+    }
+
+    /**
+     * Cabecera más lo que lee el enrutador para una página de cursos
+     */
+    @Benchmark
+    public void parseWithParameters(Blackhole blackhole) throws HttpParseException {
+        blackhole.consume(parser.parse(data, 0, data.length, request));
+        blackhole.consume(request.getPath());
+        blackhole.consume(request.getParameter("page", "0"));
+        blackhole.consume(request.getParameter("size", "3"));
+        blackhole.consume(request.getParameter("sort", "name"));
+        blackhole.consume(request.getParameter("direction", "asc"));
+        blackhole.consume(request.getParameter("q"));
+        blackhole.consume(request.getHeader("accept-encoding"));
+        blackhole.consume(request.getHeader("connection"));
+    }
+
+    /**
+     * Camino anterior: BufferedReader.readLine, split(" "), un HashMap de headers y
+     * URLDecoder para cada parámetro; lee lo mismo que parseWithParameters
+     */
+    @Benchmark
+    public void baselineReadLine(Blackhole blackhole) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(data),
+                StandardCharsets.ISO_8859_1));
+        String[] parts = in.readLine().split(" ");
+        String target = parts[1];
+        blackhole.consume(parts[0]);
+        blackhole.consume(parts[2]);
+
+        Map<String, String> headers = new HashMap<>();
+        String headerLine;
+        while ((headerLine = in.readLine()) != null && !headerLine.isEmpty()) {
+            int colon = headerLine.indexOf(':');
+            if (colon > 0) {
+                headers.put(headerLine.substring(0, colon).trim().toLowerCase(),
+                        headerLine.substring(colon + 1).trim());
+            }
+        }
+
+        Map<String, String> params = new HashMap<>();
+        int query = target.indexOf('?');
+        for (String pair : target.substring(query + 1).split("&")) {
+            String[] keyValue = pair.split("=");
+            if (keyValue.length == 2) {
+                params.put(URLDecoder.decode(keyValue[0], "UTF-8"), URLDecoder.decode(keyValue[1], "UTF-8"));
+            }
+        }
+        blackhole.consume(target.substring(0, query));
+        blackhole.consume(params.getOrDefault("page", "0"));
+        blackhole.consume(params.getOrDefault("size", "3"));
+        blackhole.consume(params.getOrDefault("sort", "name"));
+        blackhole.consume(params.getOrDefault("direction", "asc"));
+        blackhole.consume(params.get("q"));
+        blackhole.consume(headers.get("accept-encoding"));
+        blackhole.consume(headers.get("connection"));
+    }
+}
@@ -0,0 +1,37 @@
+package compunet.webserver;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tipo MIME de un archivo estático por su extensión (se calcula al cargarlo en la caché)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MimeTypeBenchmark {
+
+    private static final String[] PATHS = {
+            "/index.html", "/images/curso1.jpg", "/images/logo.png", "/css/estilos.css", "/js/app.js", "/robots.txt"
+    };
+
+    private int next;
+
+    @Benchmark
+    public String getMimeType() {
+        next = (next + 1) % PATHS.length;
+        return RequestRouter.getMimeType(PATHS[next]);
+    }
+}
@@ -0,0 +1,69 @@
+package compunet.webserver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Costo por cambio del registro de escrituras según cuántos cambios comparten un fsync
+ * (group commit de CatalogWriter); batchSize = 1 equivale a --wal-sync=write. El archivo
+ * temporal se crea en java.io.tmpdir, así que el resultado depende de ese disco
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteAheadLogBenchmark {
+
+    /** Cambios por fsync */
+    @Param({"1", "16", "256"})
+    public int batchSize;
+
+    private Path file;
+    private WriteAheadLog log;
+    private Course course;
+    private int pending;
+    private int id;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("wal-", ".log");
+        log = WriteAheadLog.open(file);
+        course = new Course(0, "Introducción a la Programación", "Carlos García", 3);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        log.close();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Un cambio; cada batchSize cambios el lote se escribe y se espera al disco
+     */
+    @Benchmark
+    public void append() throws IOException {
+        log.append(++id, course);
+        if (++pending == batchSize) {
+            log.flush(true);
+            pending = 0;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+#!/bin/bash
+# Compara configuraciones del servidor con el generador de carga
+# Uso: ./loadtest.sh "--engine=blocking" "--engine=nio --event-loops=2" -- --rate=5000 --duration=30
+# Cada configuración arranca un servidor nuevo; los resultados se agregan a resultados.csv.
+# Con SERVER_CPUS y CLIENT_CPUS (por ejemplo 0-3 y 4-7) servidor y generador se fijan a
+# núcleos distintos con taskset, para que no compitan entre sí. PORT cambia el puerto (8080)
+
+CONFIGS=()
+while [ $# -gt 0 ] && [ "$1" != "--" ]; do
+    CONFIGS+=("$1")
+    shift
+done
+[ "$1" = "--" ] && shift
+if [ ${#CONFIGS[@]} -eq 0 ]; then
+    echo "Uso: $0 \"<opciones del servidor>\" ... -- <opciones del generador>"
+    exit 1
+fi
+
+mkdir -p bin
+javac -encoding UTF-8 -d bin server/src/main/java/compunet/webserver/*.java || exit 1
+
+PORT=${PORT:-8080}
+
+pin() {
+    if [ -n "$1" ] && command -v taskset > /dev/null; then
+        echo "taskset -c $1"
+    fi
+}
+
+for config in "${CONFIGS[@]}"; do
+    echo ""
+    echo "========================================"
+    echo "Servidor: $config"
+    echo "========================================"
+    $(pin "$SERVER_CPUS") java -cp bin compunet.webserver.WebServer --access-log= --port=$PORT $config > /dev/null 2>&1 &
+    SERVER_PID=$!
+    # Espera a que el puerto acepte conexiones
+    for i in $(seq 50); do
+        (echo > /dev/tcp/localhost/$PORT) 2> /dev/null && break
+        sleep 0.1
+    done
+    $(pin "$CLIENT_CPUS") java -cp bin compunet.webserver.LoadGenerator --port=$PORT --label="$config" --csv=resultados.csv "$@"
+    kill $SERVER_PID
+    wait $SERVER_PID 2> /dev/null
+done
@@ -12,7 +12,7 @@ REM Crear carpeta bin si no existe
 if not exist bin mkdir bin
 
 REM Compilar archivos Java
-javac -d bin src\*.java
+javac -encoding UTF-8 -d bin server\src\main\java\compunet\webserver\*.java
 
 if %ERRORLEVEL% neq 0 (
     echo.
@@ -28,12 +28,11 @@ echo ========================================
 echo.
 
 REM Iniciar el servidor
-echo Iniciando servidor en puerto 8080...
-echo Accede a: http://localhost:8080/index.html
+echo Iniciando servidor (puerto 8080 salvo --port o --config)...
 echo.
 echo Presiona Ctrl+C para detener el servidor.
 echo.
 
-java -cp bin WebServer
+java -cp bin compunet.webserver.WebServer %*
 
 pause
@@ -11,7 +11,7 @@ echo ""
 mkdir -p bin
 
 # Compilar archivos Java
-javac -d bin src/*.java
+javac -encoding UTF-8 -d bin server/src/main/java/compunet/webserver/*.java
 
 if [ $? -ne 0 ]; then
     echo ""
@@ -26,10 +26,9 @@ echo "========================================"
 echo ""
 
 # Iniciar el servidor
-echo "Iniciando servidor en puerto 8080..."
-echo "Accede a: http://localhost:8080/index.html"
+echo "Iniciando servidor (puerto 8080 salvo --port o --config)..."
 echo ""
 echo "Presiona Ctrl+C para detener el servidor."
 echo ""
 
-java -cp bin WebServer
+java -cp bin compunet.webserver.WebServer "$@"
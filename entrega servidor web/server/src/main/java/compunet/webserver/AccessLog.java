@@ -0,0 +1,335 @@
+package compunet.webserver;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro de accesos en formato Combined Log Format más la latencia en microsegundos
+ * Los hilos que atienden solicitudes solo crean la entrada y la dejan en un buffer circular
+ * sin locks; un hilo propio le da formato y la escribe en lotes. El archivo rota al superar
+ * un tamaño o un intervalo de tiempo. Con el buffer lleno la entrada se descarta (y se cuenta)
+ * o el hilo espera, según la política configurada
+ */
+public class AccessLog {
+
+    /**
+     * Qué hace una solicitud cuando el buffer está lleno
+     */
+    public enum FullPolicy {
+        DROP,
+        BLOCK
+    }
+
+    /** Tiempo máximo que una entrada espera en memoria antes de escribirse */
+    private static final long FLUSH_INTERVAL_NANOS = 1_000_000_000L;
+    private static final long IDLE_PARK_NANOS = 2_000_000L;
+    private static final int WRITE_BUFFER = 64 * 1024;
+    /** Espera antes de volver a intentar una rotación o una reapertura que falló */
+    private static final long ROTATE_RETRY_MILLIS = 60_000L;
+
+    /**
+     * Datos de una solicitud atendida; se formatean en el hilo del registro
+     */
+    private static final class Entry {
+        private final String remoteAddress;
+        private final long timestamp;
+        private final String requestLine;
+        private final int status;
+        private final long bytes;
+        private final String referer;
+        private final String userAgent;
+        private final long latencyMicros;
+
+        Entry(String remoteAddress, long timestamp, String requestLine, int status, long bytes,
+              String referer, String userAgent, long latencyMicros) {
+            this.remoteAddress = remoteAddress;
+            this.timestamp = timestamp;
+            this.requestLine = requestLine;
+            this.status = status;
+            this.bytes = bytes;
+            this.referer = referer;
+            this.userAgent = userAgent;
+            this.latencyMicros = latencyMicros;
+        }
+    }
+
+    private final Path file;
+    private final FullPolicy fullPolicy;
+    private final long maxBytes;
+    private final long rotateIntervalMillis;
+
+    /** Buffer circular de varios productores y un consumidor; la capacidad es potencia de 2 */
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private volatile boolean running = true;
+    private final Thread writerThread;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z", Locale.US);
+    private final StringBuilder line = new StringBuilder(256);
+    /** null si el archivo no se pudo volver a abrir; se reintenta a partir de rotateRetryAt */
+    private Writer out;
+    private long fileBytes;
+    private long fileOpenedAt;
+    private long rotateRetryAt;
+
+    /**
+     * @param capacity entradas que caben en el buffer (se redondea a potencia de 2)
+     * @param maxBytes tamaño a partir del cual el archivo rota; 0 sin límite
+     * @param rotateIntervalMillis antigüedad a partir de la cual el archivo rota; 0 nunca
+     */
+    public AccessLog(Path file, int capacity, FullPolicy fullPolicy, long maxBytes, long rotateIntervalMillis)
+            throws IOException {
+        this.file = file;
+        this.fullPolicy = fullPolicy;
+        this.maxBytes = maxBytes;
+        this.rotateIntervalMillis = rotateIntervalMillis;
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        openFile();
+        this.writerThread = new Thread(this::run, "access-log");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Registra una solicitud atendida; no hace E/S ni da formato en el hilo que llama
+     *
+     * @param requestLine línea de solicitud, o null si no se pudo interpretar
+     * @param startNanos System.nanoTime() al empezar a atender la solicitud
+     */
+    public void log(String remoteAddress, String requestLine, int status, long bytes,
+                    String referer, String userAgent, long startNanos) {
+        long latencyMicros = (System.nanoTime() - startNanos) / 1000;
+        Entry entry = new Entry(remoteAddress, System.currentTimeMillis(), requestLine, status, bytes,
+                referer, userAgent, latencyMicros);
+        while (!offer(entry)) {
+            if (fullPolicy == FullPolicy.DROP || !running) {
+                dropped.incrementAndGet();
+                return;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS / 4);
+        }
+    }
+
+    /**
+     * Reserva el siguiente lugar con CAS sobre tail; falla si el consumidor no liberó ese lugar
+     */
+    private boolean offer(Entry entry) {
+        while (true) {
+            long position = tail.get();
+            if (position - head >= slots.length()) {
+                return false;
+            }
+            if (tail.compareAndSet(position, position + 1)) {
+                slots.lazySet((int) position & mask, entry);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Siguiente entrada publicada, o null si no hay (o el productor aún no terminó de dejarla)
+     */
+    private Entry poll() {
+        long position = head;
+        int index = (int) position & mask;
+        Entry entry = slots.get(index);
+        if (entry != null) {
+            slots.lazySet(index, null);
+            head = position + 1;
+        }
+        return entry;
+    }
+
+    private void run() {
+        long lastFlush = System.nanoTime();
+        boolean pending = false;
+        while (running || head != tail.get()) {
+            Entry entry = poll();
+            if (entry != null) {
+                try {
+                    write(entry);
+                    pending = true;
+                } catch (IOException e) {
+                    System.err.println("[ERROR] No se pudo escribir el registro de accesos: " + e.getMessage());
+                }
+                if (System.nanoTime() - lastFlush < FLUSH_INTERVAL_NANOS) {
+                    continue;
+                }
+            }
+            if (pending) {
+                flushQuietly();
+                pending = false;
+            }
+            lastFlush = System.nanoTime();
+            if (entry == null) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        flushQuietly();
+        try {
+            if (out != null) {
+                out.close();
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Error al cerrar el registro de accesos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * host - - [fecha] "solicitud" estado bytes "referer" "user-agent" latencia_us
+     */
+    private void write(Entry entry) throws IOException {
+        rotateIfNeeded(entry.timestamp);
+        if (out == null) {
+            // Sin archivo hasta el próximo reintento: la entrada se descarta y se cuenta
+            dropped.incrementAndGet();
+            return;
+        }
+        line.setLength(0);
+        line.append(entry.remoteAddress).append(" - - [").append(dateFormat.format(new Date(entry.timestamp)))
+                .append("] \"");
+        appendQuoted(entry.requestLine);
+        line.append("\" ").append(entry.status).append(' ');
+        if (entry.bytes > 0) {
+            line.append(entry.bytes);
+        } else {
+            line.append('-');
+        }
+        line.append(" \"");
+        appendQuoted(entry.referer);
+        line.append("\" \"");
+        appendQuoted(entry.userAgent);
+        line.append("\" ").append(entry.latencyMicros).append('\n');
+        out.append(line);
+        fileBytes += line.length();
+        written.incrementAndGet();
+    }
+
+    /**
+     * Valor entre comillas: null es "-", y comillas, barras y caracteres de control se escapan
+     */
+    private void appendQuoted(String value) {
+        if (value == null) {
+            line.append('-');
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20 || c == 0x7F) {
+                line.append(String.format("\\x%02x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+    }
+
+    /**
+     * El archivo se cierra antes de moverlo (Windows no renombra archivos abiertos) y se
+     * vuelve a abrir aunque el movimiento falle: se sigue escribiendo en el mismo archivo
+     * y la rotación se reintenta después de ROTATE_RETRY_MILLIS. Si no se puede volver a
+     * abrir, out queda en null y la reapertura también espera ROTATE_RETRY_MILLIS
+     */
+    private void rotateIfNeeded(long now) throws IOException {
+        if (out == null) {
+            if (now >= rotateRetryAt) {
+                reopen(now);
+            }
+            return;
+        }
+        boolean tooBig = maxBytes > 0 && fileBytes >= maxBytes;
+        boolean tooOld = rotateIntervalMillis > 0 && now - fileOpenedAt >= rotateIntervalMillis && fileBytes > 0;
+        if ((!tooBig && !tooOld) || now < rotateRetryAt) {
+            return;
+        }
+        Writer current = out;
+        out = null;
+        current.close();
+        try {
+            String suffix = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.ROOT).format(new Date(now));
+            Path rotated = file.resolveSibling(file.getFileName() + "." + suffix);
+            for (int i = 1; Files.exists(rotated); i++) {
+                rotated = file.resolveSibling(file.getFileName() + "." + suffix + "-" + i);
+            }
+            Files.move(file, rotated, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("[ERROR] No se pudo rotar el registro de accesos, se sigue escribiendo en "
+                    + file + ": " + e.getMessage());
+            rotateRetryAt = now + ROTATE_RETRY_MILLIS;
+        }
+        reopen(now);
+    }
+
+    /**
+     * Abre el archivo otra vez; si falla avisa una sola vez por intento y deja out en null
+     */
+    private void reopen(long now) {
+        try {
+            openFile();
+        } catch (IOException e) {
+            out = null;
+            System.err.println("[ERROR] No se pudo abrir el registro de accesos " + file
+                    + ", se descartan las entradas por " + ROTATE_RETRY_MILLIS / 1000 + " s: " + e.getMessage());
+            rotateRetryAt = now + ROTATE_RETRY_MILLIS;
+        }
+    }
+
+    private void openFile() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND), StandardCharsets.UTF_8), WRITE_BUFFER);
+        fileBytes = Files.size(file);
+        fileOpenedAt = System.currentTimeMillis();
+    }
+
+    private void flushQuietly() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("[ERROR] No se pudo escribir el registro de accesos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Escribe lo que queda en el buffer y detiene el hilo del registro
+     */
+    public void close() throws InterruptedException {
+        running = false;
+        writerThread.join();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+}
@@ -0,0 +1,22 @@
+package compunet.webserver;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Stream en memoria donde se escribe el cuerpo de una respuesta generada
+ * toByteBuffer() entrega el arreglo interno sin copiarlo
+ */
+public class BodyOutputStream extends ByteArrayOutputStream {
+
+    public BodyOutputStream(int initialSize) {
+        super(initialSize);
+    }
+
+    /**
+     * Vista de lo escrito; el stream no debe seguir usándose después
+     */
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(buf, 0, count);
+    }
+}
@@ -0,0 +1,63 @@
+package compunet.webserver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Reglas de Cache-Control por patrón de ruta
+ * Formato: "/images/*=86400;*.html=0" (segundos de max-age; gana la primera regla que coincida)
+ */
+public class CacheControlPolicy {
+
+    private final List<Pattern> patterns = new ArrayList<>();
+    private final List<String> values = new ArrayList<>();
+
+    public CacheControlPolicy(String rules) {
+        if (rules == null || rules.trim().isEmpty()) {
+            return;
+        }
+        for (String rule : rules.split(";")) {
+            int equals = rule.lastIndexOf('=');
+            if (equals <= 0) {
+                System.err.println("[ERROR] Regla de Cache-Control inválida: " + rule);
+                continue;
+            }
+            String glob = rule.substring(0, equals).trim();
+            try {
+                long maxAge = Long.parseLong(rule.substring(equals + 1).trim());
+                patterns.add(toPattern(glob));
+                values.add(maxAge > 0 ? "public, max-age=" + maxAge : "no-cache");
+            } catch (NumberFormatException e) {
+                System.err.println("[ERROR] Regla de Cache-Control inválida: " + rule);
+            }
+        }
+    }
+
+    /**
+     * Valor del header Cache-Control para la ruta, o null si ninguna regla coincide
+     */
+    public String forPath(String path) {
+        for (int i = 0; i < patterns.size(); i++) {
+            if (patterns.get(i).matcher(path).matches()) {
+                return values.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Convierte un patrón con comodines (*) en una expresión regular
+     */
+    private static Pattern toPattern(String glob) {
+        String[] parts = glob.split("\\*", -1);
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                regex.append(".*");
+            }
+            regex.append(Pattern.quote(parts[i]));
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
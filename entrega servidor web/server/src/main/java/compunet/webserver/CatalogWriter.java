@@ -0,0 +1,244 @@
+package compunet.webserver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Hilo único que aplica las altas, reemplazos y bajas de cursos
+ * Las lecturas nunca esperan: cada lote de cambios crea un catálogo nuevo (OverlayCourseStore
+ * sobre el anterior) y lo publica de una vez. Las solicitudes que llegan mientras se aplica un
+ * lote se toman juntas en el siguiente, así que el costo de publicar se reparte entre ellas.
+ * Con almacenamiento durable el lote se guarda en el registro antes de publicarse (group commit:
+ * un solo fsync por lote)
+ */
+public class CatalogWriter implements Runnable {
+
+    /** Cambios que se aplican como máximo en un mismo catálogo nuevo */
+    private static final int MAX_BATCH = 256;
+
+    enum Operation {
+        CREATE, UPDATE, DELETE,
+        /** Interna: despierta al escritor para rearmar el catálogo sobre una instantánea nueva */
+        REBASE,
+        /** Interna: el escritor termina después de aplicar lo que ya estaba en la cola */
+        STOP
+    }
+
+    /**
+     * Cambio pendiente; el resultado es el curso creado, reemplazado o eliminado, o null si el id no existe
+     */
+    private static final class Mutation {
+        private final Operation operation;
+        private final int id;
+        private final Course course;
+        private final CompletableFuture<Course> result = new CompletableFuture<>();
+
+        Mutation(Operation operation, int id, Course course) {
+            this.operation = operation;
+            this.id = id;
+            this.course = course;
+        }
+    }
+
+    private final CourseManager manager;
+    /** Almacenamiento durable; null si los cambios quedan solo en memoria */
+    private final CourseStorage storage;
+    private final BlockingQueue<Mutation> queue = new LinkedBlockingQueue<>();
+    /** Último id asignado, para no reutilizar el de un curso eliminado */
+    private int lastAssignedId;
+    private volatile boolean stopped;
+    /** El registro y el catálogo publicado dejaron de coincidir: no se aceptan más cambios */
+    private volatile boolean failed;
+
+    CatalogWriter(CourseManager manager, CourseStorage storage) {
+        this.manager = manager;
+        this.storage = storage;
+        if (storage != null) {
+            storage.setSnapshotListener(() -> submit(Operation.REBASE, 0, null));
+        }
+    }
+
+    /**
+     * Arranca el hilo escritor (daemon)
+     */
+    void start() {
+        Thread thread = new Thread(this, "catalog-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Encola el cambio; el resultado se completa cuando el catálogo que lo contiene ya está publicado
+     */
+    CompletableFuture<Course> submit(Operation operation, int id, Course course) {
+        Mutation mutation = new Mutation(operation, id, course);
+        if (stopped || failed) {
+            mutation.result.completeExceptionally(new IllegalStateException(failed
+                    ? "El catálogo dejó de aceptar cambios tras un error; reinicie el servidor"
+                    : "El catálogo se está cerrando"));
+            return mutation.result;
+        }
+        queue.add(mutation);
+        return mutation.result;
+    }
+
+    /**
+     * Aplica (y guarda) los cambios ya encolados y detiene el hilo; los que lleguen después fallan
+     */
+    void shutdown() {
+        if (stopped || failed) {
+            return;
+        }
+        CompletableFuture<Course> done = submit(Operation.STOP, 0, null);
+        stopped = true;
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("[ERROR] Error al aplicar los últimos cambios del catálogo: " + e.getCause().getMessage());
+        }
+    }
+
+    @Override
+    public void run() {
+        List<Mutation> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            try {
+                rebase();
+                applyBatch(batch);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("[ERROR] Error al aplicar cambios al catálogo: " + e.getMessage());
+                for (Mutation mutation : batch) {
+                    mutation.result.completeExceptionally(e);
+                }
+            }
+            if (failed || containsStop(batch)) {
+                // Lo que se encoló mientras se cerraba ya no se aplica
+                List<Mutation> late = new ArrayList<>();
+                queue.drainTo(late);
+                for (Mutation mutation : late) {
+                    mutation.result.completeExceptionally(new IllegalStateException("El catálogo se está cerrando"));
+                }
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private static boolean containsStop(List<Mutation> batch) {
+        for (Mutation mutation : batch) {
+            if (mutation.operation == Operation.STOP) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Aplica el lote sobre el catálogo vigente y lo publica; si el catálogo se reemplazó
+     * mientras tanto (loadCatalog), se vuelve a aplicar sobre el nuevo.
+     * Con almacenamiento el lote se registra una sola vez, con sus ids definitivos, antes de
+     * publicarlo; volver a calcularlo podría registrar cambios repetidos o con otros ids
+     */
+    private void applyBatch(List<Mutation> batch) throws IOException {
+        while (true) {
+            CourseCatalog snapshot = manager.getCatalog();
+            Map<Integer, Course> changes = new LinkedHashMap<>();
+            Course[] results = new Course[batch.size()];
+            int nextId = Math.max(lastAssignedId, maxId(snapshot));
+            for (int i = 0; i < batch.size(); i++) {
+                Mutation mutation = batch.get(i);
+                if (mutation.operation == Operation.REBASE || mutation.operation == Operation.STOP) {
+                    continue;
+                }
+                if (mutation.operation == Operation.CREATE) {
+                    Course created = withId(mutation.course, ++nextId);
+                    changes.put(created.getId(), created);
+                    results[i] = created;
+                    continue;
+                }
+                Course current = changes.containsKey(mutation.id) ? changes.get(mutation.id) : snapshot.getById(mutation.id);
+                if (current == null) {
+                    continue;
+                }
+                if (mutation.operation == Operation.UPDATE) {
+                    Course updated = withId(mutation.course, mutation.id);
+                    changes.put(mutation.id, updated);
+                    results[i] = updated;
+                } else {
+                    changes.put(mutation.id, null);
+                    results[i] = current;
+                }
+            }
+
+            if (changes.isEmpty()) {
+                completeAll(batch, results);
+                return;
+            }
+            CourseCatalog updated = new CourseCatalog(OverlayCourseStore.apply(snapshot.getStore(), changes));
+            if (storage == null) {
+                if (manager.publish(snapshot, updated, changes)) {
+                    lastAssignedId = nextId;
+                    completeAll(batch, results);
+                    return;
+                }
+                continue;
+            }
+            storage.log(changes);
+            lastAssignedId = nextId;
+            if (!manager.publish(snapshot, updated, changes)) {
+                // El lote ya es durable sobre otro catálogo: reintentarlo lo duplicaría al recuperar
+                failed = true;
+                throw new IllegalStateException("El catálogo se reemplazó con un lote ya registrado; reinicie el servidor");
+            }
+            completeAll(batch, results);
+            storage.afterPublish(updated);
+            return;
+        }
+    }
+
+    private static void completeAll(List<Mutation> batch, Course[] results) {
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result.complete(results[i]);
+        }
+    }
+
+    /**
+     * Si terminó una instantánea, publica el mismo catálogo armado sobre ella: el overlay
+     * vuelve a tener solo los cambios posteriores y la instantánea anterior deja de usarse
+     */
+    private void rebase() {
+        if (storage == null) {
+            return;
+        }
+        CourseCatalog current = manager.getCatalog();
+        CourseCatalog rebased = storage.rebase();
+        if (rebased != null) {
+            manager.publish(current, rebased, Collections.<Integer, Course>emptyMap());
+        }
+    }
+
+    private static int maxId(CourseCatalog catalog) {
+        return catalog.size() > 0 ? catalog.get(CourseCatalog.SortField.ID, false, 0).getId() : 0;
+    }
+
+    private static Course withId(Course course, int id) {
+        return new Course(id, course.getName(), course.getProfessor(), course.getCredits());
+    }
+}
@@ -0,0 +1,345 @@
+package compunet.webserver;
+
+import java.io.*;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Manejador de solicitudes HTTP en un hilo independiente
+ * Procesa solicitudes HTTP/1.0 y HTTP/1.1 con conexiones persistentes
+ */
+public class ClientHandler implements Runnable {
+
+    private static final int MAX_OUTGOING_BYTES = 64 * 1024;
+
+    /** Estados de la conexión frente al apagado: solo una conexión IDLE se puede cerrar sin cortar una respuesta */
+    private static final int BUSY = 0;
+    private static final int IDLE = 1;
+    private static final int CLOSED = 2;
+
+    private Socket clientSocket;
+    private InputStream in;
+    private OutputStream out;
+    private ServerConfig config;
+    private RequestRouter router;
+    private String httpVersion = "HTTP/1.0";
+    private boolean keepAlive = false;
+    private String remoteAddress = "-";
+
+    /** Buffer de entrada reutilizado entre solicitudes; [bufferStart, bufferEnd) aún no se procesó */
+    private byte[] buffer = new byte[4096];
+    private int bufferStart;
+    private int bufferEnd;
+    private final HttpRequestParser parser = new HttpRequestParser();
+    private final HttpRequest request = new HttpRequest();
+
+    /** Fragmentos en memoria pendientes de la siguiente escritura gathering */
+    private final Deque<ResponseChunk> outgoing = new ArrayDeque<>();
+    private final ByteBuffer[] gatherBuffers = new ByteBuffer[16];
+    private long outgoingBytes;
+
+    private final AtomicInteger state = new AtomicInteger(BUSY);
+    private volatile boolean draining;
+    private volatile boolean aborted;
+    /** SO_TIMEOUT vigente: keep-alive-timeout entre solicitudes, socket-timeout con una a medias */
+    private int soTimeout = -1;
+
+    public ClientHandler(Socket clientSocket) {
+        this(clientSocket, new ServerConfig(), new RequestRouter());
+    }
+
+    public ClientHandler(Socket clientSocket, ServerConfig config, RequestRouter router) {
+        this.clientSocket = clientSocket;
+        this.config = config;
+        this.router = router;
+    }
+
+    /**
+     * Atiende solicitudes sobre el mismo socket mientras la conexión siga viva
+     * Las solicitudes en pipeline se leen y responden en orden; la salida solo
+     * se vacía cuando no quedan solicitudes pendientes en el buffer de entrada
+     */
+    @Override
+    public void run() {
+        router.getMetrics().connectionOpened();
+        try {
+            if (clientSocket.getInetAddress() != null) {
+                remoteAddress = clientSocket.getInetAddress().getHostAddress();
+            }
+            in = clientSocket.getInputStream();
+            out = new BufferedOutputStream(clientSocket.getOutputStream());
+
+            int handledRequests = 0;
+            while (true) {
+                int requestEnd;
+                try {
+                    requestEnd = readRequest();
+                } catch (HttpParseException e) {
+                    keepAlive = false;
+                    HTTPResponse error = router.parseError(e);
+                    sendResponse(error);
+                    router.requestCompleted(remoteAddress, null, error, System.nanoTime());
+                    break;
+                }
+                if (requestEnd < 0) {
+                    break;
+                }
+                long startNanos = System.nanoTime();
+
+                if (config.isDebugLog()) {
+                    System.out.println("[INFO] " + request.getRequestLine());
+                    for (int i = 0; i < request.getHeaderCount(); i++) {
+                        System.out.println("[INFO] " + request.getHeaderName(i) + ": " + request.getHeaderValue(i));
+                    }
+                }
+
+                httpVersion = request.getHttpVersion();
+                handledRequests++;
+                keepAlive = isKeepAliveRequested(httpVersion, request.getHeader("connection"))
+                        && handledRequests < config.getMaxKeepAliveRequests()
+                        && !draining;
+
+                HTTPResponse response;
+                try {
+                    response = router.handleRequest(request);
+                } catch (IOException | RuntimeException e) {
+                    // Igual que NioConnection: 500 y se cierra la conexión
+                    System.err.println("[ERROR] Error al procesar solicitud: " + e.getMessage());
+                    keepAlive = false;
+                    response = new HTTPResponse(500, "text/plain");
+                    response.setBody("500 - Error interno del servidor");
+                }
+                sendResponse(response);
+                router.requestCompleted(remoteAddress, request, response, startNanos);
+                bufferStart = requestEnd;
+
+                if (bufferStart == bufferEnd && in.available() == 0) {
+                    flushOutput();
+                }
+                if (!keepAlive) {
+                    break;
+                }
+            }
+
+        } catch (SocketTimeoutException e) {
+            // Conexión inactiva más tiempo que keep-alive-timeout, o solicitud incompleta más que socket-timeout
+        } catch (IOException e) {
+            if (!aborted) {
+                System.err.println("[ERROR] Error en ClientHandler: " + e.getMessage());
+            }
+        } finally {
+            closeConnection();
+            router.getMetrics().connectionClosed();
+        }
+    }
+
+    /**
+     * Lee del socket hasta tener una solicitud completa (cabecera y cuerpo) en el buffer
+     * Devuelve la posición siguiente a la solicitud, o -1 si el cliente cerró la conexión
+     */
+    private int readRequest() throws IOException {
+        while (true) {
+            int requestEnd = parser.parse(buffer, bufferStart, bufferEnd, request);
+            if (requestEnd >= 0) {
+                return requestEnd;
+            }
+            if (bufferStart > 0) {
+                System.arraycopy(buffer, bufferStart, buffer, 0, bufferEnd - bufferStart);
+                bufferEnd -= bufferStart;
+                bufferStart = 0;
+            }
+            if (bufferEnd == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            // Entre solicitudes, sin nada leído ni por enviar, la conexión queda inactiva
+            boolean idle = bufferStart == bufferEnd && in.available() == 0;
+            if (idle && !enterIdle()) {
+                return -1;
+            }
+            setSoTimeout(idle ? config.getKeepAliveTimeout() : config.getSocketTimeout());
+            int read;
+            try {
+                read = in.read(buffer, bufferEnd, buffer.length - bufferEnd);
+            } catch (IOException e) {
+                if (state.get() == CLOSED) {
+                    return -1;
+                }
+                throw e;
+            }
+            if (idle && !state.compareAndSet(IDLE, BUSY)) {
+                return -1;
+            }
+            if (read < 0) {
+                return -1;
+            }
+            bufferEnd += read;
+        }
+    }
+
+    private void setSoTimeout(int timeout) throws IOException {
+        if (timeout != soTimeout) {
+            clientSocket.setSoTimeout(timeout);
+            soTimeout = timeout;
+        }
+    }
+
+    /**
+     * Marca la conexión como inactiva; devuelve false si el servidor se está apagando
+     */
+    private boolean enterIdle() {
+        state.set(IDLE);
+        if (draining) {
+            state.compareAndSet(IDLE, CLOSED);
+        }
+        return state.get() != CLOSED;
+    }
+
+    /**
+     * Pide cerrar la conexión al terminar la solicitud en curso
+     * Si está esperando una solicitud nueva se cierra ya y devuelve true
+     */
+    public boolean drain() {
+        draining = true;
+        if (state.compareAndSet(IDLE, CLOSED)) {
+            closeSocket();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Corta la conexión aunque tenga una respuesta a medias (plazo de apagado vencido)
+     */
+    public void abort() {
+        aborted = true;
+        state.set(CLOSED);
+        closeSocket();
+    }
+
+    /**
+     * Indica si la conexión se cerró por el apagado estando inactiva
+     */
+    public boolean wasClosedIdle() {
+        return draining && !aborted && state.get() == CLOSED;
+    }
+
+    public boolean wasAborted() {
+        return aborted;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    private void closeSocket() {
+        try {
+            clientSocket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * HTTP/1.1 es persistente salvo "Connection: close"; HTTP/1.0 solo con "Connection: keep-alive"
+     */
+    static boolean isKeepAliveRequested(String httpVersion, String connection) {
+        if (connection != null) {
+            connection = connection.toLowerCase();
+            if (connection.contains("close")) {
+                return false;
+            }
+            if (connection.contains("keep-alive")) {
+                return true;
+            }
+        }
+        return httpVersion.equals("HTTP/1.1");
+    }
+
+    /**
+     * Envía una respuesta HTTP
+     * Con canal, los fragmentos en memoria se acumulan y salen juntos en una escritura
+     * gathering (headers y cuerpo sin concatenar, y varias respuestas en pipeline); los
+     * archivos van por transferTo. Sin canal todo pasa por el stream con buffer
+     */
+    private void sendResponse(HTTPResponse response) throws IOException {
+        response.setHttpVersion(httpVersion);
+        response.setKeepAlive(keepAlive);
+        List<ResponseChunk> chunks = response.toChunks();
+        try {
+            SocketChannel channel = clientSocket.getChannel();
+            for (ResponseChunk chunk : chunks) {
+                if (channel == null) {
+                    chunk.writeTo(out);
+                } else if (chunk.getBuffer() != null) {
+                    outgoing.add(chunk);
+                    outgoingBytes += chunk.getBuffer().remaining();
+                } else {
+                    writeOutgoing(channel);
+                    while (!chunk.writeTo(channel)) {
+                        // Canal bloqueante: cada vuelta envía lo que acepte el socket
+                    }
+                }
+            }
+            if (channel != null && (outgoingBytes >= MAX_OUTGOING_BYTES || outgoing.size() >= gatherBuffers.length)) {
+                writeOutgoing(channel);
+            }
+        } finally {
+            for (ResponseChunk chunk : chunks) {
+                chunk.release();
+            }
+        }
+    }
+
+    /**
+     * Envía todo lo pendiente: los fragmentos acumulados y el stream con buffer
+     */
+    private void flushOutput() throws IOException {
+        SocketChannel channel = clientSocket.getChannel();
+        if (channel != null) {
+            writeOutgoing(channel);
+        }
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    private void writeOutgoing(SocketChannel channel) throws IOException {
+        while (!outgoing.isEmpty()) {
+            ResponseChunk.writeBuffers(outgoing, channel, gatherBuffers);
+        }
+        outgoingBytes = 0;
+    }
+
+    /**
+     * Cierra la conexión de forma segura
+     */
+    private void closeConnection() {
+        try {
+            flushOutput();
+        } catch (IOException e) {
+            if (!aborted) {
+                System.err.println("[ERROR] Error al enviar respuesta pendiente: " + e.getMessage());
+            }
+        }
+        outgoing.clear();
+        try {
+            if (out != null) out.close();
+        } catch (IOException e) {
+            System.err.println("[ERROR] Error al cerrar salida: " + e.getMessage());
+        }
+        try {
+            if (in != null) in.close();
+            if (clientSocket != null && !clientSocket.isClosed()) {
+                clientSocket.close();
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Error al cerrar conexión: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package compunet.webserver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Negociación de Accept-Encoding y compresión gzip/deflate de cuerpos de texto
+ */
+public final class ContentEncoding {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    /** Por debajo de este tamaño la compresión no compensa los headers y el CPU */
+    public static final int MIN_COMPRESS_SIZE = 256;
+
+    private ContentEncoding() {
+    }
+
+    /**
+     * Elige gzip o deflate según Accept-Encoding y sus valores q; null si no acepta ninguno
+     * Ante igual preferencia se elige gzip
+     */
+    public static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals(GZIP) || coding.equals("x-gzip")) {
+                gzip = quality;
+            } else if (coding.equals(DEFLATE)) {
+                deflate = quality;
+            } else if (coding.equals("*")) {
+                any = quality;
+            }
+        }
+        if (gzip < 0) {
+            gzip = any;
+        }
+        if (deflate < 0) {
+            deflate = any;
+        }
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+
+    /**
+     * Indica si vale la pena comprimir el tipo MIME (texto); JPEG, GIF o PNG ya vienen comprimidos
+     */
+    public static boolean isCompressible(String mimeType) {
+        return mimeType.startsWith("text/")
+                || mimeType.equals("application/javascript")
+                || mimeType.equals("application/json")
+                || mimeType.equals("image/svg+xml");
+    }
+
+    /**
+     * Comprime los bytes con la codificación dada
+     */
+    public static byte[] encode(byte[] data, String encoding) throws IOException {
+        return encode(ByteBuffer.wrap(data), encoding);
+    }
+
+    /**
+     * Comprime el contenido restante del buffer (sin modificar su posición)
+     */
+    public static byte[] encode(ByteBuffer data, String encoding) throws IOException {
+        ByteBuffer source = data.duplicate();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, source.remaining() / 3));
+        try (OutputStream out = GZIP.equals(encoding)
+                ? new GZIPOutputStream(compressed, 8192)
+                : new DeflaterOutputStream(compressed)) {
+            if (source.hasArray()) {
+                out.write(source.array(), source.arrayOffset() + source.position(), source.remaining());
+            } else {
+                byte[] chunk = new byte[8192];
+                while (source.hasRemaining()) {
+                    int length = Math.min(chunk.length, source.remaining());
+                    source.get(chunk, 0, length);
+                    out.write(chunk, 0, length);
+                }
+            }
+        }
+        return compressed.toByteArray();
+    }
+}
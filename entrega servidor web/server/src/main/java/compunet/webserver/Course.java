@@ -1,3 +1,5 @@
+package compunet.webserver;
+
 /**
  * Modelo de datos para un Curso
  */
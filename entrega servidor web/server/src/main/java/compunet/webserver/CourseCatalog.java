@@ -0,0 +1,281 @@
+package compunet.webserver;
+
+import java.nio.IntBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntPredicate;
+
+/**
+ * Vista de solo lectura del catálogo de cursos sobre un CourseStore
+ * Cada orden es una permutación de posiciones por (campo, id); el orden descendente es el
+ * mismo arreglo recorrido al revés, de modo que una página es un recorte de O(tamaño de página).
+ * Las búsquedas por id, profesor y créditos son búsquedas binarias sobre esas permutaciones,
+ * así que funcionan igual con el catálogo en el heap o mapeado desde disco.
+ * Es inmutable: los cambios crean otro catálogo (ver OverlayCourseStore)
+ */
+public final class CourseCatalog {
+
+    /**
+     * Campos por los que se puede ordenar
+     */
+    public enum SortField {
+        NAME, CREDITS, PROFESSOR, ID;
+
+        /**
+         * Interpreta el parámetro sort; cualquier valor desconocido ordena por nombre
+         */
+        public static SortField fromParameter(String value) {
+            if (value != null) {
+                switch (value.toLowerCase(Locale.ROOT)) {
+                    case "credits":
+                        return CREDITS;
+                    case "professor":
+                        return PROFESSOR;
+                    default:
+                        break;
+                }
+            }
+            return NAME;
+        }
+
+        /**
+         * Orden total del campo: empates resueltos por id
+         */
+        public Comparator<Course> comparator() {
+            switch (this) {
+                case CREDITS:
+                    return BY_CREDITS;
+                case PROFESSOR:
+                    return BY_PROFESSOR;
+                case ID:
+                    return BY_ID;
+                default:
+                    return BY_NAME;
+            }
+        }
+    }
+
+    private static final Comparator<Course> BY_ID = (c1, c2) -> Integer.compare(c1.getId(), c2.getId());
+    private static final Comparator<Course> BY_NAME = (c1, c2) -> {
+        int comparison = c1.getName().compareToIgnoreCase(c2.getName());
+        return comparison != 0 ? comparison : Integer.compare(c1.getId(), c2.getId());
+    };
+    private static final Comparator<Course> BY_CREDITS = (c1, c2) -> {
+        int comparison = Integer.compare(c1.getCredits(), c2.getCredits());
+        return comparison != 0 ? comparison : Integer.compare(c1.getId(), c2.getId());
+    };
+    private static final Comparator<Course> BY_PROFESSOR = (c1, c2) -> {
+        int comparison = c1.getProfessor().compareToIgnoreCase(c2.getProfessor());
+        return comparison != 0 ? comparison : Integer.compare(c1.getId(), c2.getId());
+    };
+
+    private final CourseStore store;
+    private final IntBuffer byName;
+    private final IntBuffer byCredits;
+    private final IntBuffer byProfessor;
+    private final IntBuffer byId;
+
+    public CourseCatalog(List<Course> courseList) {
+        this(new MemoryCourseStore(courseList));
+    }
+
+    public CourseCatalog(CourseStore store) {
+        this.store = store;
+        this.byName = store.order(SortField.NAME);
+        this.byCredits = store.order(SortField.CREDITS);
+        this.byProfessor = store.order(SortField.PROFESSOR);
+        this.byId = store.order(SortField.ID);
+    }
+
+    private IntBuffer order(SortField field) {
+        switch (field) {
+            case CREDITS:
+                return byCredits;
+            case PROFESSOR:
+                return byProfessor;
+            case ID:
+                return byId;
+            default:
+                return byName;
+        }
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    CourseStore getStore() {
+        return store;
+    }
+
+    /**
+     * Curso en la posición index del orden dado (0 es el primero en esa dirección)
+     */
+    public Course get(SortField field, boolean ascending, int index) {
+        IntBuffer order = order(field);
+        return store.get(order.get(ascending ? index : order.limit() - 1 - index));
+    }
+
+    /**
+     * Construye los cursos [from, to) del orden dado; el costo depende solo del tamaño del recorte
+     */
+    public List<Course> slice(SortField field, boolean ascending, int from, int to) {
+        List<Course> result = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            result.add(get(field, ascending, i));
+        }
+        return result;
+    }
+
+    /**
+     * Todos los cursos en el orden en que se cargaron; cada elemento se construye al leerlo
+     */
+    public List<Course> getAll() {
+        return new AbstractList<Course>() {
+            @Override
+            public Course get(int index) {
+                return store.get(index);
+            }
+
+            @Override
+            public int size() {
+                return store.size();
+            }
+        };
+    }
+
+    /**
+     * Primer índice, en el orden y la dirección dados, que va después del cursor
+     * Con una clave numérica inválida para créditos devuelve -1
+     */
+    public int indexAfter(SortField field, boolean ascending, CourseCursor cursor) {
+        return seek(field, ascending, cursor, true);
+    }
+
+    /**
+     * Primer índice que no va antes del cursor: la página anterior termina justo ahí
+     * Con una clave numérica inválida para créditos devuelve -1
+     */
+    public int indexBefore(SortField field, boolean ascending, CourseCursor cursor) {
+        return seek(field, ascending, cursor, false);
+    }
+
+    /**
+     * Búsqueda binaria del cursor sobre la permutación del campo; O(log n) sin importar
+     * qué tan profunda sea la página
+     */
+    private int seek(SortField field, boolean ascending, CourseCursor cursor, boolean strictlyAfter) {
+        IntBuffer order = order(field);
+        int last = order.limit() - 1;
+        int credits = 0;
+        if (field == SortField.CREDITS) {
+            try {
+                credits = Integer.parseInt(cursor.getKey().trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        final int creditKey = credits;
+        return lowerBound(order.limit(), index -> {
+            int position = order.get(ascending ? index : last - index);
+            int comparison = compareToCursor(field, position, cursor, creditKey);
+            if (!ascending) {
+                comparison = -comparison;
+            }
+            return strictlyAfter ? comparison > 0 : comparison >= 0;
+        });
+    }
+
+    /**
+     * Compara el curso de la posición con el cursor según (campo, id)
+     */
+    private int compareToCursor(SortField field, int position, CourseCursor cursor, int creditKey) {
+        int comparison;
+        switch (field) {
+            case CREDITS:
+                comparison = Integer.compare(store.getCredits(position), creditKey);
+                break;
+            case PROFESSOR:
+                comparison = store.getProfessor(position).compareToIgnoreCase(cursor.getKey());
+                break;
+            case ID:
+                comparison = 0;
+                break;
+            default:
+                comparison = store.getName(position).compareToIgnoreCase(cursor.getKey());
+        }
+        return comparison != 0 ? comparison : Integer.compare(store.getId(position), cursor.getId());
+    }
+
+    public Course getById(int id) {
+        int low = 0;
+        int high = byId.limit() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int position = byId.get(middle);
+            int comparison = Integer.compare(store.getId(position), id);
+            if (comparison == 0) {
+                return store.get(position);
+            }
+            if (comparison < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cursos del profesor, sin distinguir mayúsculas, ordenados por id
+     */
+    public List<Course> getByProfessor(String professor) {
+        int from = lowerBound(byProfessor, position -> store.getProfessor(position).compareToIgnoreCase(professor) >= 0);
+        int to = lowerBound(byProfessor, position -> store.getProfessor(position).compareToIgnoreCase(professor) > 0);
+        return from < to ? slice(SortField.PROFESSOR, true, from, to) : Collections.<Course>emptyList();
+    }
+
+    public List<Course> getByCredits(int credits) {
+        return getByCreditsRange(credits, credits);
+    }
+
+    /**
+     * Cursos con créditos en [minCredits, maxCredits], en orden de créditos
+     */
+    public List<Course> getByCreditsRange(int minCredits, int maxCredits) {
+        if (minCredits > maxCredits) {
+            return new ArrayList<>();
+        }
+        int from = lowerBound(byCredits, position -> store.getCredits(position) >= minCredits);
+        int to = lowerBound(byCredits, position -> store.getCredits(position) > maxCredits);
+        return slice(SortField.CREDITS, true, from, to);
+    }
+
+    /**
+     * Primer índice del orden cuya posición cumple la condición (que debe ser monótona en el orden)
+     */
+    private static int lowerBound(IntBuffer order, IntPredicate predicate) {
+        return lowerBound(order.limit(), index -> predicate.test(order.get(index)));
+    }
+
+    /**
+     * Primer índice en [0, size) que cumple la condición (monótona en el índice)
+     */
+    private static int lowerBound(int size, IntPredicate predicate) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (predicate.test(middle)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+}
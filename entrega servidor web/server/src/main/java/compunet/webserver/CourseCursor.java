@@ -0,0 +1,64 @@
+package compunet.webserver;
+
+/**
+ * Posición de un curso dentro de un orden, para paginación por cursor (keyset)
+ * Se escribe como "clave,id": la clave es el valor del campo de orden y el id desempata.
+ * Al interpretarlo se separa por la última coma, así que la clave puede contener comas
+ */
+public final class CourseCursor {
+
+    private final String key;
+    private final int id;
+
+    public CourseCursor(String key, int id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    /**
+     * Cursor del curso según el campo de orden
+     */
+    public static CourseCursor of(Course course, CourseCatalog.SortField field) {
+        switch (field) {
+            case CREDITS:
+                return new CourseCursor(String.valueOf(course.getCredits()), course.getId());
+            case PROFESSOR:
+                return new CourseCursor(course.getProfessor(), course.getId());
+            case ID:
+                return new CourseCursor(String.valueOf(course.getId()), course.getId());
+            default:
+                return new CourseCursor(course.getName(), course.getId());
+        }
+    }
+
+    /**
+     * Interpreta "clave,id"; devuelve null si no tiene ese formato
+     */
+    public static CourseCursor parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        int comma = value.lastIndexOf(',');
+        if (comma < 0) {
+            return null;
+        }
+        try {
+            return new CourseCursor(value.substring(0, comma), Integer.parseInt(value.substring(comma + 1).trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return key + "," + id;
+    }
+}
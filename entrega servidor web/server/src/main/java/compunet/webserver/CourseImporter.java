@@ -0,0 +1,154 @@
+package compunet.webserver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Convierte un catálogo CSV o JSON al formato binario de MappedCourseStore
+ * Uso: java CourseImporter cursos.csv|cursos.json catalogo.db
+ * CSV: columnas id,name,professor,credits (la primera línea puede ser el encabezado;
+ * los campos pueden ir entre comillas dobles). JSON: arreglo de objetos con esas claves
+ */
+public class CourseImporter {
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Uso: java CourseImporter <cursos.csv|cursos.json> <catalogo.db>");
+            System.exit(1);
+        }
+        Path input = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+        try {
+            long start = System.currentTimeMillis();
+            List<Course> courses = input.toString().toLowerCase().endsWith(".json")
+                    ? readJson(input)
+                    : readCsv(input);
+            MappedCourseStore.write(courses, output);
+            System.out.println("[INFO] " + courses.size() + " cursos importados en " + output
+                    + " (" + (System.currentTimeMillis() - start) + " ms)");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("[ERROR] No se pudo importar el catálogo: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Lee un CSV con columnas id,name,professor,credits
+     */
+    static List<Course> readCsv(Path file) throws IOException {
+        List<Course> courses = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                List<String> fields = splitCsvLine(line);
+                if (lineNumber == 1 && !fields.isEmpty() && fields.get(0).trim().equalsIgnoreCase("id")) {
+                    continue;
+                }
+                if (fields.size() != 4) {
+                    throw new IllegalArgumentException("Línea " + lineNumber + ": se esperaban 4 columnas");
+                }
+                try {
+                    courses.add(new Course(Integer.parseInt(fields.get(0).trim()), fields.get(1),
+                            fields.get(2), Integer.parseInt(fields.get(3).trim())));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Línea " + lineNumber + ": número inválido");
+                }
+            }
+        }
+        return courses;
+    }
+
+    /**
+     * Separa una línea CSV respetando comillas dobles ("" dentro de comillas es una comilla)
+     */
+    private static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Lee un arreglo JSON de objetos {"id", "name", "professor", "credits"}
+     */
+    static List<Course> readJson(Path file) throws IOException {
+        String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        JsonReader reader = new JsonReader(text);
+        List<Course> courses = new ArrayList<>();
+        reader.expect('[');
+        if (!reader.consumeIf(']')) {
+            do {
+                courses.add(readJsonCourse(reader));
+            } while (reader.consumeIf(','));
+            reader.expect(']');
+        }
+        return courses;
+    }
+
+    private static Course readJsonCourse(JsonReader reader) {
+        Integer id = null;
+        Integer credits = null;
+        String name = null;
+        String professor = null;
+        reader.expect('{');
+        if (!reader.consumeIf('}')) {
+            do {
+                String key = reader.readString();
+                reader.expect(':');
+                switch (key) {
+                    case "id":
+                        id = reader.readInt();
+                        break;
+                    case "credits":
+                        credits = reader.readInt();
+                        break;
+                    case "name":
+                        name = reader.readString();
+                        break;
+                    case "professor":
+                        professor = reader.readString();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            } while (reader.consumeIf(','));
+            reader.expect('}');
+        }
+        if (id == null || credits == null || name == null || professor == null) {
+            throw new IllegalArgumentException("Curso incompleto cerca de la posición " + reader.getPosition());
+        }
+        return new Course(id, name, professor, credits);
+    }
+}
@@ -0,0 +1,95 @@
+package compunet.webserver;
+
+import java.io.IOException;
+
+/**
+ * Representación JSON de los cursos y sus páginas para la API
+ */
+public final class CourseJson {
+
+    public static final int MAX_TEXT_LENGTH = 200;
+
+    private CourseJson() {
+    }
+
+    /**
+     * Lee y valida el cuerpo de un alta o reemplazo: {"name", "professor", "credits"}
+     * El id, si viene, se ignora (lo asigna el servidor o lo da la ruta)
+     *
+     * @throws IllegalArgumentException si el JSON es inválido o falta algún campo
+     */
+    public static Course readCourse(String body) {
+        JsonReader reader = new JsonReader(body);
+        String name = null;
+        String professor = null;
+        Integer credits = null;
+        reader.expect('{');
+        if (!reader.consumeIf('}')) {
+            do {
+                String key = reader.readString();
+                reader.expect(':');
+                switch (key) {
+                    case "name":
+                        name = reader.readString().trim();
+                        break;
+                    case "professor":
+                        professor = reader.readString().trim();
+                        break;
+                    case "credits":
+                        credits = reader.readInt();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            } while (reader.consumeIf(','));
+            reader.expect('}');
+        }
+        reader.expectEnd();
+        if (name == null || name.isEmpty() || name.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("name es obligatorio (máximo " + MAX_TEXT_LENGTH + " caracteres)");
+        }
+        if (professor == null || professor.isEmpty() || professor.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("professor es obligatorio (máximo " + MAX_TEXT_LENGTH + " caracteres)");
+        }
+        if (credits == null || credits < 0) {
+            throw new IllegalArgumentException("credits es obligatorio y no puede ser negativo");
+        }
+        return new Course(0, name, professor, credits);
+    }
+
+    public static void writeCourse(JsonWriter json, Course course) throws IOException {
+        json.beginObject()
+                .name("id").value(course.getId())
+                .name("name").value(course.getName())
+                .name("professor").value(course.getProfessor())
+                .name("credits").value(course.getCredits())
+                .endObject();
+    }
+
+    /**
+     * Page<Course> con sus metadatos; los cursores son null cuando no hay más páginas
+     */
+    public static void writePage(JsonWriter json, Page<Course> page) throws IOException {
+        json.beginObject().name("content").beginArray();
+        for (Course course : page.getContent()) {
+            writeCourse(json, course);
+        }
+        json.endArray()
+                .name("number").value(page.getNumber())
+                .name("size").value(page.getSize())
+                .name("totalElements").value(page.getTotalElements())
+                .name("totalPages").value(page.getTotalPages())
+                .name("hasNext").value(page.hasNext())
+                .name("hasPrevious").value(page.hasPrevious())
+                .name("previousCursor").value(page.getPreviousCursor())
+                .name("nextCursor").value(page.getNextCursor())
+                .endObject();
+    }
+
+    public static void writeError(JsonWriter json, int status, String message) throws IOException {
+        json.beginObject()
+                .name("status").value(status)
+                .name("error").value(message)
+                .endObject();
+    }
+}
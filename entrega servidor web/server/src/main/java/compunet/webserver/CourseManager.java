@@ -0,0 +1,408 @@
+package compunet.webserver;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Gestor de cursos con soporte para paginación y ordenamiento
+ * Implementa funcionalidad similar a Spring Data JPA
+ * Hay una sola instancia compartida por todos los hilos: las consultas leen una
+ * CourseCatalog de solo lectura con los órdenes e índices ya calculados, en memoria
+ * (datos de prueba) o mapeada desde un archivo generado con CourseImporter.
+ * Los cambios los aplica un único hilo (CatalogWriter) que publica un catálogo nuevo por lote
+ */
+public class CourseManager {
+
+    private static final CourseManager INSTANCE = new CourseManager();
+
+    private volatile CourseCatalog catalog;
+    /** Aumenta cada vez que cambia el catálogo; se escribe después de publicar el catálogo nuevo */
+    private volatile long catalogVersion;
+    /** Índice de búsqueda junto con el catálogo que indexa; null hasta la primera búsqueda */
+    private volatile SearchSnapshot search;
+    private CatalogWriter writer;
+    private CourseStorage storage;
+
+    /**
+     * Par inmutable de catálogo e índice: una búsqueda lee ambos de la misma versión sin locks
+     */
+    private static final class SearchSnapshot {
+        private final CourseCatalog catalog;
+        private final CourseSearchIndex index;
+
+        SearchSnapshot(CourseCatalog catalog, CourseSearchIndex index) {
+            this.catalog = catalog;
+            this.index = index;
+        }
+    }
+
+    private CourseManager() {
+        this.catalog = new CourseCatalog(initializeData());
+    }
+
+    /**
+     * Instancia compartida del gestor
+     */
+    public static CourseManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Inicializa los datos de prueba
+     */
+    private static List<Course> initializeData() {
+        List<Course> courses = new ArrayList<>();
+        courses.add(new Course(1, "Anatomía Humana", "Juan Pérez", 5));
+        courses.add(new Course(2, "Fisiología", "Juan Pérez", 5));
+        courses.add(new Course(3, "Derecho Penal", "María López", 4));
+        courses.add(new Course(4, "Derecho Civil", "María López", 4));
+        courses.add(new Course(5, "Historia del Arte", "Carlos García", 3));
+        courses.add(new Course(6, "Introducción a la Programación", "Carlos García", 3));
+        return courses;
+    }
+
+    /**
+     * Reemplaza los datos de prueba por el catálogo binario del archivo (ver MappedCourseStore)
+     */
+    public void loadCatalog(Path file) throws IOException {
+        long start = System.currentTimeMillis();
+        CourseCatalog loaded = new CourseCatalog(MappedCourseStore.open(file));
+        synchronized (this) {
+            catalog = loaded;
+            search = null;
+            catalogVersion++;
+        }
+        System.out.println("[INFO] Catálogo cargado: " + loaded.size() + " cursos desde " + file
+                + " (" + (System.currentTimeMillis() - start) + " ms)");
+    }
+
+    /**
+     * Hace durables los cambios: recupera el catálogo guardado en la carpeta (o guarda el
+     * actual si está vacía) y desde entonces cada cambio pasa por el registro de escrituras
+     * Debe llamarse al arrancar, antes de atender solicitudes
+     */
+    public void openStorage(Path directory, ServerConfig.WalSync sync, int snapshotEvery) throws IOException {
+        CourseStorage opened = CourseStorage.open(directory, sync, snapshotEvery);
+        CourseCatalog recovered = opened.recover(catalog);
+        synchronized (this) {
+            catalog = recovered;
+            search = null;
+            catalogVersion++;
+            storage = opened;
+        }
+        // El escritor arranca ya para rearmar el catálogo sobre la instantánea apenas esté lista
+        getWriter();
+    }
+
+    /**
+     * Catálogo vigente; una misma consulta debe leer una sola vez este valor
+     */
+    public CourseCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Versión del catálogo, para invalidar lo que se haya generado a partir de él
+     * Se lee antes de consultar el catálogo: lo generado nunca es más viejo que la versión leída
+     */
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    /**
+     * Crea el curso con el siguiente id libre; devuelve el curso guardado
+     * Vuelve cuando el catálogo que lo contiene ya está publicado
+     */
+    public Course createCourse(Course course) throws IOException {
+        return await(getWriter().submit(CatalogWriter.Operation.CREATE, 0, course));
+    }
+
+    /**
+     * Reemplaza el curso con ese id; devuelve el curso guardado o null si no existe
+     */
+    public Course updateCourse(int id, Course course) throws IOException {
+        return await(getWriter().submit(CatalogWriter.Operation.UPDATE, id, course));
+    }
+
+    /**
+     * Elimina el curso con ese id; devuelve el curso eliminado o null si no existe
+     */
+    public Course deleteCourse(int id) throws IOException {
+        return await(getWriter().submit(CatalogWriter.Operation.DELETE, id, null));
+    }
+
+    private synchronized CatalogWriter getWriter() {
+        if (writer == null) {
+            writer = new CatalogWriter(this, storage);
+            writer.start();
+        }
+        return writer;
+    }
+
+    /**
+     * Al apagar el servidor: termina de aplicar los cambios encolados y cierra el almacenamiento
+     */
+    public void close() {
+        CatalogWriter currentWriter;
+        CourseStorage currentStorage;
+        synchronized (this) {
+            currentWriter = writer;
+            currentStorage = storage;
+        }
+        if (currentWriter != null) {
+            currentWriter.shutdown();
+        }
+        if (currentStorage != null) {
+            try {
+                currentStorage.close();
+            } catch (IOException e) {
+                System.err.println("[ERROR] Error al cerrar el almacenamiento: " + e.getMessage());
+            }
+        }
+    }
+
+    private static Course await(CompletableFuture<Course> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrumpido esperando el cambio del catálogo", e);
+        } catch (ExecutionException e) {
+            throw new IOException("No se pudo aplicar el cambio: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Publica el catálogo con los cambios si el vigente sigue siendo expected
+     * Si ya hay índice de búsqueda, se publica con el catálogo una versión nueva que solo
+     * reindexa los cursos que cambiaron; las búsquedas en curso siguen con la anterior
+     *
+     * @param changes por id, el curso nuevo o null si se eliminó
+     * @return false si el catálogo se reemplazó mientras se aplicaban los cambios
+     */
+    synchronized boolean publish(CourseCatalog expected, CourseCatalog updated, Map<Integer, Course> changes) {
+        if (catalog != expected) {
+            return false;
+        }
+        SearchSnapshot currentSearch = search;
+        SearchSnapshot updatedSearch = null;
+        if (currentSearch != null && currentSearch.catalog == expected) {
+            CourseSearchIndex index = currentSearch.index;
+            if (!changes.isEmpty()) {
+                CourseSearchIndex.Editor editor = index.edit();
+                for (Map.Entry<Integer, Course> change : changes.entrySet()) {
+                    Course previous = expected.getById(change.getKey());
+                    Course current = change.getValue();
+                    if (previous == null) {
+                        if (current != null) {
+                            editor.add(current);
+                        }
+                    } else if (current == null) {
+                        editor.remove(previous);
+                    } else {
+                        editor.update(previous, current);
+                    }
+                }
+                index = editor.build();
+            }
+            updatedSearch = new SearchSnapshot(updated, index);
+        }
+        catalog = updated;
+        search = updatedSearch;
+        catalogVersion++;
+        return true;
+    }
+
+    /**
+     * Obtiene una página de cursos con soporte para ordenamiento
+     * 
+     * @param page Número de página (base 0)
+     * @param size Tamaño de la página
+     * @param sort Campo por el que ordenar (name, credits, professor)
+     * @param direction Dirección del ordenamiento (asc, desc)
+     * @return Page<Course> con los resultados paginados
+     */
+    public Page<Course> getPaginatedCourses(int page, int size, String sort, String direction) {
+        if (page < 0) page = 0;
+        if (size <= 0) size = 3;
+
+        CourseCatalog snapshot = catalog;
+        CourseCatalog.SortField field = CourseCatalog.SortField.fromParameter(sort);
+        boolean ascending = "asc".equalsIgnoreCase(direction);
+
+        int totalElements = snapshot.size();
+        int totalPages = (int) Math.ceil((double) totalElements / size);
+
+        if (page >= totalPages && totalPages > 0) {
+            page = totalPages - 1;
+        }
+
+        int startIndex = (int) Math.min((long) page * size, totalElements);
+        return slicePage(snapshot, field, ascending, startIndex, size);
+    }
+
+    /**
+     * Página de cursos que siguen al cursor (paginación keyset)
+     * El cursor se ubica con una búsqueda binaria, así que el costo no depende de la profundidad
+     * Un cursor inválido devuelve la primera página; RequestRouter los rechaza antes con 400
+     */
+    public Page<Course> getCoursesAfter(String cursor, int size, String sort, String direction) {
+        if (size <= 0) size = 3;
+        CourseCatalog snapshot = catalog;
+        CourseCatalog.SortField field = CourseCatalog.SortField.fromParameter(sort);
+        boolean ascending = "asc".equalsIgnoreCase(direction);
+        CourseCursor parsed = CourseCursor.parse(cursor);
+        int startIndex = parsed != null ? Math.max(0, snapshot.indexAfter(field, ascending, parsed)) : 0;
+        return slicePage(snapshot, field, ascending, startIndex, size);
+    }
+
+    /**
+     * Página de cursos que preceden al cursor (para volver con "Anterior")
+     * Un cursor inválido devuelve la primera página; RequestRouter los rechaza antes con 400
+     */
+    public Page<Course> getCoursesBefore(String cursor, int size, String sort, String direction) {
+        if (size <= 0) size = 3;
+        CourseCatalog snapshot = catalog;
+        CourseCatalog.SortField field = CourseCatalog.SortField.fromParameter(sort);
+        boolean ascending = "asc".equalsIgnoreCase(direction);
+        CourseCursor parsed = CourseCursor.parse(cursor);
+        int endIndex = parsed != null ? Math.max(0, snapshot.indexBefore(field, ascending, parsed)) : 0;
+        return slicePage(snapshot, field, ascending, Math.max(0, endIndex - size), size);
+    }
+
+    /**
+     * Arma la página que empieza en startIndex con sus cursores; el número de página
+     * se deriva del índice, que la búsqueda del cursor ya conoce
+     */
+    private Page<Course> slicePage(CourseCatalog snapshot, CourseCatalog.SortField field, boolean ascending,
+                                   int startIndex, int size) {
+        int totalElements = snapshot.size();
+        int totalPages = (int) Math.ceil((double) totalElements / size);
+        int endIndex = (int) Math.min((long) startIndex + size, totalElements);
+
+        List<Course> pageContent;
+        if (startIndex < totalElements) {
+            pageContent = snapshot.slice(field, ascending, startIndex, endIndex);
+        } else {
+            pageContent = new ArrayList<>();
+        }
+
+        String previousCursor = null;
+        String nextCursor = null;
+        if (!pageContent.isEmpty()) {
+            if (startIndex > 0) {
+                previousCursor = CourseCursor.of(pageContent.get(0), field).toString();
+            }
+            if (endIndex < totalElements) {
+                nextCursor = CourseCursor.of(pageContent.get(pageContent.size() - 1), field).toString();
+            }
+        }
+        int number = (startIndex + size - 1) / size;
+        return new Page<>(pageContent, number, size, totalElements, totalPages, previousCursor, nextCursor);
+    }
+
+    /**
+     * Busca cursos por nombre o profesor (sin tildes, con prefijos) ordenados por relevancia
+     * Solo se construyen los cursos de la página pedida
+     */
+    public Page<Course> searchCourses(String query, int page, int size) {
+        if (page < 0) page = 0;
+        if (size <= 0) size = 3;
+
+        SearchSnapshot current = getSearchSnapshot();
+        CourseCatalog snapshot = current.catalog;
+        CourseSearchIndex.Result result = current.index.search(query);
+
+        int totalElements = result.size();
+        int totalPages = (int) Math.ceil((double) totalElements / size);
+        if (page >= totalPages && totalPages > 0) {
+            page = totalPages - 1;
+        }
+        int startIndex = (int) Math.min((long) page * size, totalElements);
+        int endIndex = Math.min(startIndex + size, totalElements);
+
+        List<Course> pageContent = new ArrayList<>(endIndex - startIndex);
+        for (int i = startIndex; i < endIndex; i++) {
+            Course course = snapshot.getById(result.getId(i));
+            if (course != null) {
+                pageContent.add(course);
+            }
+        }
+        return new Page<>(pageContent, page, size, totalElements, totalPages);
+    }
+
+    /**
+     * Catálogo e índice de búsqueda vigentes; el índice se construye en la primera búsqueda
+     * (con el lock, para que publish no cambie el catálogo mientras tanto) y después se lee sin locks
+     */
+    private SearchSnapshot getSearchSnapshot() {
+        SearchSnapshot current = search;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (search == null) {
+                long start = System.currentTimeMillis();
+                CourseSearchIndex index = CourseSearchIndex.build(catalog);
+                search = new SearchSnapshot(catalog, index);
+                System.out.println("[INFO] Índice de búsqueda construido: " + index.getDocumentCount()
+                        + " cursos (" + (System.currentTimeMillis() - start) + " ms)");
+            }
+            return search;
+        }
+    }
+
+    /**
+     * Obtiene todos los cursos
+     */
+    public List<Course> getAllCourses() {
+        return new ArrayList<>(catalog.getAll());
+    }
+
+    /**
+     * Obtiene un curso por ID
+     */
+    public Course getCourseById(int id) {
+        return catalog.getById(id);
+    }
+
+    /**
+     * Obtiene cursos de un profesor específico
+     */
+    public List<Course> getCoursesByProfessor(String professor) {
+        return catalog.getByProfessor(professor);
+    }
+
+    /**
+     * Obtiene cursos con un número de créditos específico
+     */
+    public List<Course> getCoursesByCredits(int credits) {
+        return catalog.getByCredits(credits);
+    }
+
+    /**
+     * Obtiene cursos con créditos en un rango (Between)
+     */
+    public List<Course> getCoursesByCreditsRange(int minCredits, int maxCredits) {
+        return catalog.getByCreditsRange(minCredits, maxCredits);
+    }
+
+    /**
+     * Obtiene el primer curso ordenado por nombre ascendente
+     */
+    public Course findFirstByOrderByNameAsc() {
+        CourseCatalog snapshot = catalog;
+        return snapshot.size() > 0 ? snapshot.get(CourseCatalog.SortField.NAME, true, 0) : null;
+    }
+
+    /**
+     * Obtiene los Top N cursos por créditos
+     */
+    public List<Course> findTopByCreditsDesc(int limit) {
+        CourseCatalog snapshot = catalog;
+        return snapshot.slice(CourseCatalog.SortField.CREDITS, false, 0, Math.min(Math.max(limit, 0), snapshot.size()));
+    }
+}
@@ -0,0 +1,334 @@
+package compunet.webserver;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido sobre el nombre y el profesor de los cursos
+ * Los textos se normalizan sin tildes ni mayúsculas ("Introducción" y "introduccion" son el
+ * mismo término). Cada término guarda la lista ordenada de ids que lo contienen; los términos
+ * están en un TreeMap para resolver prefijos (autocompletado) como un rango.
+ * Un índice publicado no cambia: edit arma la versión siguiente copiando solo las listas de
+ * los términos que tocan los cambios, así las búsquedas no necesitan locks
+ */
+public class CourseSearchIndex {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /** Términos que se expanden como máximo por cada prefijo de la consulta */
+    private static final int MAX_PREFIX_TERMS = 64;
+
+    private static final int NAME_EXACT = 10;
+    private static final int NAME_PREFIX = 6;
+    private static final int PROFESSOR_EXACT = 5;
+    private static final int PROFESSOR_PREFIX = 3;
+
+    private final NavigableMap<String, Postings> nameTerms;
+    private final NavigableMap<String, Postings> professorTerms;
+    private final int documentCount;
+
+    private CourseSearchIndex(NavigableMap<String, Postings> nameTerms, NavigableMap<String, Postings> professorTerms,
+                              int documentCount) {
+        this.nameTerms = nameTerms;
+        this.professorTerms = professorTerms;
+        this.documentCount = documentCount;
+    }
+
+    /**
+     * Resultado de una búsqueda: ids ordenados por relevancia (y por id ante empates)
+     */
+    public static class Result {
+        private final int[] ids;
+
+        Result(int[] ids) {
+            this.ids = ids;
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        public int getId(int index) {
+            return ids[index];
+        }
+    }
+
+    /**
+     * Lista ordenada de ids sin repetidos, en un arreglo que crece según haga falta
+     */
+    private static class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                size--;
+            }
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        Postings copy() {
+            Postings copy = new Postings();
+            copy.ids = Arrays.copyOf(ids, Math.max(4, size));
+            copy.size = size;
+            return copy;
+        }
+    }
+
+    /**
+     * Arma la versión siguiente del índice sin modificar la actual
+     * Las listas compartidas con el índice original se copian la primera vez que se tocan
+     */
+    public static class Editor {
+        private final NavigableMap<String, Postings> nameTerms;
+        private final NavigableMap<String, Postings> professorTerms;
+        private final Set<Postings> owned = Collections.newSetFromMap(new IdentityHashMap<Postings, Boolean>());
+        private int documentCount;
+
+        private Editor(CourseSearchIndex base) {
+            this.nameTerms = new TreeMap<>(base.nameTerms);
+            this.professorTerms = new TreeMap<>(base.professorTerms);
+            this.documentCount = base.documentCount;
+        }
+
+        public Editor add(Course course) {
+            for (String token : tokenize(course.getName())) {
+                writable(nameTerms, token).add(course.getId());
+            }
+            for (String token : tokenize(course.getProfessor())) {
+                writable(professorTerms, token).add(course.getId());
+            }
+            documentCount++;
+            return this;
+        }
+
+        /**
+         * Quita el curso; recibe la versión que se indexó, para saber qué términos limpiar
+         */
+        public Editor remove(Course course) {
+            removeTerms(nameTerms, course.getName(), course.getId());
+            removeTerms(professorTerms, course.getProfessor(), course.getId());
+            documentCount--;
+            return this;
+        }
+
+        /**
+         * Reemplaza la versión indexada de un curso por la nueva
+         */
+        public Editor update(Course previous, Course current) {
+            return remove(previous).add(current);
+        }
+
+        private void removeTerms(NavigableMap<String, Postings> terms, String text, int id) {
+            for (String token : tokenize(text)) {
+                if (!terms.containsKey(token)) {
+                    continue;
+                }
+                Postings postings = writable(terms, token);
+                postings.remove(id);
+                if (postings.size == 0) {
+                    terms.remove(token);
+                }
+            }
+        }
+
+        private Postings writable(NavigableMap<String, Postings> terms, String token) {
+            Postings postings = terms.get(token);
+            if (postings == null) {
+                postings = new Postings();
+            } else if (!owned.contains(postings)) {
+                postings = postings.copy();
+            } else {
+                return postings;
+            }
+            owned.add(postings);
+            terms.put(token, postings);
+            return postings;
+        }
+
+        /**
+         * Índice con los cambios; después de llamarlo el editor ya no se debe usar
+         */
+        public CourseSearchIndex build() {
+            return new CourseSearchIndex(nameTerms, professorTerms, documentCount);
+        }
+    }
+
+    /**
+     * Términos de un texto: sin tildes, en minúsculas y separados por todo lo que no sea letra o número
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String normalized = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        for (String token : SEPARATORS.split(normalized.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Construye el índice con todos los cursos del catálogo
+     */
+    public static CourseSearchIndex build(CourseCatalog catalog) {
+        Editor editor = empty().edit();
+        for (Course course : catalog.getAll()) {
+            editor.add(course);
+        }
+        return editor.build();
+    }
+
+    public static CourseSearchIndex empty() {
+        return new CourseSearchIndex(new TreeMap<String, Postings>(), new TreeMap<String, Postings>(), 0);
+    }
+
+    /**
+     * Editor de la versión siguiente; este índice sigue igual y se puede seguir consultando
+     */
+    public Editor edit() {
+        return new Editor(this);
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    /**
+     * Busca cursos que contengan todos los términos de la consulta, en el nombre o el profesor
+     * Cada término coincide exacto o como prefijo (autocompletado), con más puntaje si es exacto
+     * y si aparece en el nombre. Se recorre la lista del término más selectivo y los demás se
+     * comprueban con búsquedas binarias
+     */
+    public Result search(String query) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return new Result(new int[0]);
+        }
+        List<List<WeightedPostings>> matches = new ArrayList<>();
+        int driver = 0;
+        long driverSize = Long.MAX_VALUE;
+        for (String token : tokens) {
+            List<WeightedPostings> tokenMatches = new ArrayList<>();
+            collect(nameTerms, token, NAME_EXACT, NAME_PREFIX, tokenMatches);
+            collect(professorTerms, token, PROFESSOR_EXACT, PROFESSOR_PREFIX, tokenMatches);
+            if (tokenMatches.isEmpty()) {
+                return new Result(new int[0]);
+            }
+            long size = 0;
+            for (WeightedPostings match : tokenMatches) {
+                size += match.postings.size;
+            }
+            if (size < driverSize) {
+                driverSize = size;
+                driver = matches.size();
+            }
+            matches.add(tokenMatches);
+        }
+
+        Map<Integer, Integer> scores = new HashMap<>();
+        for (WeightedPostings match : matches.get(driver)) {
+            for (int i = 0; i < match.postings.size; i++) {
+                int id = match.postings.ids[i];
+                if (scores.containsKey(id)) {
+                    continue;
+                }
+                int score = 0;
+                for (List<WeightedPostings> tokenMatches : matches) {
+                    int best = bestWeight(tokenMatches, id);
+                    if (best == 0) {
+                        score = 0;
+                        break;
+                    }
+                    score += best;
+                }
+                scores.put(id, score);
+            }
+        }
+
+        long[] ranked = new long[scores.size()];
+        int count = 0;
+        for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+            if (entry.getValue() > 0) {
+                // Puntaje descendente en los bits altos, id ascendente en los bajos
+                ranked[count++] = ((long) (Integer.MAX_VALUE - entry.getValue()) << 32)
+                        | (entry.getKey() & 0xFFFFFFFFL) ^ 0x80000000L;
+            }
+        }
+        Arrays.sort(ranked, 0, count);
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = (int) ((ranked[i] & 0xFFFFFFFFL) ^ 0x80000000L);
+        }
+        return new Result(ids);
+    }
+
+    private static class WeightedPostings {
+        private final Postings postings;
+        private final int weight;
+
+        WeightedPostings(Postings postings, int weight) {
+            this.postings = postings;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Agrega el término exacto y hasta MAX_PREFIX_TERMS términos que empiezan con él
+     */
+    private static void collect(NavigableMap<String, Postings> terms, String token, int exactWeight,
+                                int prefixWeight, List<WeightedPostings> result) {
+        int expanded = 0;
+        for (Map.Entry<String, Postings> entry : terms.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            boolean exact = entry.getKey().equals(token);
+            if (!exact && expanded++ >= MAX_PREFIX_TERMS) {
+                break;
+            }
+            result.add(new WeightedPostings(entry.getValue(), exact ? exactWeight : prefixWeight));
+        }
+    }
+
+    private static int bestWeight(List<WeightedPostings> matches, int id) {
+        int best = 0;
+        for (WeightedPostings match : matches) {
+            if (match.weight > best && match.postings.contains(id)) {
+                best = match.weight;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,296 @@
+package compunet.webserver;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Almacenamiento durable del catálogo: instantáneas compactas más un registro de escrituras
+ * El directorio tiene generaciones numeradas: snapshot-N.db es el catálogo completo al empezar
+ * la generación N (formato de MappedCourseStore) y wal-N.log los cambios posteriores.
+ * Al arrancar se mapea la última instantánea y solo se reaplica la cola del registro.
+ * Cada cierto número de cambios se abre una generación nueva y la instantánea se escribe en
+ * segundo plano a partir del catálogo inmutable, sin detener las escrituras; cuando termina,
+ * el catálogo vigente se vuelve a armar sobre ella y se borran las generaciones anteriores.
+ * Salvo la instantánea, todo se ejecuta en el hilo de CatalogWriter
+ */
+public class CourseStorage {
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".db";
+    private static final String LOG_PREFIX = "wal-";
+    private static final String LOG_SUFFIX = ".log";
+
+    /**
+     * Instantánea ya escrita que todavía no reemplaza a la base del catálogo vigente
+     */
+    private static final class Snapshot {
+        private final long generation;
+        private final MappedCourseStore store;
+
+        Snapshot(long generation, MappedCourseStore store) {
+            this.generation = generation;
+            this.store = store;
+        }
+    }
+
+    private final Path directory;
+    private final ServerConfig.WalSync sync;
+    private final int snapshotEvery;
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private WriteAheadLog log;
+    private long generation;
+    /** Cambios de la generación actual, los que su instantánea no incluye */
+    private Map<Integer, Course> generationChanges = new LinkedHashMap<>();
+    private volatile boolean snapshotInProgress;
+    private volatile Snapshot completedSnapshot;
+    private volatile Runnable snapshotListener;
+
+    private CourseStorage(Path directory, ServerConfig.WalSync sync, int snapshotEvery) {
+        this.directory = directory;
+        this.sync = sync;
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    /**
+     * Abre el directorio (lo crea si no existe); el catálogo se obtiene después con recover
+     */
+    public static CourseStorage open(Path directory, ServerConfig.WalSync sync, int snapshotEvery) throws IOException {
+        Files.createDirectories(directory);
+        return new CourseStorage(directory, sync, snapshotEvery);
+    }
+
+    /**
+     * Catálogo guardado: la última instantánea (o initial si no hay) con los registros
+     * de las generaciones siguientes aplicados en orden
+     */
+    public CourseCatalog recover(CourseCatalog initial) throws IOException {
+        long start = System.currentTimeMillis();
+        // Instantáneas que quedaron a medio escribir
+        try (DirectoryStream<Path> temporary = Files.newDirectoryStream(directory, "*.tmp")) {
+            for (Path file : temporary) {
+                deleteQuietly(file);
+            }
+        }
+        List<Long> snapshots = generations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        List<Long> logs = generations(LOG_PREFIX, LOG_SUFFIX);
+        long snapshotGeneration = snapshots.isEmpty() ? -1 : snapshots.get(snapshots.size() - 1);
+
+        CourseCatalog catalog = initial;
+        if (snapshotGeneration >= 0) {
+            catalog = new CourseCatalog(MappedCourseStore.open(snapshotFile(snapshotGeneration)));
+        }
+        Map<Integer, Course> changes = new LinkedHashMap<>();
+        int records = 0;
+        long lastGeneration = Math.max(snapshotGeneration, 0);
+        for (long logGeneration : logs) {
+            if (logGeneration >= snapshotGeneration) {
+                records += WriteAheadLog.replay(logFile(logGeneration), changes);
+                lastGeneration = Math.max(lastGeneration, logGeneration);
+            }
+        }
+        if (!changes.isEmpty()) {
+            catalog = new CourseCatalog(OverlayCourseStore.apply(catalog.getStore(), changes));
+        }
+        System.out.println("[INFO] Almacenamiento " + directory + ": "
+                + (snapshotGeneration >= 0 ? "instantánea " + snapshotGeneration : "sin instantánea")
+                + ", " + records + " registros reaplicados, " + catalog.size() + " cursos ("
+                + (System.currentTimeMillis() - start) + " ms)");
+
+        if (records == 0 && snapshotGeneration >= 0) {
+            generation = snapshotGeneration;
+            log = WriteAheadLog.open(logFile(generation));
+        } else {
+            // La cola reaplicada (o el catálogo inicial) pasa a una instantánea nueva
+            generation = lastGeneration;
+            rotate(catalog);
+        }
+        return catalog;
+    }
+
+    /**
+     * Acción que se ejecuta cuando termina de escribirse una instantánea (despierta al escritor)
+     */
+    public void setSnapshotListener(Runnable listener) {
+        this.snapshotListener = listener;
+    }
+
+    /**
+     * Guarda los cambios de un lote antes de publicarlos
+     * Con WalSync.BATCH todo el lote cuesta un solo fsync; con WRITE, uno por cambio
+     */
+    public void log(Map<Integer, Course> changes) throws IOException {
+        long start = log.position();
+        long startRecords = log.getRecords();
+        try {
+            for (Map.Entry<Integer, Course> change : changes.entrySet()) {
+                log.append(change.getKey(), change.getValue());
+                if (sync == ServerConfig.WalSync.WRITE) {
+                    log.flush(true);
+                }
+            }
+            log.flush(sync == ServerConfig.WalSync.BATCH);
+        } catch (IOException e) {
+            // Con WRITE parte del lote ya está en disco; el lote falló entero, así que se quita
+            try {
+                log.rollback(start, startRecords);
+            } catch (IOException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        }
+        generationChanges.putAll(changes);
+    }
+
+    /**
+     * Después de publicar: si la generación ya acumuló suficientes cambios, empieza otra
+     */
+    public void afterPublish(CourseCatalog published) throws IOException {
+        if (log.getRecords() >= snapshotEvery && !snapshotInProgress) {
+            rotate(published);
+        }
+    }
+
+    /**
+     * Si hay una instantánea nueva, el catálogo equivalente armado sobre ella
+     * (la instantánea más los cambios de su generación); null si no hay
+     */
+    public CourseCatalog rebase() {
+        Snapshot snapshot = completedSnapshot;
+        if (snapshot == null) {
+            return null;
+        }
+        completedSnapshot = null;
+        snapshotInProgress = false;
+        if (snapshot.generation != generation) {
+            return null;
+        }
+        return generationChanges.isEmpty()
+                ? new CourseCatalog(snapshot.store)
+                : new CourseCatalog(OverlayCourseStore.apply(snapshot.store, generationChanges));
+    }
+
+    /**
+     * Abre la generación siguiente y escribe en segundo plano la instantánea de catalog,
+     * que es exactamente el estado al empezar esa generación
+     */
+    private void rotate(CourseCatalog catalog) throws IOException {
+        long next = generation + 1;
+        WriteAheadLog nextLog = WriteAheadLog.open(logFile(next));
+        syncDirectory();
+        if (log != null) {
+            log.close();
+        }
+        log = nextLog;
+        generation = next;
+        generationChanges = new LinkedHashMap<>();
+        snapshotInProgress = true;
+        snapshotExecutor.execute(() -> writeSnapshot(catalog, next));
+    }
+
+    private void writeSnapshot(CourseCatalog catalog, long snapshotGeneration) {
+        long start = System.currentTimeMillis();
+        try {
+            Path file = snapshotFile(snapshotGeneration);
+            MappedCourseStore.write(catalog.getStore(), file);
+            syncDirectory();
+            completedSnapshot = new Snapshot(snapshotGeneration, MappedCourseStore.open(file));
+            System.out.println("[INFO] Instantánea " + file.getFileName() + ": " + catalog.size() + " cursos ("
+                    + (System.currentTimeMillis() - start) + " ms)");
+            deleteBefore(snapshotGeneration);
+            Runnable listener = snapshotListener;
+            if (listener != null) {
+                listener.run();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[ERROR] No se pudo escribir la instantánea " + snapshotGeneration + ": " + e.getMessage());
+            snapshotInProgress = false;
+        }
+    }
+
+    /**
+     * Borra las instantáneas y registros de las generaciones anteriores, ya incluidos en la actual
+     * Un archivo que no se puede borrar (por ejemplo, aún mapeado en Windows) se reintenta la próxima vez
+     */
+    private void deleteBefore(long snapshotGeneration) throws IOException {
+        for (long old : generations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (old < snapshotGeneration) {
+                deleteQuietly(snapshotFile(old));
+            }
+        }
+        for (long old : generations(LOG_PREFIX, LOG_SUFFIX)) {
+            if (old < snapshotGeneration) {
+                deleteQuietly(logFile(old));
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("[ERROR] No se pudo borrar " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Asegura en disco la creación y los renombres de archivos; no todos los sistemas lo permiten
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Windows no permite abrir directorios; NTFS ya registra los metadatos
+        }
+    }
+
+    private List<Long> generations(String prefix, String suffix) throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    result.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException e) {
+                    // Otro archivo con el mismo prefijo
+                }
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private Path snapshotFile(long snapshotGeneration) {
+        return directory.resolve(String.format("%s%08d%s", SNAPSHOT_PREFIX, snapshotGeneration, SNAPSHOT_SUFFIX));
+    }
+
+    private Path logFile(long logGeneration) {
+        return directory.resolve(String.format("%s%08d%s", LOG_PREFIX, logGeneration, LOG_SUFFIX));
+    }
+
+    /**
+     * Escribe lo pendiente y cierra el registro; la instantánea en curso se abandona
+     * (el registro ya tiene todo lo necesario para recuperarla)
+     */
+    public void close() throws IOException {
+        snapshotExecutor.shutdownNow();
+        if (log != null) {
+            log.close();
+        }
+    }
+}
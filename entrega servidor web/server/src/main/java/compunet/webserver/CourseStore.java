@@ -0,0 +1,32 @@
+package compunet.webserver;
+
+import java.nio.IntBuffer;
+
+/**
+ * Almacenamiento de registros de cursos por posición
+ * Además de los campos, expone las permutaciones de posiciones ordenadas por cada campo
+ * para que CourseCatalog pagine y busque sin copiar ni reordenar. Las implementaciones
+ * deben admitir lecturas concurrentes
+ */
+public interface CourseStore {
+
+    int size();
+
+    /**
+     * Construye el curso de la posición dada
+     */
+    Course get(int position);
+
+    int getId(int position);
+
+    int getCredits(int position);
+
+    String getName(int position);
+
+    String getProfessor(int position);
+
+    /**
+     * Posiciones ordenadas de forma ascendente por (campo, id); solo se lee con get(int)
+     */
+    IntBuffer order(CourseCatalog.SortField field);
+}
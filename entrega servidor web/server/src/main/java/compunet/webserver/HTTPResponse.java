@@ -0,0 +1,424 @@
+package compunet.webserver;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Constructor de respuestas HTTP/1.0 y HTTP/1.1
+ */
+public class HTTPResponse {
+
+    private static final int[] KNOWN_STATUS_CODES = {200, 201, 204, 206, 304, 400, 404, 405, 411, 413, 415, 416, 431, 500, 501, 503};
+    private static final byte[][] STATUS_LINES_10 = new byte[600][];
+    private static final byte[][] STATUS_LINES_11 = new byte[600][];
+    private static final byte[] CRLF = ascii("\r\n");
+    private static final byte[] CONTENT_TYPE = ascii("Content-Type: ");
+    private static final byte[] CONTENT_LENGTH = ascii("Content-Length: ");
+    private static final byte[] SERVER = ascii("Server: CompunetWebServer/1.0\r\n");
+    private static final byte[] CONNECTION_KEEP_ALIVE = ascii("Connection: keep-alive\r\n");
+    private static final byte[] CONNECTION_CLOSE = ascii("Connection: close\r\n");
+
+    static {
+        for (int code : KNOWN_STATUS_CODES) {
+            STATUS_LINES_10[code] = ascii("HTTP/1.0 " + code + " " + getReasonPhrase(code) + "\r\n");
+            STATUS_LINES_11[code] = ascii("HTTP/1.1 " + code + " " + getReasonPhrase(code) + "\r\n");
+        }
+    }
+
+    private int statusCode;
+    private String contentType;
+    private byte[] bodyBytes;
+    private String bodyString;
+    private ByteBuffer bodyBuffer;
+    private Path bodyFile;
+    private long bodyFileLength;
+    private String httpVersion = "HTTP/1.0";
+    private boolean keepAlive = false;
+    private Map<String, String> extraHeaders = new LinkedHashMap<>();
+    private List<long[]> ranges;
+    private List<byte[]> rangePartHeaders;
+    private byte[] multipartEnd;
+
+    public HTTPResponse(int statusCode, String contentType) {
+        this.statusCode = statusCode;
+        this.contentType = contentType;
+        this.bodyBytes = new byte[0];
+    }
+
+    /**
+     * Establece el cuerpo de la respuesta como String
+     */
+    public void setBody(String body) {
+        this.bodyString = body;
+        try {
+            this.bodyBytes = body.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            this.bodyBytes = body.getBytes();
+        }
+    }
+
+    /**
+     * Establece el cuerpo de la respuesta como bytes (para imágenes)
+     */
+    public void setBodyBytes(byte[] bytes) {
+        this.bodyBytes = bytes;
+        this.bodyBuffer = null;
+        this.bodyFile = null;
+    }
+
+    /**
+     * Establece el cuerpo como un buffer ya cargado (por ejemplo, de StaticFileCache)
+     * Los motores lo escriben directamente en el socket sin copiarlo
+     */
+    public void setBodyBuffer(ByteBuffer buffer) {
+        this.bodyBuffer = buffer;
+        this.bodyBytes = new byte[0];
+    }
+
+    /**
+     * Establece un archivo como cuerpo de la respuesta
+     * El archivo no se carga en memoria: el motor envía primero getHeaderBytes()
+     * y luego el contenido directamente desde el FileChannel
+     */
+    public void setBodyFile(Path file, long length) {
+        this.bodyFile = file;
+        this.bodyFileLength = length;
+        this.bodyBytes = new byte[0];
+    }
+
+    /**
+     * Limita el cuerpo a los rangos dados ({inicio, fin} inclusivos, ya validados)
+     * Con un rango agrega Content-Range; con varios el cuerpo pasa a multipart/byteranges
+     */
+    public void setRanges(List<long[]> ranges) throws IOException {
+        long totalLength = getFullLength();
+        this.ranges = ranges;
+        if (ranges.size() == 1) {
+            long[] range = ranges.get(0);
+            setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + totalLength);
+            return;
+        }
+
+        String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+        rangePartHeaders = new ArrayList<>();
+        for (long[] range : ranges) {
+            String partHeader = "\r\n--" + boundary + "\r\n"
+                    + "Content-Type: " + contentType + "\r\n"
+                    + "Content-Range: bytes " + range[0] + "-" + range[1] + "/" + totalLength + "\r\n\r\n";
+            rangePartHeaders.add(partHeader.getBytes("UTF-8"));
+        }
+        multipartEnd = ("\r\n--" + boundary + "--\r\n").getBytes("UTF-8");
+        contentType = "multipart/byteranges; boundary=" + boundary;
+    }
+
+    /**
+     * Agrega o reemplaza un header adicional (ETag, Last-Modified, Cache-Control...)
+     */
+    public void setHeader(String name, String value) {
+        extraHeaders.put(name, value);
+    }
+
+    public String getHeader(String name) {
+        return extraHeaders.get(name);
+    }
+
+    /**
+     * Versión del protocolo con la que se responde (la misma de la solicitud)
+     */
+    public void setHttpVersion(String httpVersion) {
+        this.httpVersion = httpVersion;
+    }
+
+    /**
+     * Indica si la conexión permanece abierta después de esta respuesta
+     */
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * Convierte la respuesta a bytes para enviarla por la red
+     * Solo para cuerpos en memoria; con setBodyFile() usar toChunks()
+     */
+    public byte[] getBytes() throws IOException {
+        if (bodyFile != null) {
+            throw new IllegalStateException("El cuerpo es un archivo: usar toChunks()");
+        }
+        List<ResponseChunk> chunks = toChunks();
+        int size = 0;
+        for (ResponseChunk chunk : chunks) {
+            size += chunk.getBuffer().remaining();
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(size);
+        for (ResponseChunk chunk : chunks) {
+            bytes.put(chunk.getBuffer().duplicate());
+        }
+        return bytes.array();
+    }
+
+    /**
+     * Divide la respuesta en fragmentos listos para enviar: headers y luego el cuerpo
+     * (completo o por rangos). Si el cuerpo es un archivo lo abre aquí, antes de generar
+     * los headers, para que un archivo eliminado no deje una respuesta a medias
+     */
+    public List<ResponseChunk> toChunks() throws IOException {
+        List<ResponseChunk> chunks = new ArrayList<>(rangePartHeaders != null ? 2 * ranges.size() + 2 : 2);
+        FileChannel file = bodyFile != null ? FileChannel.open(bodyFile, StandardOpenOption.READ) : null;
+        try {
+            chunks.add(ResponseChunk.of(getHeaderBytes()));
+            if (!hasBody()) {
+                if (file != null) {
+                    file.close();
+                }
+                return chunks;
+            }
+            int parts = ranges != null ? ranges.size() : 1;
+            for (int i = 0; i < parts; i++) {
+                long start = ranges != null ? ranges.get(i)[0] : 0;
+                long count = ranges != null ? ranges.get(i)[1] - start + 1 : getFullLength();
+                if (rangePartHeaders != null) {
+                    chunks.add(ResponseChunk.of(rangePartHeaders.get(i)));
+                }
+                if (file != null) {
+                    chunks.add(ResponseChunk.ofFile(file, start, count, i == parts - 1));
+                } else if (count > 0) {
+                    chunks.add(ResponseChunk.of(slice(start, count)));
+                }
+            }
+            if (multipartEnd != null) {
+                chunks.add(ResponseChunk.of(multipartEnd));
+            }
+            return chunks;
+        } catch (IOException | RuntimeException e) {
+            if (file != null) {
+                file.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Vista de una parte del cuerpo en memoria, sin copiarla
+     */
+    private ByteBuffer slice(long position, long count) {
+        ByteBuffer body = bodyBuffer != null ? bodyBuffer.duplicate() : ByteBuffer.wrap(bodyBytes);
+        body.position(body.position() + (int) position);
+        body.limit(body.position() + (int) count);
+        return body;
+    }
+
+    /**
+     * Convierte la línea de estado y los headers (incluida la línea vacía final) a bytes
+     * Calcula primero el tamaño exacto y copia las partes constantes ya codificadas,
+     * así que la única asignación es el arreglo resultante
+     */
+    public byte[] getHeaderBytes() {
+        byte[] statusLine = getStatusLine();
+        byte[] date = HttpDate.currentDateHeader();
+        byte[] connection = keepAlive ? CONNECTION_KEEP_ALIVE : CONNECTION_CLOSE;
+        boolean hasBody = hasBody();
+        long contentLength = hasBody ? getContentLength() : 0;
+
+        int size = statusLine.length + date.length + SERVER.length + connection.length + CRLF.length;
+        if (hasBody) {
+            size += CONTENT_TYPE.length + contentType.length() + CRLF.length
+                    + CONTENT_LENGTH.length + digits(contentLength) + CRLF.length;
+        }
+        for (Map.Entry<String, String> header : extraHeaders.entrySet()) {
+            size += header.getKey().length() + 2 + header.getValue().length() + CRLF.length;
+        }
+
+        byte[] head = new byte[size];
+        int position = put(head, 0, statusLine);
+        if (hasBody) {
+            position = put(head, position, CONTENT_TYPE);
+            position = put(head, position, contentType);
+            position = put(head, position, CRLF);
+            position = put(head, position, CONTENT_LENGTH);
+            position = put(head, position, contentLength);
+            position = put(head, position, CRLF);
+        }
+        position = put(head, position, date);
+        position = put(head, position, SERVER);
+        position = put(head, position, connection);
+        for (Map.Entry<String, String> header : extraHeaders.entrySet()) {
+            position = put(head, position, header.getKey());
+            head[position++] = ':';
+            head[position++] = ' ';
+            position = put(head, position, header.getValue());
+            position = put(head, position, CRLF);
+        }
+        put(head, position, CRLF);
+        return head;
+    }
+
+    /**
+     * Línea de estado precodificada para los códigos conocidos
+     */
+    private byte[] getStatusLine() {
+        boolean http11 = "HTTP/1.1".equals(httpVersion);
+        byte[][] lines = http11 ? STATUS_LINES_11 : STATUS_LINES_10;
+        if (statusCode >= 0 && statusCode < lines.length && lines[statusCode] != null) {
+            return lines[statusCode];
+        }
+        return ascii(httpVersion + " " + statusCode + " " + getReasonPhrase(statusCode) + "\r\n");
+    }
+
+    private static int put(byte[] target, int position, byte[] source) {
+        System.arraycopy(source, 0, target, position, source.length);
+        return position + source.length;
+    }
+
+    /**
+     * Copia un valor de header; los caracteres fuera de ISO-8859-1 se reemplazan por '?'
+     */
+    private static int put(byte[] target, int position, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            target[position++] = c < 256 ? (byte) c : (byte) '?';
+        }
+        return position;
+    }
+
+    /**
+     * Escribe un número no negativo en decimal sin pasar por String
+     */
+    private static int put(byte[] target, int position, long value) {
+        int end = position + digits(value);
+        int i = end;
+        do {
+            target[--i] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        return end;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 204 y 304 no llevan cuerpo ni Content-Type/Content-Length
+     */
+    private boolean hasBody() {
+        return statusCode != 204 && statusCode != 304;
+    }
+
+    /**
+     * Obtiene la frase de estado
+     */
+    private static String getReasonPhrase(int statusCode) {
+        switch (statusCode) {
+            case 200:
+                return "OK";
+            case 201:
+                return "Created";
+            case 204:
+                return "No Content";
+            case 304:
+                return "Not Modified";
+            case 206:
+                return "Partial Content";
+            case 400:
+                return "Bad Request";
+            case 404:
+                return "Not Found";
+            case 405:
+                return "Method Not Allowed";
+            case 411:
+                return "Length Required";
+            case 413:
+                return "Payload Too Large";
+            case 415:
+                return "Unsupported Media Type";
+            case 416:
+                return "Range Not Satisfiable";
+            case 431:
+                return "Request Header Fields Too Large";
+            case 500:
+                return "Internal Server Error";
+            case 501:
+                return "Not Implemented";
+            case 503:
+                return "Service Unavailable";
+            default:
+                return "Unknown";
+        }
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBodyBytes() {
+        return bodyBytes;
+    }
+
+    public ByteBuffer getBodyBuffer() {
+        return bodyBuffer;
+    }
+
+    public Path getBodyFile() {
+        return bodyFile;
+    }
+
+    /**
+     * Longitud del cuerpo que se envía, considerando rangos y partes multipart
+     */
+    public long getContentLength() {
+        if (ranges == null) {
+            return getFullLength();
+        }
+        long length = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            length += ranges.get(i)[1] - ranges.get(i)[0] + 1;
+            if (rangePartHeaders != null) {
+                length += rangePartHeaders.get(i).length;
+            }
+        }
+        return multipartEnd != null ? length + multipartEnd.length : length;
+    }
+
+    /**
+     * Bytes de cuerpo que salen con la respuesta (0 en 204 y 304), para el registro de accesos
+     */
+    public long getSentBodyLength() {
+        return hasBody() ? getContentLength() : 0;
+    }
+
+    /**
+     * Longitud completa del recurso, sin aplicar rangos
+     */
+    public long getFullLength() {
+        if (bodyFile != null) {
+            return bodyFileLength;
+        }
+        return bodyBuffer != null ? bodyBuffer.remaining() : bodyBytes.length;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+}
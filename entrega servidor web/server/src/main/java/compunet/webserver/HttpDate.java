@@ -0,0 +1,70 @@
+package compunet.webserver;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * Formato de fechas HTTP (IMF-fixdate, RFC 7231): "Sun, 06 Nov 1994 08:49:37 GMT"
+ */
+public final class HttpDate {
+
+    private static final DateTimeFormatter FORMAT =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+    /** Header Date ya codificado, compartido por todas las respuestas del mismo segundo */
+    private static volatile CachedDate cachedDate;
+
+    private HttpDate() {
+    }
+
+    private static final class CachedDate {
+        private final long second;
+        private final byte[] header;
+
+        private CachedDate(long second, byte[] header) {
+            this.second = second;
+            this.header = header;
+        }
+    }
+
+    /**
+     * Línea "Date: ...\r\n" en bytes; se vuelve a formatear como máximo una vez por segundo
+     * El arreglo se comparte entre hilos: no debe modificarse
+     */
+    public static byte[] currentDateHeader() {
+        long second = System.currentTimeMillis() / 1000;
+        CachedDate current = cachedDate;
+        if (current == null || current.second != second) {
+            String header = "Date: " + format(second * 1000) + "\r\n";
+            current = new CachedDate(second, header.getBytes(StandardCharsets.US_ASCII));
+            cachedDate = current;
+        }
+        return current.header;
+    }
+
+    /**
+     * Formatea un instante en milisegundos desde epoch
+     */
+    public static String format(long epochMillis) {
+        return FORMAT.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    /**
+     * Interpreta una fecha HTTP; devuelve -1 si no tiene el formato esperado
+     */
+    public static long parse(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), FORMAT).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
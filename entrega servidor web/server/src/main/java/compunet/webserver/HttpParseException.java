@@ -0,0 +1,22 @@
+package compunet.webserver;
+
+import java.io.IOException;
+
+/**
+ * Solicitud mal formada o demasiado grande; lleva el código de estado con el que se responde
+ */
+public class HttpParseException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    public HttpParseException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
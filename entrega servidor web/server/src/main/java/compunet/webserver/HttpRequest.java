@@ -0,0 +1,295 @@
+package compunet.webserver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Solicitud HTTP ligera producida por HttpRequestParser
+ * No copia la cabecera: guarda posiciones dentro del buffer de la conexión y solo
+ * decodifica a String lo que el enrutador consulta. Es válida hasta que la conexión
+ * reutiliza el buffer para la siguiente solicitud (detach la copia si hace falta más tiempo)
+ */
+public class HttpRequest {
+
+    public static final String HTTP_1_0 = "HTTP/1.0";
+    public static final String HTTP_1_1 = "HTTP/1.1";
+
+    private static final String[] KNOWN_METHODS = {"GET", "POST", "PUT", "DELETE", "HEAD", "OPTIONS"};
+
+    private byte[] buffer;
+    private int requestLineStart;
+    private int methodEnd;
+    private int targetStart;
+    private int targetEnd;
+    private int queryStart;
+    private boolean http11;
+    private int requestLineEnd;
+    private int bodyStart;
+    private int bodyEnd;
+
+    /** Por cada header: inicio y fin del nombre, inicio y fin del valor */
+    private int[] headers = new int[4 * 16];
+    private int headerCount;
+
+    private String method;
+    private String path;
+
+    /**
+     * Prepara el objeto para una nueva solicitud sobre el buffer dado
+     */
+    void reset(byte[] buffer) {
+        this.buffer = buffer;
+        this.headerCount = 0;
+        this.method = null;
+        this.path = null;
+        this.queryStart = -1;
+        this.bodyStart = 0;
+        this.bodyEnd = 0;
+    }
+
+    /**
+     * Copia de la solicitud con sus propios bytes, para atenderla en otro hilo mientras el
+     * buffer original se reutiliza; end es la posición siguiente a la solicitud
+     */
+    HttpRequest detach(int end) {
+        int start = requestLineStart;
+        HttpRequest copy = new HttpRequest();
+        copy.buffer = Arrays.copyOfRange(buffer, start, end);
+        copy.requestLineStart = 0;
+        copy.methodEnd = methodEnd - start;
+        copy.targetStart = targetStart - start;
+        copy.targetEnd = targetEnd - start;
+        copy.queryStart = queryStart >= 0 ? queryStart - start : -1;
+        copy.http11 = http11;
+        copy.requestLineEnd = requestLineEnd - start;
+        if (bodyEnd > bodyStart) {
+            copy.bodyStart = bodyStart - start;
+            copy.bodyEnd = bodyEnd - start;
+        }
+        copy.headers = Arrays.copyOf(headers, Math.max(headers.length, 4));
+        for (int i = 0; i < headerCount * 4; i++) {
+            copy.headers[i] -= start;
+        }
+        copy.headerCount = headerCount;
+        copy.method = method;
+        copy.path = path;
+        return copy;
+    }
+
+    void setRequestLine(int start, int methodEnd, int targetStart, int targetEnd, boolean http11, int end) {
+        this.requestLineStart = start;
+        this.methodEnd = methodEnd;
+        this.targetStart = targetStart;
+        this.targetEnd = targetEnd;
+        this.http11 = http11;
+        this.requestLineEnd = end;
+        for (int i = targetStart; i < targetEnd; i++) {
+            if (buffer[i] == '?') {
+                queryStart = i + 1;
+                break;
+            }
+        }
+    }
+
+    void setBody(int start, int end) {
+        this.bodyStart = start;
+        this.bodyEnd = end;
+    }
+
+    void addHeader(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+        if (headerCount * 4 == headers.length) {
+            int[] grown = new int[headers.length * 2];
+            System.arraycopy(headers, 0, grown, 0, headers.length);
+            headers = grown;
+        }
+        int base = headerCount * 4;
+        headers[base] = nameStart;
+        headers[base + 1] = nameEnd;
+        headers[base + 2] = valueStart;
+        headers[base + 3] = valueEnd;
+        headerCount++;
+    }
+
+    /**
+     * Método de la solicitud; los métodos conocidos no generan un String nuevo
+     */
+    public String getMethod() {
+        if (method == null) {
+            for (String known : KNOWN_METHODS) {
+                if (regionEquals(requestLineStart, methodEnd, known, false)) {
+                    method = known;
+                    return method;
+                }
+            }
+            method = ascii(requestLineStart, methodEnd);
+        }
+        return method;
+    }
+
+    public boolean isMethod(String expected) {
+        return regionEquals(requestLineStart, methodEnd, expected, false);
+    }
+
+    /**
+     * HTTP/1.1 o HTTP/1.0 (cualquier otra versión se trata como 1.0)
+     */
+    public String getHttpVersion() {
+        return http11 ? HTTP_1_1 : HTTP_1_0;
+    }
+
+    /**
+     * Destino completo de la solicitud, incluida la query string
+     */
+    public String getTarget() {
+        return ascii(targetStart, targetEnd);
+    }
+
+    /**
+     * Ruta sin la query string (sin decodificar, como la recibe el enrutador)
+     */
+    public String getPath() {
+        if (path == null) {
+            path = ascii(targetStart, queryStart < 0 ? targetEnd : queryStart - 1);
+        }
+        return path;
+    }
+
+    public String getRequestLine() {
+        return ascii(requestLineStart, requestLineEnd);
+    }
+
+    /**
+     * Valor del primer header con ese nombre (sin distinguir mayúsculas); null si no viene
+     */
+    public String getHeader(String name) {
+        for (int i = 0; i < headerCount; i++) {
+            int base = i * 4;
+            if (regionEquals(headers[base], headers[base + 1], name, true)) {
+                return ascii(headers[base + 2], headers[base + 3]);
+            }
+        }
+        return null;
+    }
+
+    public int getHeaderCount() {
+        return headerCount;
+    }
+
+    public String getHeaderName(int index) {
+        return ascii(headers[index * 4], headers[index * 4 + 1]);
+    }
+
+    public String getHeaderValue(int index) {
+        return ascii(headers[index * 4 + 2], headers[index * 4 + 3]);
+    }
+
+    public int getBodyLength() {
+        return bodyEnd - bodyStart;
+    }
+
+    /**
+     * Cuerpo de la solicitud decodificado como UTF-8; vacío si no trae
+     */
+    public String getBodyAsString() {
+        return new String(buffer, bodyStart, bodyEnd - bodyStart, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parámetro de la query string decodificado (%XX en UTF-8 y '+'), o null si no viene o está vacío
+     * Recorre la query en cada llamada en lugar de construir un mapa
+     */
+    public String getParameter(String name) {
+        if (queryStart < 0) {
+            return null;
+        }
+        int pairStart = queryStart;
+        while (pairStart < targetEnd) {
+            int pairEnd = indexOf('&', pairStart, targetEnd);
+            int equals = indexOf('=', pairStart, pairEnd);
+            if (equals < pairEnd && equals + 1 < pairEnd && keyEquals(pairStart, equals, name)) {
+                return percentDecode(buffer, equals + 1, pairEnd);
+            }
+            pairStart = pairEnd + 1;
+        }
+        return null;
+    }
+
+    public String getParameter(String name, String defaultValue) {
+        String value = getParameter(name);
+        return value != null ? value : defaultValue;
+    }
+
+    private boolean keyEquals(int start, int end, String name) {
+        for (int i = start; i < end; i++) {
+            if (buffer[i] == '%' || buffer[i] == '+' || buffer[i] < 0) {
+                return name.equals(percentDecode(buffer, start, end));
+            }
+        }
+        return regionEquals(start, end, name, false);
+    }
+
+    private int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == c) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private boolean regionEquals(int start, int end, String expected, boolean ignoreCase) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            int actual = buffer[start + i];
+            int wanted = expected.charAt(i);
+            if (actual != wanted) {
+                if (!ignoreCase || toLower(actual) != toLower(wanted)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int toLower(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    private String ascii(int start, int end) {
+        return new String(buffer, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Decodifica %XX y '+' de una región como UTF-8, igual que los bytes sin escapar
+     * Sin secuencias de escape no copia a un arreglo intermedio; si además todo es ASCII
+     * usa ISO-8859-1, que da el mismo texto sin pasar por el decodificador UTF-8
+     */
+    static String percentDecode(byte[] data, int start, int end) {
+        boolean plain = true;
+        boolean ascii = true;
+        for (int i = start; i < end && plain; i++) {
+            plain = data[i] != '%' && data[i] != '+';
+            ascii &= data[i] >= 0;
+        }
+        if (plain) {
+            return new String(data, start, end - start, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        }
+        byte[] decoded = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            byte b = data[i];
+            if (b == '+') {
+                decoded[length++] = ' ';
+            } else if (b == '%' && i + 2 < end && Character.digit(data[i + 1], 16) >= 0
+                    && Character.digit(data[i + 2], 16) >= 0) {
+                decoded[length++] = (byte) ((Character.digit(data[i + 1], 16) << 4) | Character.digit(data[i + 2], 16));
+                i += 2;
+            } else {
+                decoded[length++] = b;
+            }
+        }
+        return new String(decoded, 0, length, StandardCharsets.UTF_8);
+    }
+}
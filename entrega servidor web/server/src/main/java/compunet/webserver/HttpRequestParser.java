@@ -0,0 +1,216 @@
+package compunet.webserver;
+
+/**
+ * Parser incremental de solicitudes HTTP/1.x que trabaja directamente sobre bytes
+ * Cada llamada a parse() retoma la búsqueda del fin de cabecera donde quedó la anterior,
+ * así que los datos que llegan en varias lecturas no se vuelven a recorrer. Acepta líneas
+ * terminadas en CRLF o solo LF. El cuerpo se delimita con Content-Length (no se admite
+ * Transfer-Encoding) y la solicitud solo se entrega cuando llegó completo.
+ * Una instancia por conexión; no es thread-safe
+ */
+public class HttpRequestParser {
+
+    public static final int MAX_HEADER_SIZE = 16 * 1024;
+    public static final int MAX_HEADERS = 100;
+    public static final int MAX_BODY_SIZE = 1024 * 1024;
+
+    /** Bytes desde el inicio de la solicitud ya revisados sin encontrar el fin de cabecera */
+    private int scanned;
+    /** Largo total (cabecera y cuerpo) de una solicitud a la que le falta parte del cuerpo; 0 si no hay */
+    private int expectedLength;
+
+    /**
+     * Busca una solicitud completa (cabecera y cuerpo) en data[start, end) y, si la hay, llena request
+     * Devuelve la posición siguiente al fin de la solicitud, o -1 si faltan datos
+     * Las líneas vacías antes de la línea de solicitud se ignoran. Mientras falta el cuerpo
+     * no se vuelve a revisar nada; al completarse se interpreta de nuevo la cabecera, porque
+     * la conexión pudo mover los datos a otro buffer
+     */
+    public int parse(byte[] data, int start, int end, HttpRequest request) throws HttpParseException {
+        if (expectedLength > 0 && end - start < expectedLength) {
+            return -1;
+        }
+        while (start < end && (data[start] == '\r' || data[start] == '\n')) {
+            start++;
+            scanned = Math.max(0, scanned - 1);
+        }
+        int headEnd = findHeaderEnd(data, start, end);
+        if (headEnd < 0) {
+            scanned = end - start;
+            if (scanned > MAX_HEADER_SIZE) {
+                scanned = 0;
+                throw new HttpParseException(431, "Cabeceras demasiado grandes");
+            }
+            return -1;
+        }
+        scanned = 0;
+        if (headEnd - start > MAX_HEADER_SIZE) {
+            throw new HttpParseException(431, "Cabeceras demasiado grandes");
+        }
+        request.reset(data);
+        int position = parseRequestLine(data, start, headEnd, request);
+        while (position < headEnd) {
+            int lineEnd = lineEnd(data, position, headEnd);
+            int contentEnd = trimLineEnding(data, position, lineEnd);
+            if (contentEnd == position) {
+                break;
+            }
+            parseHeader(data, position, contentEnd, request);
+            position = lineEnd + 1;
+        }
+        int requestEnd = headEnd + bodyLength(request);
+        if (requestEnd > end) {
+            expectedLength = requestEnd - start;
+            return -1;
+        }
+        expectedLength = 0;
+        request.setBody(headEnd, requestEnd);
+        return requestEnd;
+    }
+
+    /**
+     * Largo del cuerpo según Content-Length; 0 si no viene
+     */
+    private static int bodyLength(HttpRequest request) throws HttpParseException {
+        if (request.getHeader("transfer-encoding") != null) {
+            throw new HttpParseException(501, "Transfer-Encoding no soportado, use Content-Length");
+        }
+        String value = request.getHeader("content-length");
+        if (value == null) {
+            return 0;
+        }
+        if (value.isEmpty() || value.length() > 10) {
+            throw new HttpParseException(value.isEmpty() ? 400 : 413, "Content-Length inválido o demasiado grande");
+        }
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new HttpParseException(400, "Content-Length inválido");
+            }
+            length = length * 10 + (c - '0');
+        }
+        if (length > MAX_BODY_SIZE) {
+            throw new HttpParseException(413, "Cuerpo demasiado grande");
+        }
+        return (int) length;
+    }
+
+    /**
+     * Posición siguiente a la línea vacía que cierra la cabecera, o -1
+     */
+    private int findHeaderEnd(byte[] data, int start, int end) {
+        // Retrocede un poco por si el terminador quedó partido entre dos lecturas
+        for (int i = start + Math.max(0, scanned - 3); i < end; i++) {
+            if (data[i] != '\n') {
+                continue;
+            }
+            if (i + 1 < end && data[i + 1] == '\n') {
+                return i + 2;
+            }
+            if (i + 2 < end && data[i + 1] == '\r' && data[i + 2] == '\n') {
+                return i + 3;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * "MÉTODO destino HTTP/x.y"; devuelve el inicio de la primera línea de header
+     */
+    private int parseRequestLine(byte[] data, int start, int headEnd, HttpRequest request) throws HttpParseException {
+        int lineEnd = lineEnd(data, start, headEnd);
+        int contentEnd = trimLineEnding(data, start, lineEnd);
+
+        int methodEnd = start;
+        while (methodEnd < contentEnd && isTokenChar(data[methodEnd])) {
+            methodEnd++;
+        }
+        if (methodEnd == start || methodEnd == contentEnd || data[methodEnd] != ' ') {
+            throw new HttpParseException(400, "Línea de solicitud inválida");
+        }
+        int targetStart = methodEnd + 1;
+        int targetEnd = targetStart;
+        while (targetEnd < contentEnd && data[targetEnd] != ' ') {
+            // Bytes desde 0x80 (negativos) se aceptan: la query puede venir en UTF-8 sin escapar
+            if ((data[targetEnd] >= 0 && data[targetEnd] < 0x21) || data[targetEnd] == 0x7F) {
+                throw new HttpParseException(400, "Destino de solicitud inválido");
+            }
+            targetEnd++;
+        }
+        int versionStart = targetEnd + 1;
+        if (targetEnd == targetStart || versionStart + 8 != contentEnd || !startsWith(data, versionStart, "HTTP/1.")) {
+            throw new HttpParseException(400, "Línea de solicitud inválida");
+        }
+        boolean http11 = data[versionStart + 7] == '1';
+        request.setRequestLine(start, methodEnd, targetStart, targetEnd, http11, contentEnd);
+        return lineEnd + 1;
+    }
+
+    /**
+     * "Nombre: valor" con espacios opcionales alrededor del valor
+     */
+    private void parseHeader(byte[] data, int start, int end, HttpRequest request) throws HttpParseException {
+        if (request.getHeaderCount() >= MAX_HEADERS) {
+            throw new HttpParseException(431, "Demasiados headers");
+        }
+        int colon = start;
+        while (colon < end && data[colon] != ':') {
+            if (!isTokenChar(data[colon])) {
+                throw new HttpParseException(400, "Nombre de header inválido");
+            }
+            colon++;
+        }
+        if (colon == start || colon == end) {
+            throw new HttpParseException(400, "Header sin ':'");
+        }
+        int valueStart = colon + 1;
+        while (valueStart < end && (data[valueStart] == ' ' || data[valueStart] == '\t')) {
+            valueStart++;
+        }
+        int valueEnd = end;
+        while (valueEnd > valueStart && (data[valueEnd - 1] == ' ' || data[valueEnd - 1] == '\t')) {
+            valueEnd--;
+        }
+        request.addHeader(start, colon, valueStart, valueEnd);
+    }
+
+    private static int lineEnd(byte[] data, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (data[i] == '\n') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static int trimLineEnding(byte[] data, int start, int lineEnd) {
+        return lineEnd > start && data[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+    }
+
+    private static boolean startsWith(byte[] data, int start, String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (data[start + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Caracteres permitidos en métodos y nombres de header (RFC 7230, token)
+     */
+    private static boolean isTokenChar(byte b) {
+        if (b <= 0x20 || b >= 0x7F) {
+            return false;
+        }
+        switch (b) {
+            case '(': case ')': case '<': case '>': case '@': case ',': case ';': case ':':
+            case '\\': case '"': case '/': case '[': case ']': case '?': case '=': case '{':
+            case '}':
+                return false;
+            default:
+                return true;
+        }
+    }
+}
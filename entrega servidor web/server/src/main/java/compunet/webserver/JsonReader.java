@@ -0,0 +1,140 @@
+package compunet.webserver;
+
+/**
+ * Lector JSON mínimo, suficiente para los cursos del catálogo y de la API
+ * Los errores de sintaxis se informan con IllegalArgumentException
+ */
+public class JsonReader {
+    private final String text;
+    private int position;
+
+    public JsonReader(String text) {
+        this.text = text;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Verifica que después del valor leído solo queden espacios
+     */
+    void expectEnd() {
+        skipWhitespace();
+        if (position < text.length()) {
+            throw new IllegalArgumentException("Contenido inesperado en la posición " + position);
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    boolean consumeIf(char c) {
+        skipWhitespace();
+        if (position < text.length() && text.charAt(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    void expect(char c) {
+        if (!consumeIf(c)) {
+            throw new IllegalArgumentException("Se esperaba '" + c + "' en la posición " + position);
+        }
+    }
+
+    String readString() {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (position >= text.length()) {
+                break;
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    if (position + 4 > text.length()) {
+                        throw new IllegalArgumentException("Escape \\u incompleto en la posición " + position);
+                    }
+                    value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    position += 4;
+                    break;
+                default:
+                    value.append(escaped);
+            }
+        }
+        throw new IllegalArgumentException("Cadena sin cerrar");
+    }
+
+    int readInt() {
+        skipWhitespace();
+        int start = position;
+        while (position < text.length() && "+-0123456789".indexOf(text.charAt(position)) >= 0) {
+            position++;
+        }
+        try {
+            return Integer.parseInt(text.substring(start, position));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número inválido en la posición " + start);
+        }
+    }
+
+    /**
+     * Salta un valor de una clave que el catálogo no usa
+     */
+    void skipValue() {
+        skipWhitespace();
+        if (position >= text.length()) {
+            throw new IllegalArgumentException("JSON incompleto");
+        }
+        char c = text.charAt(position);
+        if (c == '"') {
+            readString();
+        } else if (c == '{' || c == '[') {
+            char close = c == '{' ? '}' : ']';
+            position++;
+            if (consumeIf(close)) {
+                return;
+            }
+            do {
+                if (c == '{') {
+                    readString();
+                    expect(':');
+                }
+                skipValue();
+            } while (consumeIf(','));
+            expect(close);
+        } else {
+            while (position < text.length() && ",}] \t\r\n".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+        }
+    }
+}
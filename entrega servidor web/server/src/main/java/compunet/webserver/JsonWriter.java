@@ -0,0 +1,208 @@
+package compunet.webserver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Escritor JSON en streaming: codifica a UTF-8 directamente sobre el OutputStream,
+ * sin armar un String intermedio. Lleva la cuenta de las comas por nivel de anidamiento
+ * Uso: beginObject().name("id").value(1).endObject(); luego flush()
+ */
+public class JsonWriter {
+
+    private static final int MAX_DEPTH = 32;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[4096];
+    private int count;
+    /** Por nivel: si ya se escribió un elemento (para anteponer la coma) */
+    private final boolean[] hasElements = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+
+    public JsonWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    /**
+     * Nombre de la siguiente propiedad del objeto abierto
+     */
+    public JsonWriter name(String name) throws IOException {
+        separator();
+        writeString(name);
+        write(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        separator();
+        writeString(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        separator();
+        if (value < 0) {
+            write('-');
+            if (value == Long.MIN_VALUE) {
+                writeAscii("9223372036854775808");
+                return this;
+            }
+            value = -value;
+        }
+        int start = count;
+        ensureCapacity(20);
+        do {
+            buffer[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        for (int i = start, j = count - 1; i < j; i++, j--) {
+            byte swap = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = swap;
+        }
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        separator();
+        writeAscii(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        separator();
+        writeAscii("null");
+        return this;
+    }
+
+    /**
+     * Envía lo acumulado al stream subyacente
+     */
+    public void flush() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+        out.flush();
+    }
+
+    private JsonWriter open(char bracket) throws IOException {
+        separator();
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON demasiado anidado");
+        }
+        hasElements[depth++] = false;
+        write(bracket);
+        return this;
+    }
+
+    private JsonWriter close(char bracket) throws IOException {
+        depth--;
+        write(bracket);
+        return this;
+    }
+
+    /**
+     * Antepone la coma si el valor no es el primero del nivel (salvo justo después de un nombre)
+     */
+    private void separator() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasElements[depth - 1]) {
+                write(',');
+            }
+            hasElements[depth - 1] = true;
+        }
+    }
+
+    /**
+     * Cadena entre comillas con los escapes de JSON, codificada a UTF-8 carácter por carácter
+     */
+    private void writeString(String value) throws IOException {
+        write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                write('\\');
+                write(c);
+            } else if (c == '\n') {
+                writeAscii("\\n");
+            } else if (c == '\r') {
+                writeAscii("\\r");
+            } else if (c == '\t') {
+                writeAscii("\\t");
+            } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                writeAscii("\\u");
+                write(HEX[(c >> 12) & 0xF]);
+                write(HEX[(c >> 8) & 0xF]);
+                write(HEX[(c >> 4) & 0xF]);
+                write(HEX[c & 0xF]);
+            } else if (c < 0x80) {
+                write(c);
+            } else if (c < 0x800) {
+                write(0xC0 | (c >> 6));
+                write(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                write(0xF0 | (codePoint >> 18));
+                write(0x80 | ((codePoint >> 12) & 0x3F));
+                write(0x80 | ((codePoint >> 6) & 0x3F));
+                write(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                write('?');
+            } else {
+                write(0xE0 | (c >> 12));
+                write(0x80 | ((c >> 6) & 0x3F));
+                write(0x80 | (c & 0x3F));
+            }
+        }
+        write('"');
+    }
+
+    private void writeAscii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            write(text.charAt(i));
+        }
+    }
+
+    private void write(int b) throws IOException {
+        if (count == buffer.length) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (count + bytes > buffer.length) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+}
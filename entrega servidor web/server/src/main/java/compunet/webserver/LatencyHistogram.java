@@ -0,0 +1,123 @@
+package compunet.webserver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias sin locks, con cubetas log-lineales al estilo de HdrHistogram
+ * Los valores (microsegundos) menores a 64 tienen cubeta propia; desde ahí cada potencia de 2
+ * se divide en 32 cubetas iguales, así que un percentil se reporta con un error relativo de
+ * a lo sumo 1/32 (~3 %). Registrar un valor es un incremento atómico, sin reservar memoria
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Valores que se guardan exactos: [0, 2 * SUB_BUCKETS) */
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    /** Mayor exponente registrado; los valores mayores (más de ~19 horas) caen en la última cubeta */
+    private static final int MAX_EXPONENT = 36;
+    private static final int BUCKETS = LINEAR_LIMIT + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Registra un valor en microsegundos (los negativos cuentan como 0)
+     */
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(bucketOf(value));
+        total.increment();
+        sum.add(value);
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Mayor valor que cae en la cubeta (el percentil se reporta por arriba, nunca por debajo)
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int offset = bucket - LINEAR_LIMIT;
+        int exponent = offset / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        long subBucket = offset % SUB_BUCKETS + SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Copia de las cubetas para calcular varios percentiles sobre los mismos datos
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sum.sum());
+    }
+
+    public long getCount() {
+        return total.sum();
+    }
+
+    /**
+     * Estado del histograma en un momento dado
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+
+        Snapshot(long[] counts, long count, long sum) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+        }
+
+        /**
+         * Valor en microsegundos por debajo del cual está la fracción quantile de los registros
+         */
+        public long getValueAtQuantile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return highestValueOf(i);
+                }
+            }
+            return highestValueOf(counts.length - 1);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Suma de los valores registrados, en microsegundos
+         */
+        public long getSum() {
+            return sum;
+        }
+    }
+}
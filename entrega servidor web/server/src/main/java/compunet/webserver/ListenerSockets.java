@@ -0,0 +1,103 @@
+package compunet.webserver;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.channels.NetworkChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Apertura de los sockets de escucha y opciones TCP de las conexiones aceptadas
+ * Con varios aceptadores y SO_REUSEPORT (JDK 9+ en Linux) cada uno tiene su propio socket
+ * en el mismo puerto y el kernel reparte las conexiones entre ellos; sin SO_REUSEPORT
+ * todos aceptan del mismo socket
+ */
+public final class ListenerSockets {
+
+    private static final SocketOption<Boolean> SO_REUSEPORT = findReusePort();
+
+    private ListenerSockets() {
+    }
+
+    /**
+     * StandardSocketOptions.SO_REUSEPORT existe desde JDK 9; se busca por reflexión para seguir compilando con Java 8
+     */
+    @SuppressWarnings("unchecked")
+    private static SocketOption<Boolean> findReusePort() {
+        try {
+            return (SocketOption<Boolean>) StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Abre los sockets de escucha para count aceptadores en el puerto dado
+     * Devuelve uno por aceptador si se puede usar SO_REUSEPORT, o uno compartido si no
+     */
+    public static List<ServerSocketChannel> open(ServerConfig config, int port, int count) throws IOException {
+        boolean reusePort = count > 1 && config.isReusePort() && isReusePortSupported();
+        if (count > 1 && config.isReusePort() && !reusePort) {
+            System.err.println("[ERROR] SO_REUSEPORT no disponible en esta JVM o sistema, los "
+                    + count + " aceptadores comparten un socket");
+        }
+        List<ServerSocketChannel> channels = new ArrayList<>();
+        try {
+            for (int i = 0; i < (reusePort ? count : 1); i++) {
+                channels.add(openOne(config, port, reusePort));
+            }
+        } catch (IOException e) {
+            for (ServerSocketChannel channel : channels) {
+                channel.close();
+            }
+            throw e;
+        }
+        return channels;
+    }
+
+    private static ServerSocketChannel openOne(ServerConfig config, int port, boolean reusePort) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            if (reusePort) {
+                channel.setOption(SO_REUSEPORT, true);
+            }
+            // Antes de bind para que la ventana TCP se negocie con este tamaño; las conexiones lo heredan
+            if (config.getReceiveBufferSize() > 0) {
+                channel.setOption(StandardSocketOptions.SO_RCVBUF, config.getReceiveBufferSize());
+            }
+            channel.bind(new InetSocketAddress(port), config.getBacklog());
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * SO_REUSEPORT solo existe desde JDK 9 y no en todos los sistemas (en Windows no)
+     */
+    public static boolean isReusePortSupported() {
+        if (SO_REUSEPORT == null) {
+            return false;
+        }
+        try (ServerSocketChannel probe = ServerSocketChannel.open()) {
+            return probe.supportedOptions().contains(SO_REUSEPORT);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Aplica TCP_NODELAY y el buffer de envío a una conexión aceptada (el de recepción se hereda del socket de escucha)
+     */
+    public static void configureClient(NetworkChannel channel, ServerConfig config) throws IOException {
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, config.isTcpNoDelay());
+        if (config.getSendBufferSize() > 0) {
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, config.getSendBufferSize());
+        }
+    }
+}
@@ -0,0 +1,528 @@
+package compunet.webserver;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga HTTP sobre loopback para comparar configuraciones del servidor
+ * Cada conexión es un hilo que envía solicitudes de la mezcla configurada. Con --rate las
+ * solicitudes salen a una tasa fija (lazo abierto) y la latencia se mide desde el instante
+ * en que la solicitud debía salir, no desde que salió: si el servidor se atrasa, la espera
+ * cuenta (evita la omisión coordinada). Sin --rate cada conexión envía la siguiente apenas
+ * recibe la respuesta (lazo cerrado). Los primeros --warmup segundos no se cuentan
+ * Uso: java LoadGenerator --connections=16 --duration=30 --rate=5000 --keep-alive=on
+ */
+public class LoadGenerator {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int SOCKET_TIMEOUT = 10_000;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999, 1.0};
+
+    /**
+     * Tipos de solicitud de la mezcla
+     */
+    enum Category {
+        IMAGES, INDEX, COURSES, API;
+
+        private static final String[] IMAGE_FILES = {
+                "banner.jpg", "curso1.jpg", "curso2.jpg", "curso3.jpg", "logo.gif", "mi-imagen.jpg"
+        };
+        private static final String[] SORTS = {"name", "credits", "professor"};
+        private static final int[] SIZES = {3, 5, 10};
+
+        String nextPath(Random random, int maxPage) {
+            switch (this) {
+                case IMAGES:
+                    return "/images/" + IMAGE_FILES[random.nextInt(IMAGE_FILES.length)];
+                case INDEX:
+                    return "/index.html";
+                case COURSES:
+                    return "/courses.html?page=" + random.nextInt(maxPage + 1)
+                            + "&size=" + SIZES[random.nextInt(SIZES.length)]
+                            + "&sort=" + SORTS[random.nextInt(SORTS.length)]
+                            + "&direction=" + (random.nextBoolean() ? "asc" : "desc");
+                default:
+                    return "/api/courses?page=" + random.nextInt(maxPage + 1)
+                            + "&size=10&sort=" + SORTS[random.nextInt(SORTS.length)];
+            }
+        }
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private String host = "localhost";
+    private int port = 8080;
+    private int connections = 16;
+    private int durationSeconds = 30;
+    private int warmupSeconds = 5;
+    private boolean keepAlive = true;
+    /** Solicitudes por segundo entre todas las conexiones; 0 es lazo cerrado */
+    private int rate;
+    private String mix = "images=2,index=3,courses=5";
+    private int maxPage = 3;
+    private long seed = 42;
+    private String label = "";
+    private String csvFile;
+
+    private Category[] categories;
+    private int[] cumulativeWeights;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Map<Category, LatencyHistogram> latencyByCategory = new EnumMap<>(Category.class);
+    private final ConcurrentMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder connectErrors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder ioErrors = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("[ERROR] Argumento ignorado: " + arg);
+                continue;
+            }
+            generator.set(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        if (!generator.parseMix()) {
+            System.exit(1);
+        }
+        generator.run();
+    }
+
+    private void set(String key, String value) {
+        try {
+            switch (key) {
+                case "host":
+                    host = value;
+                    break;
+                case "port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "connections":
+                    connections = Math.max(1, Integer.parseInt(value));
+                    break;
+                case "duration":
+                    durationSeconds = Math.max(1, Integer.parseInt(value));
+                    break;
+                case "warmup":
+                    warmupSeconds = Math.max(0, Integer.parseInt(value));
+                    break;
+                case "keep-alive":
+                    keepAlive = value.equalsIgnoreCase("on") || value.equalsIgnoreCase("true");
+                    break;
+                case "rate":
+                    rate = Math.max(0, Integer.parseInt(value));
+                    break;
+                case "mix":
+                    mix = value;
+                    break;
+                case "max-page":
+                    maxPage = Math.max(0, Integer.parseInt(value));
+                    break;
+                case "seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "label":
+                    label = value;
+                    break;
+                case "csv":
+                    csvFile = value.isEmpty() ? null : value;
+                    break;
+                default:
+                    System.err.println("[ERROR] Opción desconocida: " + key);
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("[ERROR] Valor inválido para " + key + ": " + value);
+        }
+    }
+
+    /**
+     * Interpreta --mix=tipo=peso,... (tipos: images, index, courses, api)
+     */
+    private boolean parseMix() {
+        List<Category> parsed = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            try {
+                Category category = Category.valueOf(pair[0].trim().toUpperCase(Locale.ROOT));
+                int weight = pair.length > 1 ? Integer.parseInt(pair[1].trim()) : 1;
+                if (weight > 0) {
+                    total += weight;
+                    parsed.add(category);
+                    weights.add(total);
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("[ERROR] Tipo de solicitud inválido en --mix: " + part);
+                return false;
+            }
+        }
+        if (parsed.isEmpty()) {
+            System.err.println("[ERROR] --mix no tiene ningún tipo con peso positivo");
+            return false;
+        }
+        categories = parsed.toArray(new Category[0]);
+        cumulativeWeights = new int[weights.size()];
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            cumulativeWeights[i] = weights.get(i);
+        }
+        for (Category category : categories) {
+            latencyByCategory.put(category, new LatencyHistogram());
+        }
+        return true;
+    }
+
+    private Category nextCategory(Random random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return categories[i];
+            }
+        }
+        return categories[categories.length - 1];
+    }
+
+    /**
+     * Lanza las conexiones, espera a que terminen y muestra el resultado
+     */
+    private void run() throws InterruptedException {
+        System.out.println("[INFO] Carga sobre http://" + host + ":" + port + ": " + connections + " conexiones, "
+                + (keepAlive ? "keep-alive" : "una conexión por solicitud") + ", "
+                + (rate > 0 ? "lazo abierto a " + rate + " req/s" : "lazo cerrado") + ", "
+                + durationSeconds + " s (+" + warmupSeconds + " s de calentamiento)");
+        System.out.println("[INFO] Mezcla: " + mix + " (semilla " + seed + ")");
+
+        long start = System.nanoTime() + NANOS_PER_SECOND / 10;
+        long measureStart = start + warmupSeconds * NANOS_PER_SECOND;
+        long end = measureStart + durationSeconds * NANOS_PER_SECOND;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            Worker worker = new Worker(i, start, measureStart, end);
+            Thread thread = new Thread(worker, "load-" + (i + 1));
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // En lazo abierto las respuestas atrasadas llegan después del final previsto
+        report((System.nanoTime() - measureStart) / (double) NANOS_PER_SECOND);
+    }
+
+    /**
+     * Una conexión: envía solicitudes hasta el final de la prueba y reconecta cuando el
+     * servidor cierra (Connection: close, máximo de solicitudes por conexión o error)
+     */
+    private class Worker implements Runnable {
+        private final Random random;
+        private final long measureStart;
+        private final long end;
+        /** Separación entre solicitudes de esta conexión en lazo abierto */
+        private final long interval;
+        private long next;
+
+        private Socket socket;
+        private InputStream in;
+        private OutputStream out;
+        private final byte[] skipBuffer = new byte[64 * 1024];
+        private final StringBuilder line = new StringBuilder(128);
+
+        Worker(int index, long start, long measureStart, long end) {
+            this.random = new Random(seed + index);
+            this.measureStart = measureStart;
+            this.end = end;
+            this.interval = rate > 0 ? connections * NANOS_PER_SECOND / rate : 0;
+            // Las conexiones se reparten el intervalo para no enviar todas a la vez
+            this.next = start + (rate > 0 ? index * interval / connections : 0);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    long intended;
+                    if (rate > 0) {
+                        if (next >= end) {
+                            break;
+                        }
+                        sleepUntil(next);
+                        intended = next;
+                        next += interval;
+                    } else {
+                        sleepUntil(next);
+                        intended = System.nanoTime();
+                        if (intended >= end) {
+                            break;
+                        }
+                    }
+                    send(intended);
+                }
+            } finally {
+                close();
+            }
+        }
+
+        private void send(long intended) {
+            boolean measured = intended >= measureStart;
+            Category category = nextCategory(random);
+            String path = category.nextPath(random, maxPage);
+            if (socket == null && !connect(measured)) {
+                if (rate == 0) {
+                    // Sin servidor no tiene sentido reintentar en un ciclo cerrado
+                    next = System.nanoTime() + NANOS_PER_SECOND / 100;
+                }
+                return;
+            }
+            try {
+                out.write(requestBytes(path));
+                out.flush();
+                int status = readResponse();
+                long latencyMicros = (System.nanoTime() - intended) / 1000;
+                if (measured) {
+                    latency.record(latencyMicros);
+                    latencyByCategory.get(category).record(latencyMicros);
+                    statuses.computeIfAbsent(status, ignored -> new LongAdder()).increment();
+                }
+            } catch (SocketTimeoutException e) {
+                if (measured) {
+                    timeouts.increment();
+                }
+                close();
+            } catch (IOException e) {
+                if (measured) {
+                    ioErrors.increment();
+                }
+                close();
+            }
+        }
+
+        private boolean connect(boolean measured) {
+            try {
+                socket = new Socket();
+                socket.setTcpNoDelay(true);
+                socket.connect(new InetSocketAddress(host, port), SOCKET_TIMEOUT);
+                socket.setSoTimeout(SOCKET_TIMEOUT);
+                in = new BufferedInputStream(socket.getInputStream(), 16 * 1024);
+                out = socket.getOutputStream();
+                return true;
+            } catch (IOException e) {
+                if (measured) {
+                    connectErrors.increment();
+                }
+                close();
+                return false;
+            }
+        }
+
+        private byte[] requestBytes(String path) {
+            return ("GET " + path + " HTTP/1.1\r\n"
+                    + "Host: " + host + ":" + port + "\r\n"
+                    + "User-Agent: LoadGenerator\r\n"
+                    + "Accept-Encoding: gzip\r\n"
+                    + (keepAlive ? "" : "Connection: close\r\n")
+                    + "\r\n").getBytes(StandardCharsets.US_ASCII);
+        }
+
+        /**
+         * Lee una respuesta completa y devuelve su código; cierra la conexión si el servidor
+         * lo pide o si el cuerpo termina con el cierre
+         */
+        private int readResponse() throws IOException {
+            String statusLine = readLine();
+            int firstSpace = statusLine.indexOf(' ');
+            if (firstSpace < 0 || statusLine.length() < firstSpace + 4) {
+                throw new IOException("Línea de estado inválida: " + statusLine);
+            }
+            int status;
+            try {
+                status = Integer.parseInt(statusLine.substring(firstSpace + 1, firstSpace + 4));
+            } catch (NumberFormatException e) {
+                throw new IOException("Línea de estado inválida: " + statusLine);
+            }
+            long contentLength = -1;
+            boolean closeAfter = !keepAlive;
+            String header;
+            while (!(header = readLine()).isEmpty()) {
+                int colon = header.indexOf(':');
+                if (colon < 0) {
+                    continue;
+                }
+                String name = header.substring(0, colon).trim();
+                String value = header.substring(colon + 1).trim();
+                if (name.equalsIgnoreCase("Content-Length")) {
+                    contentLength = Long.parseLong(value);
+                } else if (name.equalsIgnoreCase("Connection") && value.equalsIgnoreCase("close")) {
+                    closeAfter = true;
+                }
+            }
+            if (status == 204 || status == 304) {
+                contentLength = 0;
+            }
+            if (contentLength < 0) {
+                skip(Long.MAX_VALUE);
+                closeAfter = true;
+            } else {
+                skip(contentLength);
+            }
+            if (closeAfter) {
+                close();
+            }
+            return status;
+        }
+
+        private String readLine() throws IOException {
+            line.setLength(0);
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    throw new IOException("El servidor cerró la conexión");
+                }
+                if (b != '\r') {
+                    line.append((char) b);
+                }
+            }
+            bytesReceived.add(line.length() + 2);
+            return line.toString();
+        }
+
+        /**
+         * Descarta el cuerpo; con Long.MAX_VALUE lee hasta que el servidor cierre
+         */
+        private void skip(long length) throws IOException {
+            long remaining = length;
+            while (remaining > 0) {
+                int read = in.read(skipBuffer, 0, (int) Math.min(skipBuffer.length, remaining));
+                if (read < 0) {
+                    if (length == Long.MAX_VALUE) {
+                        return;
+                    }
+                    throw new IOException("Cuerpo incompleto");
+                }
+                remaining -= read;
+                bytesReceived.add(read);
+            }
+        }
+
+        private void close() {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                }
+            }
+            socket = null;
+            in = null;
+            out = null;
+        }
+    }
+
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Resumen en consola y, con --csv, una fila por ejecución para comparar configuraciones
+     */
+    private void report(double elapsedSeconds) {
+        LatencyHistogram.Snapshot all = latency.snapshot();
+        long requests = all.getCount();
+        double throughput = requests / elapsedSeconds;
+        long errors = connectErrors.sum() + timeouts.sum() + ioErrors.sum() + serverErrors();
+
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT, "Solicitudes: %d en %.1f s (%.1f req/s), %.1f MB recibidos",
+                requests, elapsedSeconds, throughput, bytesReceived.sum() / (1024.0 * 1024.0)));
+        System.out.println("Errores:     conexión " + connectErrors.sum() + ", timeout " + timeouts.sum()
+                + ", E/S " + ioErrors.sum() + ", 5xx " + serverErrors());
+        StringBuilder statusLine = new StringBuilder("Estados:    ");
+        for (Map.Entry<Integer, LongAdder> status : new TreeMap<>(statuses).entrySet()) {
+            statusLine.append(' ').append(status.getKey()).append('=').append(status.getValue().sum());
+        }
+        System.out.println(statusLine);
+        System.out.println(String.format(Locale.ROOT, "%-14s %9s %9s %9s %9s %9s %9s",
+                "Latencia (ms)", "n", "p50", "p90", "p99", "p99.9", "max"));
+        printLatency("total", all);
+        for (Map.Entry<Category, LatencyHistogram> entry : latencyByCategory.entrySet()) {
+            printLatency(entry.getKey().label(), entry.getValue().snapshot());
+        }
+        if (rate > 0 && throughput < rate * 0.95) {
+            System.out.println("[INFO] Se alcanzó menos del 95 % de la tasa pedida: el servidor (o el generador) está saturado");
+        }
+        if (csvFile != null) {
+            writeCsv(all, requests, throughput, errors);
+        }
+    }
+
+    private long serverErrors() {
+        long total = 0;
+        for (Map.Entry<Integer, LongAdder> status : statuses.entrySet()) {
+            if (status.getKey() >= 500) {
+                total += status.getValue().sum();
+            }
+        }
+        return total;
+    }
+
+    private static void printLatency(String name, LatencyHistogram.Snapshot snapshot) {
+        StringBuilder row = new StringBuilder(String.format(Locale.ROOT, "%-14s %9d", name, snapshot.getCount()));
+        for (double quantile : QUANTILES) {
+            row.append(String.format(Locale.ROOT, " %9.3f", snapshot.getValueAtQuantile(quantile) / 1000.0));
+        }
+        System.out.println(row);
+    }
+
+    private void writeCsv(LatencyHistogram.Snapshot all, long requests, double throughput, long errors) {
+        Path file = Paths.get(csvFile);
+        try {
+            boolean newFile = !Files.exists(file);
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                if (newFile) {
+                    writer.println("label,connections,keep_alive,rate,mix,requests,req_s,errors,"
+                            + "p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+                }
+                StringBuilder row = new StringBuilder();
+                row.append('"').append(label.replace("\"", "\"\"")).append("\",").append(connections).append(',').append(keepAlive ? "on" : "off")
+                        .append(',').append(rate).append(",\"").append(mix).append("\",").append(requests)
+                        .append(String.format(Locale.ROOT, ",%.1f", throughput)).append(',').append(errors);
+                for (double quantile : QUANTILES) {
+                    row.append(String.format(Locale.ROOT, ",%.3f", all.getValueAtQuantile(quantile) / 1000.0));
+                }
+                writer.println(row);
+            }
+            System.out.println("[INFO] Resultado agregado a " + file);
+        } catch (IOException e) {
+            System.err.println("[ERROR] No se pudo escribir " + file + ": " + e.getMessage());
+        }
+    }
+}
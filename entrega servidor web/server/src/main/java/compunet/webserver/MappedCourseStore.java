@@ -0,0 +1,225 @@
+package compunet.webserver;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catálogo de cursos en un archivo binario mapeado en memoria
+ * El archivo se mapea completo al arrancar y los registros se leen al consultarlos: los
+ * cursos solo existen como objetos mientras se arma una página. Formato (big-endian):
+ * <pre>
+ * cabecera (32 bytes): magic, versión, cantidad, inicio de registros, inicio de órdenes,
+ *                      inicio de cadenas, tamaño de cadenas, reservado
+ * registros: id, créditos, referencia al nombre, referencia al profesor (16 bytes cada uno)
+ * órdenes:   una permutación de posiciones por cada SortField, ya ordenada al importar
+ * cadenas:   longitud (2 bytes) + UTF-8; los profesores repetidos se guardan una sola vez
+ * </pre>
+ * El archivo completo debe ocupar menos de 2 GB
+ */
+public class MappedCourseStore implements CourseStore {
+
+    private static final int MAGIC = 0x43525331; // "CRS1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 16;
+
+    private final ByteBuffer records;
+    private final ByteBuffer strings;
+    private final IntBuffer[] orders;
+    private final int count;
+
+    private MappedCourseStore(MappedByteBuffer file) throws IOException {
+        if (file.limit() < HEADER_SIZE || file.getInt(0) != MAGIC) {
+            throw new IOException("No es un catálogo de cursos");
+        }
+        if (file.getInt(4) != VERSION) {
+            throw new IOException("Versión de catálogo no soportada: " + file.getInt(4));
+        }
+        this.count = file.getInt(8);
+        int recordsOffset = file.getInt(12);
+        int ordersOffset = file.getInt(16);
+        int stringsOffset = file.getInt(20);
+        int stringsLength = file.getInt(24);
+        if (count < 0 || (long) stringsOffset + stringsLength > file.limit()
+                || (long) ordersOffset + 4L * count * CourseCatalog.SortField.values().length > stringsOffset) {
+            throw new IOException("Catálogo truncado o dañado");
+        }
+        this.records = region(file, recordsOffset, count * RECORD_SIZE);
+        this.strings = region(file, stringsOffset, stringsLength);
+        CourseCatalog.SortField[] fields = CourseCatalog.SortField.values();
+        this.orders = new IntBuffer[fields.length];
+        for (CourseCatalog.SortField field : fields) {
+            orders[field.ordinal()] = region(file, ordersOffset + field.ordinal() * 4 * count, 4 * count)
+                    .asIntBuffer().asReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * Mapea el archivo en modo lectura; el canal se cierra enseguida y el mapeo sigue válido
+     */
+    public static MappedCourseStore open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("El catálogo supera 2 GB");
+            }
+            return new MappedCourseStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private static ByteBuffer region(ByteBuffer file, int offset, int length) {
+        ByteBuffer region = file.duplicate();
+        region.position(offset);
+        region.limit(offset + length);
+        return region.slice();
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public Course get(int position) {
+        return new Course(getId(position), getName(position), getProfessor(position), getCredits(position));
+    }
+
+    @Override
+    public int getId(int position) {
+        return records.getInt(position * RECORD_SIZE);
+    }
+
+    @Override
+    public int getCredits(int position) {
+        return records.getInt(position * RECORD_SIZE + 4);
+    }
+
+    @Override
+    public String getName(int position) {
+        return string(records.getInt(position * RECORD_SIZE + 8));
+    }
+
+    @Override
+    public String getProfessor(int position) {
+        return string(records.getInt(position * RECORD_SIZE + 12));
+    }
+
+    @Override
+    public IntBuffer order(CourseCatalog.SortField field) {
+        return orders[field.ordinal()];
+    }
+
+    /**
+     * Decodifica la cadena de la tabla con lecturas absolutas (seguras entre hilos)
+     */
+    private String string(int offset) {
+        int length = strings.getShort(offset) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = strings.get(offset + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Escribe los cursos en el formato del catálogo; los órdenes se calculan aquí,
+     * una sola vez, para que el servidor no tenga que ordenar al arrancar
+     * Se escribe en un archivo temporal que luego reemplaza al destino
+     */
+    public static void write(List<Course> courses, Path target) throws IOException {
+        write(new MemoryCourseStore(courses), target);
+    }
+
+    /**
+     * Escribe el contenido de otro almacenamiento reutilizando sus órdenes, sin volver a ordenar
+     * El archivo llega al disco (fsync) antes de reemplazar al destino
+     */
+    public static void write(CourseStore source, Path target) throws IOException {
+        int count = source.size();
+        int fieldCount = CourseCatalog.SortField.values().length;
+
+        ByteArrayOutputStream stringTable = new ByteArrayOutputStream();
+        Map<String, Integer> stringOffsets = new HashMap<>();
+        int[] nameRefs = new int[count];
+        int[] professorRefs = new int[count];
+        for (int i = 0; i < count; i++) {
+            nameRefs[i] = addString(stringTable, stringOffsets, source.getName(i), false);
+            professorRefs[i] = addString(stringTable, stringOffsets, source.getProfessor(i), true);
+        }
+
+        long recordsOffset = HEADER_SIZE;
+        long ordersOffset = recordsOffset + (long) count * RECORD_SIZE;
+        long stringsOffset = ordersOffset + 4L * count * fieldCount;
+        if (stringsOffset + stringTable.size() > Integer.MAX_VALUE) {
+            throw new IOException("El catálogo supera 2 GB");
+        }
+
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            out.writeInt((int) recordsOffset);
+            out.writeInt((int) ordersOffset);
+            out.writeInt((int) stringsOffset);
+            out.writeInt(stringTable.size());
+            out.writeInt(0);
+            for (int i = 0; i < count; i++) {
+                out.writeInt(source.getId(i));
+                out.writeInt(source.getCredits(i));
+                out.writeInt(nameRefs[i]);
+                out.writeInt(professorRefs[i]);
+            }
+            for (CourseCatalog.SortField field : CourseCatalog.SortField.values()) {
+                IntBuffer order = source.order(field);
+                for (int i = 0; i < count; i++) {
+                    out.writeInt(order.get(i));
+                }
+            }
+            stringTable.writeTo(out);
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Agrega una cadena a la tabla y devuelve su posición; con deduplicate reutiliza una igual
+     */
+    private static int addString(ByteArrayOutputStream table, Map<String, Integer> offsets,
+                                 String value, boolean deduplicate) throws IOException {
+        if (deduplicate) {
+            Integer existing = offsets.get(value);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("Cadena demasiado larga en el catálogo: " + value.substring(0, 40) + "...");
+        }
+        int offset = table.size();
+        table.write(bytes.length >>> 8);
+        table.write(bytes.length);
+        table.write(bytes);
+        if (deduplicate) {
+            offsets.put(value, offset);
+        }
+        return offset;
+    }
+}
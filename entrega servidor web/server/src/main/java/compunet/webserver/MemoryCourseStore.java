@@ -0,0 +1,82 @@
+package compunet.webserver;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CourseStore en el heap a partir de una lista de cursos; calcula los órdenes al construirse
+ * Guarda copias de los cursos y entrega copias, así que modificar un Course no altera el catálogo
+ */
+public class MemoryCourseStore implements CourseStore {
+
+    private final Course[] courses;
+    private final int[][] orders;
+
+    public MemoryCourseStore(List<Course> courseList) {
+        this.courses = new Course[courseList.size()];
+        for (int i = 0; i < courses.length; i++) {
+            courses[i] = copy(courseList.get(i));
+        }
+        CourseCatalog.SortField[] fields = CourseCatalog.SortField.values();
+        this.orders = new int[fields.length][];
+        for (CourseCatalog.SortField field : fields) {
+            orders[field.ordinal()] = sortOrder(field);
+        }
+    }
+
+    /**
+     * Permutación de posiciones ordenada con el comparador del campo
+     */
+    private int[] sortOrder(CourseCatalog.SortField field) {
+        Integer[] order = new Integer[courses.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> field.comparator().compare(courses[a], courses[b]));
+        int[] result = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            result[i] = order[i];
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return courses.length;
+    }
+
+    @Override
+    public Course get(int position) {
+        return copy(courses[position]);
+    }
+
+    private static Course copy(Course course) {
+        return new Course(course.getId(), course.getName(), course.getProfessor(), course.getCredits());
+    }
+
+    @Override
+    public int getId(int position) {
+        return courses[position].getId();
+    }
+
+    @Override
+    public int getCredits(int position) {
+        return courses[position].getCredits();
+    }
+
+    @Override
+    public String getName(int position) {
+        return courses[position].getName();
+    }
+
+    @Override
+    public String getProfessor(int position) {
+        return courses[position].getProfessor();
+    }
+
+    @Override
+    public IntBuffer order(CourseCatalog.SortField field) {
+        return IntBuffer.wrap(orders[field.ordinal()]).asReadOnlyBuffer();
+    }
+}
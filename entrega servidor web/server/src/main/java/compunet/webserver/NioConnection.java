@@ -0,0 +1,366 @@
+package compunet.webserver;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Estado de una conexión del motor NIO
+ * Acumula bytes hasta que HttpRequestParser completa cada solicitud, la enruta con RequestRouter
+ * y encola la respuesta; las solicitudes en pipeline se procesan en orden.
+ * Las que bloquean (escrituras de la API) se atienden en un hilo de workers y la respuesta
+ * vuelve al event loop; mientras tanto la conexión no procesa la solicitud siguiente
+ */
+public class NioConnection {
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final ServerConfig config;
+    private final RequestRouter router;
+    private final Executor eventLoop;
+    private final Executor workers;
+    private final Deque<ResponseChunk> writeQueue = new ArrayDeque<>();
+    private final HttpRequestParser parser = new HttpRequestParser();
+    private final HttpRequest request = new HttpRequest();
+    private final ByteBuffer[] gatherBuffers = new ByteBuffer[16];
+    private final String remoteAddress;
+
+    /** Bytes recibidos que aún no forman una solicitud completa (en modo escritura); null si no hay */
+    private ByteBuffer pending;
+    private int handledRequests;
+    private boolean closeAfterWrite;
+    private long lastActivity = System.currentTimeMillis();
+    private boolean closed;
+    private boolean draining;
+    /** Hay una solicitud en un worker; su respuesta todavía no está en writeQueue */
+    private boolean awaitingResponse;
+
+    /**
+     * @param eventLoop ejecuta tareas en el hilo del event loop dueño de la conexión
+     * @param workers   hilos para las solicitudes que bloquean
+     */
+    public NioConnection(SocketChannel channel, SelectionKey key, ServerConfig config, RequestRouter router,
+                         Executor eventLoop, Executor workers) {
+        this.channel = channel;
+        this.key = key;
+        this.config = config;
+        this.router = router;
+        this.eventLoop = eventLoop;
+        this.workers = workers;
+        this.remoteAddress = remoteAddress(channel);
+        router.getMetrics().connectionOpened();
+    }
+
+    private static String remoteAddress(SocketChannel channel) {
+        try {
+            SocketAddress address = channel.getRemoteAddress();
+            if (address instanceof InetSocketAddress) {
+                return ((InetSocketAddress) address).getAddress().getHostAddress();
+            }
+        } catch (IOException e) {
+            // El cliente ya cerró la conexión
+        }
+        return "-";
+    }
+
+    /**
+     * Lee del socket usando el buffer compartido del event loop
+     * Solo los bytes de una solicitud incompleta se copian a un buffer propio de la conexión
+     */
+    public void onReadable(ByteBuffer readBuffer) throws IOException {
+        readBuffer.clear();
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            close();
+            return;
+        }
+        if (read == 0) {
+            return;
+        }
+        lastActivity = System.currentTimeMillis();
+        readBuffer.flip();
+
+        ByteBuffer input = readBuffer;
+        if (pending != null) {
+            if (pending.remaining() < readBuffer.remaining()) {
+                pending = grow(pending, pending.position() + readBuffer.remaining());
+            }
+            pending.put(readBuffer);
+            pending.flip();
+            input = pending;
+        }
+        consume(input);
+    }
+
+    /**
+     * Continúa enviando respuestas pendientes y retoma las solicitudes que quedaron en cola
+     */
+    public void onWritable() throws IOException {
+        lastActivity = System.currentTimeMillis();
+        flush();
+        resumePending();
+    }
+
+    /**
+     * Retoma las solicitudes en pipeline que esperaban a que se enviara la respuesta anterior
+     */
+    private void resumePending() throws IOException {
+        if (channel.isOpen() && writeQueue.isEmpty() && !awaitingResponse && pending != null) {
+            pending.flip();
+            consume(pending);
+        }
+    }
+
+    /**
+     * Procesa las solicitudes completas de input y guarda el resto para la siguiente lectura
+     */
+    private void consume(ByteBuffer input) throws IOException {
+        processRequests(input);
+        if (!channel.isOpen()) {
+            return;
+        }
+        if (!input.hasRemaining() || closeAfterWrite) {
+            pending = null;
+            return;
+        }
+        if (input == pending) {
+            pending.compact();
+        } else {
+            pending = ByteBuffer.allocate(Math.max(1024, input.remaining() * 2));
+            pending.put(input);
+        }
+    }
+
+    /**
+     * Atiende solicitudes mientras haya una solicitud completa y el socket acepte la respuesta
+     * El parser trabaja sobre el arreglo del buffer sin copiarlo; la solicitud se atiende
+     * antes de que el buffer se reutilice
+     */
+    private void processRequests(ByteBuffer input) throws IOException {
+        while (writeQueue.isEmpty() && !closeAfterWrite && !awaitingResponse) {
+            int offset = input.arrayOffset();
+            int end;
+            try {
+                end = parser.parse(input.array(), offset + input.position(), offset + input.limit(), request);
+            } catch (HttpParseException e) {
+                input.position(input.limit());
+                HTTPResponse error = router.parseError(e);
+                respond(error, HttpRequest.HTTP_1_0, false);
+                router.requestCompleted(remoteAddress, null, error, System.nanoTime());
+                flush();
+                return;
+            }
+            if (end < 0) {
+                return;
+            }
+            handleRequest(end);
+            input.position(end - offset);
+            flush();
+        }
+    }
+
+    /**
+     * Enruta la solicitud ya interpretada y encola la respuesta
+     * Si bloquea, la copia pasa a un worker y la respuesta se encola al volver al event loop
+     */
+    private void handleRequest(int end) throws IOException {
+        long startNanos = System.nanoTime();
+        if (config.isDebugLog()) {
+            System.out.println("[INFO] " + request.getRequestLine());
+            for (int i = 0; i < request.getHeaderCount(); i++) {
+                System.out.println("[INFO] " + request.getHeaderName(i) + ": " + request.getHeaderValue(i));
+            }
+        }
+
+        String httpVersion = request.getHttpVersion();
+        handledRequests++;
+        boolean keepAlive = ClientHandler.isKeepAliveRequested(httpVersion, request.getHeader("connection"))
+                && handledRequests < config.getMaxKeepAliveRequests()
+                && !draining;
+
+        if (router.isBlocking(request)) {
+            dispatch(request.detach(end), httpVersion, keepAlive, startNanos);
+            return;
+        }
+        HTTPResponse response;
+        try {
+            response = router.handleRequest(request);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[ERROR] Error al procesar solicitud: " + e.getMessage());
+            keepAlive = false;
+            response = internalError();
+        }
+        respond(response, httpVersion, keepAlive);
+        router.requestCompleted(remoteAddress, request, response, startNanos);
+    }
+
+    private static HTTPResponse internalError() {
+        HTTPResponse response = new HTTPResponse(500, "text/plain");
+        response.setBody("500 - Error interno del servidor");
+        return response;
+    }
+
+    /**
+     * Atiende la solicitud en un worker; si el pool está lleno responde 503 de inmediato
+     */
+    private void dispatch(HttpRequest detached, String httpVersion, boolean keepAlive, long startNanos) throws IOException {
+        awaitingResponse = true;
+        try {
+            workers.execute(() -> {
+                HTTPResponse response;
+                boolean keepConnection = keepAlive;
+                try {
+                    response = router.handleRequest(detached);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("[ERROR] Error al procesar solicitud: " + e.getMessage());
+                    keepConnection = false;
+                    response = internalError();
+                }
+                HTTPResponse result = response;
+                boolean keep = keepConnection;
+                eventLoop.execute(() -> complete(detached, result, httpVersion, keep, startNanos));
+            });
+        } catch (RejectedExecutionException e) {
+            awaitingResponse = false;
+            HTTPResponse busy = new HTTPResponse(503, "text/plain");
+            busy.setBody("503 - Servidor ocupado, intente de nuevo");
+            respond(busy, httpVersion, keepAlive);
+            router.requestCompleted(remoteAddress, detached, busy, startNanos);
+        }
+    }
+
+    /**
+     * En el event loop: encola la respuesta que armó el worker y sigue con el pipeline
+     */
+    private void complete(HttpRequest detached, HTTPResponse response, String httpVersion, boolean keepAlive,
+                          long startNanos) {
+        awaitingResponse = false;
+        router.requestCompleted(remoteAddress, detached, response, startNanos);
+        if (closed) {
+            return;
+        }
+        lastActivity = System.currentTimeMillis();
+        try {
+            respond(response, httpVersion, keepAlive);
+            flush();
+            resumePending();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * Convierte la respuesta en fragmentos y los agrega a la cola de escritura
+     */
+    private void respond(HTTPResponse response, String httpVersion, boolean keepAlive) throws IOException {
+        response.setHttpVersion(httpVersion);
+        response.setKeepAlive(keepAlive);
+        List<ResponseChunk> chunks;
+        try {
+            chunks = response.toChunks();
+        } catch (IOException e) {
+            response = router.notFound();
+            response.setHttpVersion(httpVersion);
+            response.setKeepAlive(keepAlive);
+            chunks = response.toChunks();
+        }
+        writeQueue.addAll(chunks);
+        closeAfterWrite = !keepAlive;
+    }
+
+    /**
+     * Escribe la cola de respuestas; si el socket no acepta más, espera OP_WRITE
+     * Headers y cuerpos en memoria se envían juntos con una escritura gathering.
+     * Con una solicitud en un worker no espera nada; complete vuelve a llamar a flush
+     */
+    private void flush() throws IOException {
+        while (!writeQueue.isEmpty()) {
+            ResponseChunk chunk = writeQueue.peek();
+            if (chunk.getBuffer() != null) {
+                if (!ResponseChunk.writeBuffers(writeQueue, channel, gatherBuffers)) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                continue;
+            }
+            if (!chunk.writeTo(channel)) {
+                key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+            writeQueue.poll().release();
+        }
+        if (awaitingResponse) {
+            // Sin OP_READ hasta que complete encole la respuesta: un cliente que sigue enviando
+            // en pipeline no hace crecer pending mientras el worker atiende la solicitud
+            key.interestOps(0);
+            return;
+        }
+        if (closeAfterWrite || (draining && pending == null)) {
+            close();
+            return;
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int minCapacity) {
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(minCapacity, buffer.capacity() * 2));
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+
+    /**
+     * Indica si, sin escrituras pendientes, se superó keep-alive-timeout esperando una solicitud
+     * nueva o socket-timeout esperando el resto de una ya empezada
+     */
+    public boolean isExpired(long now) {
+        if (!writeQueue.isEmpty() || awaitingResponse) {
+            return false;
+        }
+        int timeout = pending != null ? config.getSocketTimeout() : config.getKeepAliveTimeout();
+        return timeout > 0 && now - lastActivity > timeout;
+    }
+
+    /**
+     * Pide cerrar la conexión al terminar la respuesta en curso
+     * Si no hay nada pendiente se cierra ya y devuelve true
+     */
+    public boolean drain() {
+        draining = true;
+        if (writeQueue.isEmpty() && pending == null && !awaitingResponse) {
+            close();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Cierra el canal y libera el estado de la conexión
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        router.getMetrics().connectionClosed();
+        key.cancel();
+        for (ResponseChunk chunk : writeQueue) {
+            chunk.release();
+        }
+        writeQueue.clear();
+        pending = null;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("[ERROR] Error al cerrar conexión: " + e.getMessage());
+        }
+    }
+}
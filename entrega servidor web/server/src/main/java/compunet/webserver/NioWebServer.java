@@ -0,0 +1,299 @@
+package compunet.webserver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servidor Web no bloqueante basado en java.nio
+ * N event loops (uno por núcleo) aceptan y multiplexan conexiones con un Selector cada uno,
+ * por lo que las conexiones persistentes inactivas no ocupan un hilo. Con SO_REUSEPORT cada
+ * event loop tiene su propio socket de escucha; si no, todos aceptan del mismo
+ */
+public class NioWebServer {
+
+    private int port;
+    private ServerConfig config;
+    private RequestRouter router;
+    private List<ServerSocketChannel> listeners = new ArrayList<>();
+    private List<EventLoop> eventLoops = new ArrayList<>();
+    private List<Thread> threads = new ArrayList<>();
+    /** Hilos para las solicitudes que bloquean (escrituras de la API), fuera de los event loops */
+    private ExecutorService workers;
+    private volatile boolean running;
+    private volatile boolean draining;
+    private volatile long drainDeadline;
+
+    public NioWebServer(int port, ServerConfig config) {
+        this.port = port;
+        this.config = config;
+        this.router = new RequestRouter(config);
+    }
+
+    /**
+     * Inicia los event loops y espera a que terminen
+     */
+    public void start() {
+        try {
+            workers = WorkerExecutors.create(config);
+            listeners = ListenerSockets.open(config, port, config.getEventLoops());
+            for (ServerSocketChannel listener : listeners) {
+                listener.configureBlocking(false);
+            }
+            running = true;
+
+            for (int i = 0; i < config.getEventLoops(); i++) {
+                EventLoop loop = new EventLoop(Selector.open());
+                listeners.get(i % listeners.size()).register(loop.selector, SelectionKey.OP_ACCEPT);
+                eventLoops.add(loop);
+                threads.add(new Thread(loop, "event-loop-" + (i + 1)));
+            }
+
+            System.out.println("[INFO] Servidor NIO iniciado en puerto: " + port
+                    + " con " + eventLoops.size() + " event loops" + (listeners.size() > 1 ? " (SO_REUSEPORT)" : ""));
+            System.out.println("[INFO] Accede a http://localhost:" + port + "/index.html");
+
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Error al iniciar el servidor NIO: " + e.getMessage());
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Detiene el servidor esperando a las solicitudes en curso (shutdown-timeout)
+     */
+    public void stop() {
+        shutdown(config.getShutdownTimeout() * 1000L);
+    }
+
+    /**
+     * Apagado ordenado: deja de aceptar y cada event loop cierra sus conexiones inactivas,
+     * termina de enviar las respuestas en curso (con "Connection: close") y corta lo que
+     * quede al vencer el plazo
+     */
+    public synchronized void shutdown(long timeoutMillis) {
+        if (!running || draining) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        drainDeadline = System.currentTimeMillis() + timeoutMillis;
+        draining = true;
+        for (ServerSocketChannel listener : listeners) {
+            try {
+                listener.close();
+            } catch (IOException e) {
+                System.err.println("[ERROR] Error al cerrar el canal de escucha: " + e.getMessage());
+            }
+        }
+        for (EventLoop loop : eventLoops) {
+            loop.selector.wakeup();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+        workers.shutdownNow();
+
+        int drained = 0;
+        int idleClosed = 0;
+        int aborted = 0;
+        for (EventLoop loop : eventLoops) {
+            drained += loop.busyAtShutdown - loop.aborted;
+            idleClosed += loop.idleAtShutdown;
+            aborted += loop.aborted;
+        }
+        System.out.println("[INFO] Apagado ordenado: " + drained + " terminaron su solicitud, "
+                + idleClosed + " inactivas cerradas, " + aborted + " abortadas ("
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms)");
+        router.close();
+    }
+
+    /**
+     * Hilo que atiende un Selector: acepta conexiones nuevas y procesa lecturas/escrituras
+     * Como Executor recibe tareas de otros hilos (respuestas de los workers) y las ejecuta en el loop
+     */
+    private class EventLoop implements Runnable, Executor {
+        private static final long SELECT_TIMEOUT = 1000;
+
+        private final Selector selector;
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private long lastIdleCheck = System.currentTimeMillis();
+        private boolean drainStarted;
+        private int idleAtShutdown;
+        private int busyAtShutdown;
+        private int aborted;
+
+        EventLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    if (draining && drainConnections()) {
+                        break;
+                    }
+                    selector.select(selectTimeout());
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        processKey(key);
+                    }
+                    runTasks();
+                    closeIdleConnections();
+                } catch (IOException e) {
+                    System.err.println("[ERROR] Error en event loop: " + e.getMessage());
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof NioConnection) {
+                    ((NioConnection) key.attachment()).close();
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        private long selectTimeout() {
+            if (!draining) {
+                return SELECT_TIMEOUT;
+            }
+            return Math.max(1, Math.min(SELECT_TIMEOUT, drainDeadline - System.currentTimeMillis()));
+        }
+
+        /**
+         * Avanza el apagado de este event loop; devuelve true cuando ya no le quedan conexiones
+         * La primera vez cierra las inactivas y marca las ocupadas para cerrarlas al responder
+         */
+        private boolean drainConnections() {
+            List<NioConnection> open = new ArrayList<>();
+            for (SelectionKey key : selector.keys()) {
+                if (key.isValid() && key.attachment() instanceof NioConnection) {
+                    open.add((NioConnection) key.attachment());
+                }
+            }
+            if (!drainStarted) {
+                drainStarted = true;
+                for (NioConnection connection : open) {
+                    if (connection.drain()) {
+                        idleAtShutdown++;
+                    } else {
+                        busyAtShutdown++;
+                    }
+                }
+                return busyAtShutdown == 0;
+            }
+            if (open.isEmpty()) {
+                return true;
+            }
+            if (System.currentTimeMillis() >= drainDeadline) {
+                for (NioConnection connection : open) {
+                    connection.close();
+                    aborted++;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private void processKey(SelectionKey key) {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isAcceptable()) {
+                acceptConnections((ServerSocketChannel) key.channel());
+                return;
+            }
+            NioConnection connection = (NioConnection) key.attachment();
+            try {
+                if (key.isReadable()) {
+                    connection.onReadable(readBuffer);
+                } else if (key.isWritable()) {
+                    connection.onWritable();
+                }
+            } catch (IOException e) {
+                connection.close();
+            }
+        }
+
+        /**
+         * Acepta todas las conexiones pendientes; sin SO_REUSEPORT otro event loop puede haberlas tomado antes
+         */
+        private void acceptConnections(ServerSocketChannel listener) {
+            try {
+                SocketChannel channel;
+                while ((channel = listener.accept()) != null) {
+                    channel.configureBlocking(false);
+                    ListenerSockets.configureClient(channel, config);
+                    SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                    key.attach(new NioConnection(channel, key, config, router, this, workers));
+                    router.getMetrics().connectionAccepted();
+                }
+            } catch (IOException e) {
+                System.err.println("[ERROR] Error al aceptar conexión: " + e.getMessage());
+            }
+        }
+
+        /**
+         * Cierra las conexiones que superan keep-alive-timeout sin actividad o socket-timeout
+         * con una solicitud a medias
+         */
+        private void closeIdleConnections() {
+            long now = System.currentTimeMillis();
+            if ((config.getKeepAliveTimeout() <= 0 && config.getSocketTimeout() <= 0)
+                    || now - lastIdleCheck < SELECT_TIMEOUT) {
+                return;
+            }
+            lastIdleCheck = now;
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof NioConnection) {
+                    NioConnection connection = (NioConnection) key.attachment();
+                    if (connection.isExpired(now)) {
+                        connection.close();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package compunet.webserver;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * CourseStore inmutable que aplica cambios sobre un almacenamiento base sin copiarlo
+ * Las posiciones son densas: primero los registros vivos del base (en su orden) y después
+ * los cursos agregados o modificados, guardados en el heap. Cada lote de cambios crea una
+ * instancia nueva sobre el mismo base; los órdenes se obtienen mezclando el orden anterior
+ * con los cursos nuevos (búsqueda binaria de cada uno), sin volver a ordenar todo el catálogo
+ */
+public final class OverlayCourseStore implements CourseStore {
+
+    private final CourseStore base;
+    /** Posiciones del base que siguen vivas, ascendentes; la posición i del overlay es basePositions[i] */
+    private final int[] basePositions;
+    private final Course[] added;
+    private final int[][] orders;
+
+    private OverlayCourseStore(CourseStore base, int[] basePositions, Course[] added, int[][] orders) {
+        this.base = base;
+        this.basePositions = basePositions;
+        this.added = added;
+        this.orders = orders;
+    }
+
+    /**
+     * Nuevo almacenamiento con los cambios aplicados a current, que no se modifica
+     *
+     * @param changes por id, el curso nuevo (alta o reemplazo) o null si se elimina
+     */
+    public static OverlayCourseStore apply(CourseStore current, Map<Integer, Course> changes) {
+        CourseStore base = current;
+        int[] basePositions = null;
+        Course[] added = new Course[0];
+        if (current instanceof OverlayCourseStore) {
+            OverlayCourseStore overlay = (OverlayCourseStore) current;
+            base = overlay.base;
+            basePositions = overlay.basePositions;
+            added = overlay.added;
+        }
+        int size = current.size();
+        int baseLive = basePositions != null ? basePositions.length : size;
+
+        // Los ids que cambian salen de su posición actual; los que siguen existiendo se agregan al final
+        boolean[] removed = new boolean[size];
+        IntBuffer byId = current.order(CourseCatalog.SortField.ID);
+        for (int id : changes.keySet()) {
+            int index = lowerBound(0, size, i -> current.getId(byId.get(i)) >= id);
+            if (index < size && current.getId(byId.get(index)) == id) {
+                removed[byId.get(index)] = true;
+            }
+        }
+        int[] newPosition = new int[size];
+        int survivors = 0;
+        int baseSurvivors = 0;
+        for (int position = 0; position < size; position++) {
+            if (removed[position]) {
+                newPosition[position] = -1;
+            } else {
+                newPosition[position] = survivors++;
+                if (position < baseLive) {
+                    baseSurvivors++;
+                }
+            }
+        }
+
+        int[] newBasePositions = new int[baseSurvivors];
+        for (int position = 0, next = 0; position < baseLive; position++) {
+            if (!removed[position]) {
+                newBasePositions[next++] = basePositions != null ? basePositions[position] : position;
+            }
+        }
+        List<Course> inserted = new ArrayList<>();
+        for (Course course : changes.values()) {
+            if (course != null) {
+                inserted.add(copy(course));
+            }
+        }
+        Course[] newAdded = new Course[survivors - baseSurvivors + inserted.size()];
+        for (int position = baseLive, next = 0; position < size; position++) {
+            if (!removed[position]) {
+                newAdded[next++] = added[position - baseLive];
+            }
+        }
+        for (int i = 0; i < inserted.size(); i++) {
+            newAdded[survivors - baseSurvivors + i] = inserted.get(i);
+        }
+
+        CourseCatalog.SortField[] fields = CourseCatalog.SortField.values();
+        int[][] orders = new int[fields.length][];
+        for (CourseCatalog.SortField field : fields) {
+            orders[field.ordinal()] = mergeOrder(current, field, newPosition, survivors, inserted);
+        }
+        return new OverlayCourseStore(base, newBasePositions, newAdded, orders);
+    }
+
+    /**
+     * Orden del campo con las posiciones nuevas: el orden anterior sin los registros quitados,
+     * con cada curso insertado en su lugar (el curso insertado i queda en la posición survivors + i)
+     */
+    private static int[] mergeOrder(CourseStore current, CourseCatalog.SortField field, int[] newPosition,
+                                    int survivors, List<Course> inserted) {
+        IntBuffer previous = current.order(field);
+        int size = previous.limit();
+        Integer[] sortedInserts = new Integer[inserted.size()];
+        for (int i = 0; i < sortedInserts.length; i++) {
+            sortedInserts[i] = i;
+        }
+        Comparator<Course> comparator = field.comparator();
+        Arrays.sort(sortedInserts, (a, b) -> comparator.compare(inserted.get(a), inserted.get(b)));
+
+        int[] merged = new int[survivors + inserted.size()];
+        int out = 0;
+        int from = 0;
+        for (int insert : sortedInserts) {
+            Course course = inserted.get(insert);
+            int to = lowerBound(from, size, i -> compare(field, current, previous.get(i), course) > 0);
+            out = copySurvivors(previous, from, to, newPosition, merged, out);
+            merged[out++] = survivors + insert;
+            from = to;
+        }
+        copySurvivors(previous, from, size, newPosition, merged, out);
+        return merged;
+    }
+
+    private static int copySurvivors(IntBuffer order, int from, int to, int[] newPosition, int[] target, int out) {
+        for (int i = from; i < to; i++) {
+            int position = newPosition[order.get(i)];
+            if (position >= 0) {
+                target[out++] = position;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Compara el registro del almacenamiento con el curso según (campo, id), como field.comparator()
+     */
+    private static int compare(CourseCatalog.SortField field, CourseStore store, int position, Course course) {
+        int comparison;
+        switch (field) {
+            case CREDITS:
+                comparison = Integer.compare(store.getCredits(position), course.getCredits());
+                break;
+            case PROFESSOR:
+                comparison = store.getProfessor(position).compareToIgnoreCase(course.getProfessor());
+                break;
+            case ID:
+                comparison = 0;
+                break;
+            default:
+                comparison = store.getName(position).compareToIgnoreCase(course.getName());
+        }
+        return comparison != 0 ? comparison : Integer.compare(store.getId(position), course.getId());
+    }
+
+    /**
+     * Primer índice en [from, to) que cumple la condición (monótona en el índice)
+     */
+    private static int lowerBound(int from, int to, IntPredicate predicate) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (predicate.test(middle)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private static Course copy(Course course) {
+        return new Course(course.getId(), course.getName(), course.getProfessor(), course.getCredits());
+    }
+
+    @Override
+    public int size() {
+        return basePositions.length + added.length;
+    }
+
+    @Override
+    public Course get(int position) {
+        return position < basePositions.length ? base.get(basePositions[position]) : copy(added[position - basePositions.length]);
+    }
+
+    @Override
+    public int getId(int position) {
+        return position < basePositions.length ? base.getId(basePositions[position]) : added[position - basePositions.length].getId();
+    }
+
+    @Override
+    public int getCredits(int position) {
+        return position < basePositions.length ? base.getCredits(basePositions[position]) : added[position - basePositions.length].getCredits();
+    }
+
+    @Override
+    public String getName(int position) {
+        return position < basePositions.length ? base.getName(basePositions[position]) : added[position - basePositions.length].getName();
+    }
+
+    @Override
+    public String getProfessor(int position) {
+        return position < basePositions.length ? base.getProfessor(basePositions[position]) : added[position - basePositions.length].getProfessor();
+    }
+
+    @Override
+    public IntBuffer order(CourseCatalog.SortField field) {
+        return IntBuffer.wrap(orders[field.ordinal()]).asReadOnlyBuffer();
+    }
+}
@@ -1,3 +1,5 @@
+package compunet.webserver;
+
 import java.util.List;
 
 /**
@@ -10,13 +12,26 @@ public class Page<T> {
     private int size; 
     private long totalElements; 
     private int totalPages; 
+    private String previousCursor;
+    private String nextCursor;
 
     public Page(List<T> content, int number, int size, long totalElements, int totalPages) {
+        this(content, number, size, totalElements, totalPages, null, null);
+    }
+
+    /**
+     * Página con cursores (formato "clave,id") hacia la página anterior y la siguiente;
+     * null indica que no hay más resultados en esa dirección
+     */
+    public Page(List<T> content, int number, int size, long totalElements, int totalPages,
+                String previousCursor, String nextCursor) {
         this.content = content;
         this.number = number;
         this.size = size;
         this.totalElements = totalElements;
         this.totalPages = totalPages;
+        this.previousCursor = previousCursor;
+        this.nextCursor = nextCursor;
     }
 
 
@@ -40,6 +55,20 @@ public class Page<T> {
         return totalPages;
     }
 
+    /**
+     * Cursor para pedir la página anterior con before=
+     */
+    public String getPreviousCursor() {
+        return previousCursor;
+    }
+
+    /**
+     * Cursor para pedir la página siguiente con after=
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
     public boolean isFirst() {
         return number == 0;
     }
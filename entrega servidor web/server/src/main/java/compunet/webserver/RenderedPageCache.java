@@ -0,0 +1,209 @@
+package compunet.webserver;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché de páginas HTML generadas (listado de cursos) indexada por los parámetros normalizados
+ * Guarda los bytes ya codificados y, bajo demanda, sus variantes comprimidas, con un presupuesto
+ * total de bytes y expulsión LRU. Cada entrada caduca tras el TTL y todas se descartan cuando
+ * cambia la versión del catálogo (ver CourseManager.getCatalogVersion)
+ */
+public class RenderedPageCache {
+
+    /** Costo fijo estimado de una entrada (clave, mapa de variantes) */
+    private static final long ENTRY_OVERHEAD = 256;
+
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+    private long catalogVersion = -1;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param maxBytes presupuesto total; 0 desactiva la caché
+     * @param ttlMillis tiempo de vida de cada página generada
+     */
+    public RenderedPageCache(long maxBytes, long ttlMillis) {
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Página generada: el HTML en UTF-8 y sus variantes gzip/deflate
+     * Los arreglos no se modifican después de crearse, así que se comparten entre respuestas
+     */
+    public static class Entry {
+        private final byte[] body;
+        private final long createdAt;
+        private final Map<String, byte[]> encodedBodies = new ConcurrentHashMap<>();
+        /** Bytes que la entrada descuenta del presupuesto; solo se modifica con el lock de la caché */
+        private long cost;
+
+        Entry(byte[] body) {
+            this.body = body;
+            this.createdAt = System.currentTimeMillis();
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+
+    /**
+     * Página guardada para la clave, o null si no está, caducó o es de otra versión del catálogo
+     */
+    public Entry get(String key, long version) {
+        if (maxBytes == 0) {
+            return null;
+        }
+        synchronized (this) {
+            checkVersion(version);
+            Entry entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.createdAt >= ttlMillis) {
+                entries.remove(key);
+                currentBytes -= entry.cost;
+                invalidations.incrementAndGet();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.incrementAndGet();
+            } else {
+                hits.incrementAndGet();
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Guarda la página generada con la versión del catálogo leída antes de generarla
+     * Devuelve la entrada aunque no se guarde (caché desactivada, página demasiado grande
+     * o el catálogo cambió mientras se generaba)
+     */
+    public Entry put(String key, long version, byte[] body) {
+        Entry entry = new Entry(body);
+        entry.cost = ENTRY_OVERHEAD + body.length;
+        if (entry.cost > maxBytes / 4) {
+            return entry;
+        }
+        synchronized (this) {
+            checkVersion(version);
+            if (version != catalogVersion) {
+                return entry;
+            }
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                currentBytes -= previous.cost;
+            }
+            currentBytes += entry.cost;
+            evict(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Variante comprimida de la página, calculada una sola vez por entrada
+     * y descontada del mismo presupuesto
+     */
+    public byte[] getEncodedBody(String key, Entry entry, String encoding) throws IOException {
+        byte[] encoded = entry.encodedBodies.get(encoding);
+        if (encoded == null) {
+            byte[] compressed = ContentEncoding.encode(entry.body, encoding);
+            encoded = entry.encodedBodies.putIfAbsent(encoding, compressed);
+            if (encoded == null) {
+                encoded = compressed;
+                addCost(key, entry, compressed.length);
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * Descarta todas las páginas guardadas
+     */
+    public synchronized void invalidateAll() {
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    /**
+     * Una versión más nueva del catálogo invalida todo lo guardado; una más vieja
+     * (consulta que empezó antes del cambio) no se guarda
+     */
+    private void checkVersion(long version) {
+        if (version > catalogVersion) {
+            invalidateAll();
+            catalogVersion = version;
+        }
+    }
+
+    private synchronized void addCost(String key, Entry entry, long bytes) {
+        if (entries.get(key) == entry) {
+            entry.cost += bytes;
+            currentBytes += bytes;
+            evict(entry);
+        }
+    }
+
+    /**
+     * Expulsa las entradas menos usadas hasta respetar el presupuesto, sin tocar la actual
+     */
+    private void evict(Entry current) {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            if (evicted == current) {
+                continue;
+            }
+            eldest.remove();
+            currentBytes -= evicted.cost;
+            evictions.incrementAndGet();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return "RenderedPageCache{" +
+                "hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", evictions=" + getEvictions() +
+                ", invalidations=" + getInvalidations() +
+                ", entries=" + getEntryCount() +
+                ", bytes=" + getCurrentBytes() + "/" + maxBytes +
+                '}';
+    }
+}
@@ -0,0 +1,1023 @@
+package compunet.webserver;
+
+import java.io.*;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enrutador de solicitudes compartido por los motores del servidor
+ * Resuelve la ruta solicitada (/courses, /courses.html, /api/courses o archivo estático) en una
+ * HTTPResponse. Solo la API de cursos acepta POST, PUT y DELETE; el resto es de solo lectura
+ */
+public class RequestRouter {
+
+    private static final int MAX_RANGES = 16;
+    /** Páginas numeradas que se muestran a cada lado de la actual */
+    private static final int PAGER_WINDOW = 2;
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private String baseDir = "public";
+    private StaticFileCache staticCache;
+    private CacheControlPolicy cacheControl;
+    private boolean compression;
+    private RenderedPageCache pageCache;
+    private TemplateEngine templates;
+    private AccessLog accessLog;
+    private boolean debugLog;
+    private ServerMetrics metrics = new ServerMetrics();
+    private boolean metricsEnabled;
+    private int maxPageSize;
+
+    public RequestRouter() {
+        this(new ServerConfig());
+    }
+
+    public RequestRouter(ServerConfig config) {
+        this.staticCache = new StaticFileCache(config.getStaticCacheBytes(), config.getStaticCacheMaxFileSize());
+        this.cacheControl = new CacheControlPolicy(config.getCacheControlRules());
+        this.compression = config.isCompressionEnabled();
+        // En modo desarrollo las páginas no se guardan, para ver de inmediato los cambios en las plantillas
+        this.pageCache = new RenderedPageCache(config.isDevMode() ? 0 : config.getPageCacheBytes(),
+                config.getPageCacheTtl() * 1000L);
+        try {
+            this.templates = new TemplateEngine(Paths.get(config.getTemplatesDir()), config.isDevMode());
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudieron compilar las plantillas: " + e.getMessage(), e);
+        }
+        this.debugLog = config.isDebugLog();
+        if (config.getAccessLogFile() != null) {
+            try {
+                this.accessLog = new AccessLog(Paths.get(config.getAccessLogFile()), config.getAccessLogBuffer(),
+                        config.getAccessLogFullPolicy(), config.getAccessLogMaxBytes(),
+                        config.getAccessLogRotateInterval() * 1000L);
+            } catch (IOException e) {
+                throw new IllegalStateException("No se pudo abrir el registro de accesos: " + e.getMessage(), e);
+            }
+        }
+        this.metricsEnabled = config.isMetricsEnabled();
+        this.maxPageSize = config.getMaxPageSize();
+        registerMetrics();
+    }
+
+    /**
+     * Expone en /metrics los contadores de las cachés y del registro de accesos
+     */
+    private void registerMetrics() {
+        metrics.counter("static_cache_hits_total", "Archivos servidos desde la caché", staticCache::getHits);
+        metrics.counter("static_cache_misses_total", "Archivos leídos del disco", staticCache::getMisses);
+        metrics.counter("static_cache_evictions_total", "Archivos desalojados de la caché", staticCache::getEvictions);
+        metrics.gauge("static_cache_bytes", "Bytes en la caché de archivos", staticCache::getCurrentBytes);
+        metrics.gauge("static_cache_entries", "Archivos en la caché", staticCache::getEntryCount);
+        metrics.counter("page_cache_hits_total", "Páginas de cursos reutilizadas", pageCache::getHits);
+        metrics.counter("page_cache_misses_total", "Páginas de cursos generadas", pageCache::getMisses);
+        metrics.counter("page_cache_evictions_total", "Páginas desalojadas de la caché", pageCache::getEvictions);
+        metrics.gauge("page_cache_bytes", "Bytes en la caché de páginas", pageCache::getCurrentBytes);
+        metrics.gauge("page_cache_entries", "Páginas en la caché", pageCache::getEntryCount);
+        if (accessLog != null) {
+            metrics.counter("access_log_written_total", "Líneas escritas en el registro de accesos", accessLog::getWritten);
+            metrics.counter("access_log_dropped_total", "Líneas descartadas con el buffer lleno o sin archivo abierto",
+                    accessLog::getDropped);
+        }
+    }
+
+    /**
+     * Escribe lo que queda del registro de accesos; se llama al apagar, ya sin solicitudes en curso
+     */
+    public void close() {
+        if (accessLog == null) {
+            return;
+        }
+        try {
+            accessLog.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Métricas del servidor; los motores agregan las de conexiones y del pool
+     */
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Registra una solicitud ya respondida: métricas de su ruta y registro de accesos
+     *
+     * @param request la solicitud, o null si no se pudo interpretar
+     * @param startNanos System.nanoTime() al empezar a atenderla
+     */
+    public void requestCompleted(String remoteAddress, HttpRequest request, HTTPResponse response, long startNanos) {
+        long bodyBytes = response.getSentBodyLength();
+        metrics.recordRequest(request != null ? routeOf(request.getPath()) : "-", response.getStatusCode(),
+                (System.nanoTime() - startNanos) / 1000, bodyBytes);
+        if (accessLog == null) {
+            return;
+        }
+        accessLog.log(remoteAddress,
+                request != null ? request.getRequestLine() : null,
+                response.getStatusCode(),
+                bodyBytes,
+                request != null ? request.getHeader("referer") : null,
+                request != null ? request.getHeader("user-agent") : null,
+                startNanos);
+    }
+
+    /**
+     * Nombre de la ruta para las métricas; los archivos estáticos y los ids se agrupan
+     * para que la cantidad de series no dependa de lo que pidan los clientes
+     */
+    static String routeOf(String path) {
+        switch (path) {
+            case "/courses":
+            case "/courses.html":
+            case "/courses/search":
+            case "/courses/suggest":
+            case "/api/courses":
+            case "/metrics":
+                return path;
+            default:
+                return path.startsWith("/api/courses/") ? "/api/courses/{id}" : "static";
+        }
+    }
+
+    /**
+     * Indica si atender la solicitud espera a otro hilo: las escrituras de la API esperan a que
+     * CatalogWriter publique (y registre) el cambio. El motor NIO las atiende fuera del event loop
+     */
+    public boolean isBlocking(HttpRequest request) {
+        return request.getPath().startsWith("/api/courses") && !request.isMethod("GET");
+    }
+
+    /**
+     * Maneja diferentes tipos de solicitudes
+     * Un parámetro inválido se responde con 400 (en JSON para la API)
+     */
+    public HTTPResponse handleRequest(HttpRequest request) throws IOException {
+        try {
+            return route(request);
+        } catch (HttpParseException e) {
+            if (request.getPath().startsWith("/api/")) {
+                return jsonError(e.getStatusCode(), e.getMessage());
+            }
+            return parseError(e);
+        }
+    }
+
+    private HTTPResponse route(HttpRequest request) throws IOException {
+        String cleanPath = request.getPath();
+        if (cleanPath.equals("/")) {
+            cleanPath = "/index.html";
+        }
+
+        if (debugLog) {
+            System.out.println("[INFO] Ruta solicitada: " + cleanPath);
+        }
+
+        String method = request.getMethod();
+        if (cleanPath.equals("/api/courses")) {
+            switch (method) {
+                case "GET":
+                    return compress(jsonResponse(200, json -> CourseJson.writePage(json, findCoursePage(request))), request);
+                case "POST":
+                    return createCourse(request);
+                default:
+                    return methodNotAllowed("GET, POST", true);
+            }
+        } else if (cleanPath.startsWith("/api/courses/")) {
+            String idText = cleanPath.substring("/api/courses/".length());
+            switch (method) {
+                case "GET":
+                    return compress(serveCourseById(idText), request);
+                case "PUT":
+                    return updateCourse(idText, request);
+                case "DELETE":
+                    return deleteCourse(idText);
+                default:
+                    return methodNotAllowed("GET, PUT, DELETE", true);
+            }
+        } else if (!method.equals("GET")) {
+            return methodNotAllowed("GET", false);
+        } else if (metricsEnabled && cleanPath.equals("/metrics")) {
+            return compress(serveMetrics(), request);
+        } else if (cleanPath.equals("/courses/search")) {
+            return compress(serveSearch(request), request);
+        } else if (cleanPath.equals("/courses/suggest")) {
+            return compress(serveSuggestions(request), request);
+        } else if (cleanPath.equals("/courses")) {
+            return compress(servePaginatedCourses(request), request);
+        } else if (cleanPath.equals("/courses.html")) {
+            return compress(servePaginatedCourses(request), request);
+        } else {
+            return serveFile(cleanPath, request);
+        }
+    }
+
+    /**
+     * /metrics en el formato de texto de Prometheus; nunca se guarda en caché
+     */
+    private HTTPResponse serveMetrics() {
+        HTTPResponse response = new HTTPResponse(200, "text/plain; version=0.0.4; charset=utf-8");
+        response.setBody(metrics.render());
+        response.setHeader("Cache-Control", "no-store");
+        return response;
+    }
+
+    /**
+     * Sirve la página de cursos con paginación, en HTML o JSON según Accept
+     * El HTML se guarda en pageCache por los parámetros normalizados y se reutiliza
+     * mientras no caduque ni cambie el catálogo
+     */
+    private HTTPResponse servePaginatedCourses(HttpRequest request) throws IOException {
+        HTTPResponse response;
+        if (prefersJson(request.getHeader("accept"))) {
+            Page<Course> coursePage = findCoursePage(request);
+            response = jsonResponse(200, json -> CourseJson.writePage(json, coursePage));
+        } else {
+            String key = pageCacheKey(request);
+            long version = CourseManager.getInstance().getCatalogVersion();
+            RenderedPageCache.Entry page = pageCache.get(key, version);
+            if (page == null) {
+                page = pageCache.put(key, version, renderCoursesPage(request));
+            }
+            response = new HTTPResponse(200, "text/html");
+            String encoding = compression ? ContentEncoding.negotiate(request.getHeader("accept-encoding")) : null;
+            if (encoding != null && page.getBody().length >= ContentEncoding.MIN_COMPRESS_SIZE) {
+                response.setBodyBytes(pageCache.getEncodedBody(key, page, encoding));
+                response.setHeader("Content-Encoding", encoding);
+            } else {
+                response.setBodyBytes(page.getBody());
+            }
+        }
+        response.setHeader("Vary", "Accept");
+        return response;
+    }
+
+    /**
+     * Parámetro entero de la consulta; 400 si no es un número o es menor que min
+     */
+    static int intParameter(HttpRequest request, String name, int defaultValue, int min) throws HttpParseException {
+        String value = request.getParameter(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        int parsed;
+        try {
+            parsed = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new HttpParseException(400, "El parámetro " + name + " debe ser un número entero");
+        }
+        if (parsed < min) {
+            throw new HttpParseException(400, "El parámetro " + name + " debe ser al menos " + min);
+        }
+        return parsed;
+    }
+
+    /**
+     * Cursor after/before tal como viene, o null si no viene; 400 si no tiene la forma
+     * "clave,id" o si la clave no es un número cuando se ordena por créditos
+     */
+    static String cursorParameter(HttpRequest request, String name) throws HttpParseException {
+        String value = request.getParameter(name);
+        if (value == null) {
+            return null;
+        }
+        CourseCursor cursor = CourseCursor.parse(value);
+        CourseCatalog.SortField field = CourseCatalog.SortField.fromParameter(request.getParameter("sort"));
+        boolean valid = cursor != null;
+        if (valid && field == CourseCatalog.SortField.CREDITS) {
+            try {
+                Integer.parseInt(cursor.getKey().trim());
+            } catch (NumberFormatException e) {
+                valid = false;
+            }
+        }
+        if (!valid) {
+            throw new HttpParseException(400, "El parámetro " + name + " no es un cursor válido");
+        }
+        return value;
+    }
+
+    /**
+     * Tamaño de página pedido, reducido a max-page-size para que no crezcan sin límite
+     * las páginas ni las entradas de la caché
+     */
+    private int pageSize(HttpRequest request) throws HttpParseException {
+        return Math.min(intParameter(request, "size", 3, 1), maxPageSize);
+    }
+
+    /**
+     * Clave de la página: orden, dirección y tamaño normalizados más el número de página o el cursor
+     */
+    private String pageCacheKey(HttpRequest request) throws HttpParseException {
+        int size = pageSize(request);
+        CourseCatalog.SortField field = CourseCatalog.SortField.fromParameter(request.getParameter("sort"));
+        boolean ascending = "asc".equalsIgnoreCase(request.getParameter("direction", "asc"));
+        StringBuilder key = new StringBuilder(32);
+        key.append(field).append(ascending ? '+' : '-').append(size);
+        String after = cursorParameter(request, "after");
+        String before = cursorParameter(request, "before");
+        if (after != null) {
+            key.append("|after|").append(after);
+        } else if (before != null) {
+            key.append("|before|").append(before);
+        } else {
+            key.append("|page|").append(intParameter(request, "page", 0, 0));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Página pedida por los parámetros: por cursor (after/before) o por número de página
+     */
+    private Page<Course> findCoursePage(HttpRequest request) throws HttpParseException {
+        int page = intParameter(request, "page", 0, 0);
+        int size = pageSize(request);
+        String sort = request.getParameter("sort", "name");
+        String direction = request.getParameter("direction", "asc");
+        String after = cursorParameter(request, "after");
+        String before = cursorParameter(request, "before");
+
+        CourseManager manager = CourseManager.getInstance();
+        if (after != null) {
+            return manager.getCoursesAfter(after, size, sort, direction);
+        } else if (before != null) {
+            return manager.getCoursesBefore(before, size, sort, direction);
+        }
+        return manager.getPaginatedCourses(page, size, sort, direction);
+    }
+
+    /**
+     * /api/courses/{id}: el curso en JSON, o 404 en JSON si el id no existe
+     */
+    private HTTPResponse serveCourseById(String idText) throws IOException {
+        // Un id que no es número tampoco existe
+        Integer id = parseId(idText);
+        Course course = id != null ? CourseManager.getInstance().getCourseById(id) : null;
+        if (course == null) {
+            return jsonError(404, "Curso no encontrado");
+        }
+        Course found = course;
+        return jsonResponse(200, json -> CourseJson.writeCourse(json, found));
+    }
+
+    /**
+     * POST /api/courses: crea el curso del cuerpo y responde 201 con su Location
+     */
+    private HTTPResponse createCourse(HttpRequest request) throws IOException {
+        HTTPResponse invalid = checkJsonBody(request);
+        if (invalid != null) {
+            return invalid;
+        }
+        Course course;
+        try {
+            course = CourseJson.readCourse(request.getBodyAsString());
+        } catch (IllegalArgumentException e) {
+            return jsonError(400, e.getMessage());
+        }
+        Course created = CourseManager.getInstance().createCourse(course);
+        HTTPResponse response = jsonResponse(201, json -> CourseJson.writeCourse(json, created));
+        response.setHeader("Location", "/api/courses/" + created.getId());
+        return response;
+    }
+
+    /**
+     * PUT /api/courses/{id}: reemplaza el curso; 404 si no existe
+     */
+    private HTTPResponse updateCourse(String idText, HttpRequest request) throws IOException {
+        HTTPResponse invalid = checkJsonBody(request);
+        if (invalid != null) {
+            return invalid;
+        }
+        Course course;
+        try {
+            course = CourseJson.readCourse(request.getBodyAsString());
+        } catch (IllegalArgumentException e) {
+            return jsonError(400, e.getMessage());
+        }
+        Integer id = parseId(idText);
+        Course updated = id != null ? CourseManager.getInstance().updateCourse(id, course) : null;
+        if (updated == null) {
+            return jsonError(404, "Curso no encontrado");
+        }
+        return jsonResponse(200, json -> CourseJson.writeCourse(json, updated));
+    }
+
+    /**
+     * DELETE /api/courses/{id}: 204 sin cuerpo, o 404 si no existe
+     */
+    private HTTPResponse deleteCourse(String idText) throws IOException {
+        Integer id = parseId(idText);
+        Course deleted = id != null ? CourseManager.getInstance().deleteCourse(id) : null;
+        if (deleted == null) {
+            return jsonError(404, "Curso no encontrado");
+        }
+        return new HTTPResponse(204, "application/json");
+    }
+
+    /**
+     * Comprueba que la solicitud traiga un cuerpo JSON: 411 sin Content-Length, 415 con otro tipo
+     * Devuelve null si se puede leer
+     */
+    private HTTPResponse checkJsonBody(HttpRequest request) throws IOException {
+        if (request.getHeader("content-length") == null) {
+            return jsonError(411, "Se requiere Content-Length");
+        }
+        String contentType = request.getHeader("content-type");
+        if (contentType == null || !contentType.trim().toLowerCase().startsWith("application/json")) {
+            return jsonError(415, "El cuerpo debe ser application/json");
+        }
+        return null;
+    }
+
+    private static Integer parseId(String idText) {
+        try {
+            return Integer.parseInt(idText);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private HTTPResponse jsonError(int status, String message) throws IOException {
+        return jsonResponse(status, json -> CourseJson.writeError(json, status, message));
+    }
+
+    /**
+     * Respuesta 405 con los métodos que admite la ruta (en JSON para la API)
+     */
+    private HTTPResponse methodNotAllowed(String allow, boolean json) throws IOException {
+        HTTPResponse response;
+        if (json) {
+            response = jsonError(405, "Método no permitido");
+        } else {
+            response = new HTTPResponse(405, "text/plain");
+            response.setBody("405 - Método no permitido");
+        }
+        response.setHeader("Allow", allow);
+        return response;
+    }
+
+    /**
+     * Cuerpo JSON que se escribe en streaming sobre el buffer de la respuesta
+     */
+    private interface JsonBody {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    /**
+     * Serializa el cuerpo directamente a bytes UTF-8 en el buffer que se envía, sin String intermedio
+     */
+    private HTTPResponse jsonResponse(int status, JsonBody body) throws IOException {
+        BodyOutputStream out = new BodyOutputStream(1024);
+        JsonWriter json = new JsonWriter(out);
+        body.write(json);
+        json.flush();
+        HTTPResponse response = new HTTPResponse(status, "application/json");
+        response.setBodyBuffer(out.toByteBuffer());
+        return response;
+    }
+
+    /**
+     * Indica si Accept prefiere JSON sobre HTML; cada tipo toma el valor q del rango más
+     * específico que lo cubre (exacto, luego tipo/* y por último el comodín total);
+     * ante empate gana HTML
+     */
+    static boolean prefersJson(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        return acceptQuality(accept, "application", "json") > acceptQuality(accept, "text", "html");
+    }
+
+    private static double acceptQuality(String accept, String type, String subtype) {
+        double quality = 0;
+        int specificity = -1;
+        for (String range : accept.split(",")) {
+            String[] parts = range.trim().split(";");
+            String mediaRange = parts[0].trim().toLowerCase();
+            int slash = mediaRange.indexOf('/');
+            if (slash < 0) {
+                continue;
+            }
+            String rangeType = mediaRange.substring(0, slash);
+            String rangeSubtype = mediaRange.substring(slash + 1);
+            int rangeSpecificity;
+            if (rangeType.equals(type) && rangeSubtype.equals(subtype)) {
+                rangeSpecificity = 2;
+            } else if (rangeType.equals(type) && rangeSubtype.equals("*")) {
+                rangeSpecificity = 1;
+            } else if (rangeType.equals("*") && rangeSubtype.equals("*")) {
+                rangeSpecificity = 0;
+            } else {
+                continue;
+            }
+            if (rangeSpecificity > specificity) {
+                specificity = rangeSpecificity;
+                quality = 1;
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            quality = Double.parseDouble(parameter.substring(2));
+                        } catch (NumberFormatException e) {
+                            quality = 0;
+                        }
+                    }
+                }
+            }
+        }
+        return quality;
+    }
+
+    /**
+     * Comprime al vuelo una respuesta generada en memoria si el cliente lo acepta
+     */
+    private HTTPResponse compress(HTTPResponse response, HttpRequest request) throws IOException {
+        if (!compression || !ContentEncoding.isCompressible(response.getContentType())) {
+            return response;
+        }
+        String vary = response.getHeader("Vary");
+        response.setHeader("Vary", vary == null ? "Accept-Encoding" : vary + ", Accept-Encoding");
+        if (response.getHeader("Content-Encoding") != null) {
+            return response;
+        }
+        String encoding = ContentEncoding.negotiate(request.getHeader("accept-encoding"));
+        ByteBuffer body = response.getBodyBuffer() != null
+                ? response.getBodyBuffer()
+                : ByteBuffer.wrap(response.getBodyBytes());
+        if (encoding != null && body.remaining() >= ContentEncoding.MIN_COMPRESS_SIZE) {
+            response.setBodyBytes(ContentEncoding.encode(body, encoding));
+            response.setHeader("Content-Encoding", encoding);
+        }
+        return response;
+    }
+
+    /**
+     * Genera el HTML de la página de cursos; los enlaces usan el orden y la dirección normalizados
+     */
+    private byte[] renderCoursesPage(HttpRequest request) throws IOException {
+        Page<Course> coursePage = findCoursePage(request);
+        int size = coursePage.getSize();
+        String sort = CourseCatalog.SortField.fromParameter(request.getParameter("sort")).name().toLowerCase();
+        String direction = "asc".equalsIgnoreCase(request.getParameter("direction", "asc")) ? "asc" : "desc";
+
+        Map<String, Object> model = pageModel("Cursos - Servidor Web", coursePage, "");
+        model.put("size", size);
+        String pageLink = "/courses.html?size=" + size + "&sort=" + sort + "&direction=" + direction;
+        addPager(model, coursePage, pageLink, true);
+
+        BodyOutputStream out = new BodyOutputStream(4096);
+        templates.render("courses", model, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Valores comunes de las páginas de cursos: título, totales y los cursos de la página
+     */
+    private Map<String, Object> pageModel(String title, Page<Course> coursePage, String query) {
+        List<Template.Model> courses = new ArrayList<>(coursePage.getContent().size());
+        for (Course course : coursePage.getContent()) {
+            courses.add(courseModel(course));
+        }
+        Map<String, Object> model = new HashMap<>();
+        model.put("title", title);
+        model.put("query", query);
+        model.put("pageNumber", coursePage.getNumber() + 1);
+        model.put("totalPages", coursePage.getTotalPages());
+        model.put("totalElements", coursePage.getTotalElements());
+        model.put("courses", courses);
+        return model;
+    }
+
+    private Template.Model courseModel(Course course) {
+        return name -> {
+            switch (name) {
+                case "name":
+                    return course.getName();
+                case "professor":
+                    return course.getProfessor();
+                case "credits":
+                    return course.getCredits();
+                case "image":
+                    return getCourseImage(course.getId());
+                default:
+                    return null;
+            }
+        };
+    }
+
+    /**
+     * Sirve los resultados de /courses/search?q= ordenados por relevancia
+     */
+    private HTTPResponse serveSearch(HttpRequest request) throws IOException {
+        String query = request.getParameter("q", "");
+        int page = intParameter(request, "page", 0, 0);
+        int size = pageSize(request);
+        Page<Course> results = CourseManager.getInstance().searchCourses(query, page, size);
+        HTTPResponse response;
+        if (prefersJson(request.getHeader("accept"))) {
+            response = jsonResponse(200, json -> CourseJson.writePage(json, results));
+        } else {
+            Map<String, Object> model = pageModel("Búsqueda de cursos - Servidor Web", results, query);
+            addPager(model, results, "/courses/search?q=" + encode(query) + "&size=" + results.getSize(), false);
+            BodyOutputStream out = new BodyOutputStream(4096);
+            templates.render("search", model, out);
+            response = new HTTPResponse(200, "text/html");
+            response.setBodyBuffer(out.toByteBuffer());
+        }
+        response.setHeader("Vary", "Accept");
+        return response;
+    }
+
+    /**
+     * Autocompletado: nombres de los cursos más relevantes para el prefijo, como arreglo JSON
+     */
+    private HTTPResponse serveSuggestions(HttpRequest request) throws IOException {
+        Page<Course> results = CourseManager.getInstance().searchCourses(request.getParameter("q", ""), 0, MAX_SUGGESTIONS);
+        return jsonResponse(200, json -> {
+            json.beginArray();
+            for (Course course : results.getContent()) {
+                json.value(course.getName());
+            }
+            json.endArray();
+        });
+    }
+
+    /**
+     * Valores del paginador: anterior/siguiente (por cursor si la página los trae) y una ventana
+     * de páginas numeradas alrededor de la actual, en lugar de un enlace por página
+     */
+    private static void addPager(Map<String, Object> model, Page<Course> coursePage, String pageLink, boolean useCursors) {
+        int page = coursePage.getNumber();
+        int totalPages = coursePage.getTotalPages();
+        int windowStart = Math.max(0, page - PAGER_WINDOW);
+        int windowEnd = Math.min(totalPages - 1, page + PAGER_WINDOW);
+        List<PagerLink> links = new ArrayList<>();
+        if (windowStart > 0) {
+            links.add(PagerLink.page(pageLink, 0, false));
+            if (windowStart > 1) {
+                links.add(PagerLink.GAP);
+            }
+        }
+        for (int i = windowStart; i <= windowEnd; i++) {
+            links.add(PagerLink.page(pageLink, i, i == page));
+        }
+        if (windowEnd < totalPages - 1) {
+            if (windowEnd < totalPages - 2) {
+                links.add(PagerLink.GAP);
+            }
+            links.add(PagerLink.page(pageLink, totalPages - 1, false));
+        }
+        model.put("pagerLinks", links);
+
+        if (useCursors && coursePage.getPreviousCursor() != null) {
+            model.put("previousHref", pageLink + "&before=" + encode(coursePage.getPreviousCursor()));
+        } else if (!useCursors && coursePage.hasPrevious()) {
+            model.put("previousHref", pageLink + "&page=" + (page - 1));
+        }
+        if (useCursors && coursePage.getNextCursor() != null) {
+            model.put("nextHref", pageLink + "&after=" + encode(coursePage.getNextCursor()));
+        } else if (!useCursors && coursePage.hasNext()) {
+            model.put("nextHref", pageLink + "&page=" + (page + 1));
+        }
+    }
+
+    /**
+     * Elemento del paginador: enlace a una página, la página actual o un salto (…)
+     */
+    private static final class PagerLink implements Template.Model {
+        static final PagerLink GAP = new PagerLink(null, 0, false, true);
+
+        private final String href;
+        private final int label;
+        private final boolean current;
+        private final boolean gap;
+
+        private PagerLink(String href, int label, boolean current, boolean gap) {
+            this.href = href;
+            this.label = label;
+            this.current = current;
+            this.gap = gap;
+        }
+
+        static PagerLink page(String pageLink, int page, boolean current) {
+            return new PagerLink(pageLink + "&page=" + page, page + 1, current, false);
+        }
+
+        @Override
+        public Object get(String name) {
+            switch (name) {
+                case "href":
+                    return href;
+                case "label":
+                    return label;
+                case "current":
+                    return current;
+                case "gap":
+                    return gap;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Codifica un valor para usarlo en la query string de un enlace
+     */
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            return value;
+        }
+    }
+
+    /**
+     * Sirve un archivo estático desde la carpeta public
+     */
+    private HTTPResponse serveFile(String path, HttpRequest request) throws IOException {
+        if (path.contains("..")) {
+            return notFound();
+        }
+
+        Path filePath = Paths.get(baseDir, path);
+        StaticFileCache.Entry entry = staticCache.get(path, filePath);
+
+        if (debugLog) {
+            System.out.println("[INFO] Sirviendo archivo: " + filePath);
+        }
+
+        if (entry != null) {
+            if (debugLog) {
+                System.out.println("[INFO] Archivo encontrado. Tamaño: " + entry.getSize() + " bytes");
+            }
+
+            String range = request.getHeader("range");
+            boolean compressible = compression && ContentEncoding.isCompressible(entry.getMimeType());
+            // Los rangos se aplican siempre sobre la representación sin comprimir
+            String encoding = compressible && range == null
+                    ? ContentEncoding.negotiate(request.getHeader("accept-encoding"))
+                    : null;
+
+            StaticFileCache.Entry precompressed = null;
+            ByteBuffer encodedBody = null;
+            if (ContentEncoding.GZIP.equals(encoding)) {
+                precompressed = staticCache.get(path + ".gz", Paths.get(baseDir, path + ".gz"), true);
+                if (precompressed != null && precompressed.getLastModified() < entry.getLastModified()) {
+                    precompressed = null;
+                }
+            }
+            if (encoding != null && precompressed == null) {
+                if (entry.getSize() >= ContentEncoding.MIN_COMPRESS_SIZE) {
+                    encodedBody = staticCache.getEncodedBody(path, entry, encoding);
+                }
+                if (encodedBody == null || encodedBody.remaining() >= entry.getSize()) {
+                    encodedBody = null;
+                    encoding = null;
+                }
+            }
+
+            String etag;
+            if (precompressed != null) {
+                etag = precompressed.getEtag();
+            } else if (encoding != null) {
+                etag = entry.getEtag().substring(0, entry.getEtag().length() - 1) + "-" + encoding + "\"";
+            } else {
+                etag = entry.getEtag();
+            }
+
+            if (isNotModified(etag, entry.getLastModified(), request)) {
+                HTTPResponse notModified = new HTTPResponse(304, entry.getMimeType());
+                addValidators(notModified, path, etag, entry.getLastModified(), compressible);
+                return notModified;
+            }
+
+            List<long[]> ranges = null;
+            if (range != null && isIfRangeSatisfied(entry, request.getHeader("if-range"))) {
+                ranges = parseRanges(range, entry.getSize());
+                if (ranges != null && ranges.isEmpty()) {
+                    HTTPResponse unsatisfiable = new HTTPResponse(416, "text/plain");
+                    unsatisfiable.setHeader("Content-Range", "bytes */" + entry.getSize());
+                    return unsatisfiable;
+                }
+            }
+
+            HTTPResponse response = new HTTPResponse(ranges != null ? 206 : 200, entry.getMimeType());
+            addValidators(response, path, etag, entry.getLastModified(), compressible);
+            response.setHeader("Accept-Ranges", "bytes");
+            if (precompressed != null) {
+                response.setHeader("Content-Encoding", ContentEncoding.GZIP);
+                ByteBuffer body = precompressed.getBody();
+                if (body != null) {
+                    response.setBodyBuffer(body);
+                } else {
+                    response.setBodyFile(precompressed.getPath(), precompressed.getSize());
+                }
+            } else if (encodedBody != null) {
+                response.setHeader("Content-Encoding", encoding);
+                response.setBodyBuffer(encodedBody);
+            } else {
+                ByteBuffer body = entry.getBody();
+                if (body != null) {
+                    response.setBodyBuffer(body);
+                } else {
+                    response.setBodyFile(filePath, entry.getSize());
+                }
+                if (ranges != null) {
+                    response.setRanges(ranges);
+                }
+            }
+
+            return response;
+        } else {
+            if (debugLog) {
+                System.out.println("[INFO] Archivo no encontrado: " + path);
+            }
+            return notFound();
+        }
+    }
+
+    /**
+     * Evalúa If-None-Match y, si no viene, If-Modified-Since (RFC 7232)
+     */
+    private boolean isNotModified(String etag, long lastModified, HttpRequest request) {
+        String ifNoneMatch = request.getHeader("if-none-match");
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = HttpDate.parse(request.getHeader("if-modified-since"));
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * If-Range: el rango solo se aplica si el validador coincide con la versión actual
+     * (ETag fuerte o fecha exacta de modificación); si no, se envía el recurso completo
+     */
+    private boolean isIfRangeSatisfied(StaticFileCache.Entry entry, String ifRange) {
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(entry.getEtag());
+        }
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+        long date = HttpDate.parse(ifRange);
+        return date >= 0 && date / 1000 == entry.getLastModified() / 1000;
+    }
+
+    /**
+     * Interpreta "Range: bytes=a-b, c-, -n" contra un recurso de la longitud dada
+     * Devuelve null si el header no es válido o pide demasiados rangos (se ignora y se
+     * responde 200), o una lista vacía si ningún rango es satisfacible (416)
+     */
+    static List<long[]> parseRanges(String header, long length) {
+        header = header.trim();
+        if (!header.startsWith("bytes=")) {
+            return null;
+        }
+        String[] specs = header.substring("bytes=".length()).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+        List<long[]> ranges = new ArrayList<>();
+        for (String spec : specs) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                String first = spec.substring(0, dash).trim();
+                String last = spec.substring(dash + 1).trim();
+                long start;
+                long end;
+                if (first.isEmpty()) {
+                    long suffix = Long.parseLong(last);
+                    start = Math.max(0, length - suffix);
+                    end = length - 1;
+                    if (suffix == 0) {
+                        continue;
+                    }
+                } else {
+                    start = Long.parseLong(first);
+                    end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+                    if (!last.isEmpty() && Long.parseLong(last) < start) {
+                        return null;
+                    }
+                }
+                if (start < 0) {
+                    return null;
+                }
+                if (start < length) {
+                    ranges.add(new long[]{start, end});
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Agrega ETag, Last-Modified, Vary si el tipo admite compresión y,
+     * si hay una regla para la ruta, Cache-Control
+     */
+    private void addValidators(HTTPResponse response, String path, String etag, long lastModified,
+                               boolean compressible) {
+        response.setHeader("ETag", etag);
+        response.setHeader("Last-Modified", HttpDate.format(lastModified));
+        if (compressible) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        String cacheControlValue = cacheControl.forPath(path);
+        if (cacheControlValue != null) {
+            response.setHeader("Cache-Control", cacheControlValue);
+        }
+    }
+
+    /**
+     * Determina el tipo MIME según la extensión del archivo
+     */
+    static String getMimeType(String path) {
+        if (path.endsWith(".html")) {
+            return "text/html";
+        } else if (path.endsWith(".jpg") || path.endsWith(".jpeg")) {
+            return "image/jpeg";
+        } else if (path.endsWith(".gif")) {
+            return "image/gif";
+        } else if (path.endsWith(".png")) {
+            return "image/png";
+        } else if (path.endsWith(".css")) {
+            return "text/css";
+        } else if (path.endsWith(".js")) {
+            return "application/javascript";
+        } else {
+            return "text/plain";
+        }
+    }
+
+    /**
+     * Construye una respuesta 404
+     */
+    public HTTPResponse notFound() {
+        HTTPResponse response = new HTTPResponse(404, "text/html");
+        try {
+            BodyOutputStream out = new BodyOutputStream(512);
+            templates.render("404", Collections.emptyMap(), out);
+            response.setBodyBuffer(out.toByteBuffer());
+        } catch (IOException e) {
+            System.err.println("[ERROR] Error al generar la página 404: " + e.getMessage());
+            response = new HTTPResponse(404, "text/plain");
+            response.setBody("404 - Recurso No Encontrado");
+        }
+        return response;
+    }
+
+    /**
+     * Construye la respuesta para una solicitud que no se pudo interpretar (400 o 431)
+     */
+    public HTTPResponse parseError(HttpParseException e) {
+        HTTPResponse response = new HTTPResponse(e.getStatusCode(), "text/plain");
+        response.setBody(e.getStatusCode() + " - " + e.getMessage());
+        return response;
+    }
+
+    /**
+     * Obtiene la imagen asociada a un curso basado en su ID
+     */
+    private String getCourseImage(int courseId) {
+        switch (courseId) {
+            case 1:
+            case 2:
+                return "/images/curso1.jpg";
+            case 3:
+            case 4:
+                return "/images/curso2.jpg";
+            case 5:
+            case 6:
+                return "/images/curso3.jpg";
+            default:
+                return "/images/mi-imagen.jpg";
+        }
+    }
+}
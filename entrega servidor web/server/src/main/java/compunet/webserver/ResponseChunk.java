@@ -0,0 +1,161 @@
+package compunet.webserver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Fragmento de una respuesta pendiente de envío: bytes en memoria o una región de archivo
+ * Las regiones de archivo se envían con FileChannel.transferTo (sendfile en Linux)
+ */
+public class ResponseChunk {
+
+    private final ByteBuffer buffer;
+    private final FileChannel file;
+    private long position;
+    private final long end;
+    private final boolean closeOnRelease;
+
+    private ResponseChunk(ByteBuffer buffer, FileChannel file, long position, long count, boolean closeOnRelease) {
+        this.buffer = buffer;
+        this.file = file;
+        this.position = position;
+        this.end = position + count;
+        this.closeOnRelease = closeOnRelease;
+    }
+
+    public static ResponseChunk of(ByteBuffer buffer) {
+        return new ResponseChunk(buffer, null, 0, 0, false);
+    }
+
+    public static ResponseChunk of(byte[] bytes) {
+        return of(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Región [position, position + count) del archivo; el chunk cierra el canal al liberarse
+     */
+    public static ResponseChunk ofFile(FileChannel file, long position, long count) {
+        return ofFile(file, position, count, true);
+    }
+
+    /**
+     * Región de un archivo compartido por varios chunks (respuestas multipart);
+     * solo el chunk con closeOnRelease cierra el canal
+     */
+    public static ResponseChunk ofFile(FileChannel file, long position, long count, boolean closeOnRelease) {
+        return new ResponseChunk(null, file, position, count, closeOnRelease);
+    }
+
+    /**
+     * Bytes del fragmento, o null si es una región de archivo
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Indica si el fragmento son bytes en el heap, que conviene escribir por el stream con buffer
+     */
+    public boolean isHeapBuffer() {
+        return buffer != null && buffer.hasArray();
+    }
+
+    /**
+     * Escribe todo lo que el canal acepte sin bloquear
+     * Devuelve true cuando el fragmento se envió completo
+     */
+    public boolean writeTo(WritableByteChannel channel) throws IOException {
+        if (buffer != null) {
+            channel.write(buffer);
+            return !buffer.hasRemaining();
+        }
+        while (position < end) {
+            long sent = file.transferTo(position, end - position, channel);
+            if (sent == 0) {
+                if (position >= file.size()) {
+                    throw new IOException("El archivo se truncó durante el envío");
+                }
+                return false;
+            }
+            position += sent;
+        }
+        return true;
+    }
+
+    /**
+     * Escribe en una sola llamada (gathering write) los fragmentos en memoria consecutivos
+     * al inicio de la cola, por ejemplo headers y cuerpo, sin concatenarlos
+     * Quita de la cola los que se enviaron completos; devuelve true si se enviaron todos
+     * los que se agruparon. scratch se reutiliza entre llamadas y limita cuántos se agrupan
+     */
+    public static boolean writeBuffers(Deque<ResponseChunk> queue, GatheringByteChannel channel,
+                                       ByteBuffer[] scratch) throws IOException {
+        int count = 0;
+        for (ResponseChunk chunk : queue) {
+            if (chunk.buffer == null || count == scratch.length) {
+                break;
+            }
+            scratch[count++] = chunk.buffer;
+        }
+        boolean complete = true;
+        if (count > 0) {
+            channel.write(scratch, 0, count);
+            complete = !scratch[count - 1].hasRemaining();
+            Arrays.fill(scratch, 0, count, null);
+        }
+        while (!queue.isEmpty() && queue.peek().buffer != null && !queue.peek().buffer.hasRemaining()) {
+            queue.poll().release();
+        }
+        return complete;
+    }
+
+    /**
+     * Copia el fragmento a un stream bloqueante, por bloques de tamaño fijo
+     * Se usa cuando el socket no tiene canal o para bytes en el heap
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (buffer != null && buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        ByteBuffer source = buffer;
+        byte[] chunk = new byte[8192];
+        ByteBuffer target = ByteBuffer.wrap(chunk);
+        while (buffer != null ? source.hasRemaining() : position < end) {
+            target.clear();
+            int length;
+            if (buffer != null) {
+                length = Math.min(chunk.length, source.remaining());
+                source.get(chunk, 0, length);
+            } else {
+                target.limit((int) Math.min(chunk.length, end - position));
+                length = file.read(target, position);
+                if (length < 0) {
+                    throw new IOException("El archivo se truncó durante el envío");
+                }
+                position += length;
+            }
+            out.write(chunk, 0, length);
+        }
+    }
+
+    /**
+     * Libera el archivo asociado, si lo hay
+     */
+    public void release() {
+        if (file != null && closeOnRelease) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                System.err.println("[ERROR] Error al cerrar archivo: " + e.getMessage());
+            }
+        }
+    }
+}
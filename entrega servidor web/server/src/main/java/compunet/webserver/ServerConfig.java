@@ -0,0 +1,527 @@
+package compunet.webserver;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Configuración del servidor seleccionable al arranque
+ * Se construye a partir de argumentos de línea de comandos con formato --clave=valor y,
+ * con --config=archivo, de un archivo de propiedades con las mismas claves (clave=valor)
+ */
+public class ServerConfig {
+
+    /**
+     * Modo de ejecución de los ClientHandler
+     */
+    public enum ExecutorMode {
+        POOL,
+        VIRTUAL
+    }
+
+    /**
+     * Motor de red: bloqueante (un ClientHandler por conexión) o NIO con event loops
+     */
+    public enum Engine {
+        BLOCKING,
+        NIO
+    }
+
+    /**
+     * Cuándo el registro de escrituras espera al disco: una vez por lote, una vez por cambio o nunca
+     */
+    public enum WalSync {
+        BATCH,
+        WRITE,
+        OFF
+    }
+
+    private int port = 8080;
+    private Engine engine = Engine.BLOCKING;
+    private int acceptors = 1;
+    private int backlog = 1024;
+    private boolean reusePort = true;
+    private boolean tcpNoDelay = true;
+    private int sendBufferSize;
+    private int receiveBufferSize;
+    private int socketTimeout = 10000;
+    private int eventLoops = Runtime.getRuntime().availableProcessors();
+    private ExecutorMode executorMode = ExecutorMode.POOL;
+    private int poolSize = Runtime.getRuntime().availableProcessors() * 16;
+    private int queueSize = 1024;
+    private int keepAliveTimeout = 5000;
+    private int maxKeepAliveRequests = 100;
+    private long staticCacheBytes = 64L * 1024 * 1024;
+    private long staticCacheMaxFileSize = 1024 * 1024;
+    private String cacheControlRules = "/images/*=86400;*.html=0";
+    private boolean compressionEnabled = true;
+    private String catalogFile;
+    private long pageCacheBytes = 8L * 1024 * 1024;
+    private int pageCacheTtl = 60;
+    private int maxPageSize = 100;
+    private String templatesDir = "templates";
+    private boolean devMode;
+    private String dataDir;
+    private WalSync walSync = WalSync.BATCH;
+    private int snapshotEvery = 10000;
+    private String accessLogFile = "logs/access.log";
+    private int accessLogBuffer = 8192;
+    private AccessLog.FullPolicy accessLogFullPolicy = AccessLog.FullPolicy.DROP;
+    private long accessLogMaxBytes = 10L * 1024 * 1024;
+    private int accessLogRotateInterval = 86400;
+    private boolean debugLog;
+    private boolean metricsEnabled = true;
+    private int shutdownTimeout = 30;
+
+    /**
+     * Construye la configuración a partir de los argumentos de main
+     * El archivo de --config se aplica primero, así los argumentos tienen prioridad sobre él
+     */
+    public static ServerConfig fromArgs(String[] args) {
+        ServerConfig config = new ServerConfig();
+        for (String arg : args) {
+            if (arg.startsWith("--config=")) {
+                config.load(Paths.get(arg.substring("--config=".length())));
+            }
+        }
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("[ERROR] Argumento ignorado: " + arg);
+                continue;
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (!key.equals("config")) {
+                config.set(key, value);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Aplica las opciones de un archivo de propiedades (clave=valor, # para comentarios)
+     */
+    public void load(Path file) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            System.err.println("[ERROR] No se pudo leer la configuración " + file + ": " + e.getMessage());
+            return;
+        }
+        for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+            set(key, properties.getProperty(key).trim());
+        }
+    }
+
+    /**
+     * Asigna una opción por nombre
+     */
+    public void set(String key, String value) {
+        try {
+            switch (key) {
+                case "port":
+                    int parsedPort = Integer.parseInt(value);
+                    if (parsedPort < 0 || parsedPort > 65535) {
+                        throw new IllegalArgumentException(value);
+                    }
+                    port = parsedPort;
+                    break;
+                case "acceptors":
+                    acceptors = Math.max(1, Integer.parseInt(value));
+                    break;
+                case "backlog":
+                    backlog = Math.max(1, Integer.parseInt(value));
+                    break;
+                case "reuse-port":
+                    reusePort = parseSwitch(value);
+                    break;
+                case "tcp-no-delay":
+                    tcpNoDelay = parseSwitch(value);
+                    break;
+                case "send-buffer":
+                    sendBufferSize = Math.max(0, Integer.parseInt(value));
+                    break;
+                case "receive-buffer":
+                    receiveBufferSize = Math.max(0, Integer.parseInt(value));
+                    break;
+                case "socket-timeout":
+                    socketTimeout = Math.max(0, Integer.parseInt(value));
+                    break;
+                case "engine":
+                    engine = Engine.valueOf(value.toUpperCase());
+                    break;
+                case "event-loops":
+                    eventLoops = Math.max(1, Integer.parseInt(value));
+                    break;
+                case "mode":
+                    executorMode = ExecutorMode.valueOf(value.toUpperCase());
+                    break;
+                case "pool-size":
+                    poolSize = Math.max(1, Integer.parseInt(value));
+                    break;
+                case "queue-size":
+                    queueSize = Math.max(0, Integer.parseInt(value));
+                    break;
+                case "keep-alive-timeout":
+                    keepAliveTimeout = Math.max(0, Integer.parseInt(value));
+                    break;
+                case "max-requests":
+                    maxKeepAliveRequests = Math.max(1, Integer.parseInt(value));
+                    break;
+                case "static-cache-bytes":
+                    staticCacheBytes = Math.max(0, Long.parseLong(value));
+                    break;
+                case "compression":
+                    compressionEnabled = parseSwitch(value);
+                    break;
+                case "cache-control":
+                    cacheControlRules = value;
+                    break;
+                case "catalog":
+                    catalogFile = value.isEmpty() ? null : value;
+                    break;
+                case "page-cache-bytes":
+                    pageCacheBytes = Math.max(0, Long.parseLong(value));
+                    break;
+                case "page-cache-ttl":
+                    pageCacheTtl = Math.max(0, Integer.parseInt(value));
+                    break;
+                case "max-page-size":
+                    maxPageSize = Math.max(1, Integer.parseInt(value));
+                    break;
+                case "templates":
+                    templatesDir = value;
+                    break;
+                case "dev-mode":
+                    devMode = parseSwitch(value);
+                    break;
+                case "data-dir":
+                    dataDir = value.isEmpty() ? null : value;
+                    break;
+                case "wal-sync":
+                    walSync = WalSync.valueOf(value.toUpperCase());
+                    break;
+                case "snapshot-every":
+                    snapshotEvery = Math.max(1, Integer.parseInt(value));
+                    break;
+                case "access-log":
+                    accessLogFile = value.isEmpty() ? null : value;
+                    break;
+                case "access-log-buffer":
+                    accessLogBuffer = Math.max(2, Integer.parseInt(value));
+                    break;
+                case "access-log-full":
+                    accessLogFullPolicy = AccessLog.FullPolicy.valueOf(value.toUpperCase());
+                    break;
+                case "access-log-max-bytes":
+                    accessLogMaxBytes = Math.max(0, Long.parseLong(value));
+                    break;
+                case "access-log-rotate":
+                    accessLogRotateInterval = Math.max(0, Integer.parseInt(value));
+                    break;
+                case "debug-log":
+                    debugLog = parseSwitch(value);
+                    break;
+                case "metrics":
+                    metricsEnabled = parseSwitch(value);
+                    break;
+                case "shutdown-timeout":
+                    shutdownTimeout = Math.max(0, Integer.parseInt(value));
+                    break;
+                case "static-cache-max-file":
+                    staticCacheMaxFileSize = Math.min(Integer.MAX_VALUE, Math.max(0, Long.parseLong(value)));
+                    break;
+                default:
+                    System.err.println("[ERROR] Opción desconocida: " + key);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("[ERROR] Valor inválido para " + key + ": " + value);
+        }
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Hilos que aceptan conexiones en el motor bloqueante
+     */
+    public int getAcceptors() {
+        return acceptors;
+    }
+
+    /**
+     * Conexiones que el kernel mantiene en espera de accept (limitado por net.core.somaxconn)
+     */
+    public int getBacklog() {
+        return backlog;
+    }
+
+    /**
+     * Un socket de escucha por aceptador (o por event loop) con SO_REUSEPORT, si está disponible
+     */
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * SO_SNDBUF de las conexiones en bytes; 0 deja el valor del sistema
+     */
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    /**
+     * SO_RCVBUF de las conexiones en bytes; 0 deja el valor del sistema
+     */
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    /**
+     * Milisegundos que se espera el resto de una solicitud ya empezada; 0 sin límite
+     */
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public int getEventLoops() {
+        return eventLoops;
+    }
+
+    public ExecutorMode getExecutorMode() {
+        return executorMode;
+    }
+
+    /**
+     * Interpreta on/off, true/false
+     */
+    private static boolean parseSwitch(String value) {
+        if (value.equalsIgnoreCase("on") || value.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("off") || value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException(value);
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * Tiempo máximo de inactividad de una conexión persistente, en milisegundos
+     */
+    public int getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    /**
+     * Número máximo de solicitudes atendidas por conexión
+     */
+    public int getMaxKeepAliveRequests() {
+        return maxKeepAliveRequests;
+    }
+
+    /**
+     * Presupuesto total de la caché de archivos estáticos, en bytes
+     */
+    public long getStaticCacheBytes() {
+        return staticCacheBytes;
+    }
+
+    /**
+     * Tamaño máximo de un archivo que se guarda en la caché; los mayores se envían desde disco
+     */
+    public long getStaticCacheMaxFileSize() {
+        return staticCacheMaxFileSize;
+    }
+
+    /**
+     * Reglas de Cache-Control por ruta, ver CacheControlPolicy
+     */
+    public String getCacheControlRules() {
+        return cacheControlRules;
+    }
+
+    /**
+     * Compresión gzip/deflate de las respuestas de texto según Accept-Encoding
+     */
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    /**
+     * Archivo del catálogo generado con CourseImporter; null usa los cursos de prueba
+     */
+    public String getCatalogFile() {
+        return catalogFile;
+    }
+
+    /**
+     * Presupuesto de la caché de páginas de cursos generadas, en bytes; 0 la desactiva
+     */
+    public long getPageCacheBytes() {
+        return pageCacheBytes;
+    }
+
+    /**
+     * Segundos que una página de cursos generada se reutiliza antes de volver a generarse
+     */
+    public int getPageCacheTtl() {
+        return pageCacheTtl;
+    }
+
+    /**
+     * Tamaño máximo de página que se acepta en size; uno mayor se reduce a este
+     */
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+
+    /**
+     * Carpeta de las plantillas HTML, ver TemplateEngine
+     */
+    public String getTemplatesDir() {
+        return templatesDir;
+    }
+
+    /**
+     * Modo desarrollo: las plantillas se recompilan al cambiar y no se guardan páginas generadas
+     */
+    public boolean isDevMode() {
+        return devMode;
+    }
+
+    /**
+     * Carpeta del almacenamiento durable (CourseStorage); null deja los cambios solo en memoria
+     */
+    public String getDataDir() {
+        return dataDir;
+    }
+
+    public WalSync getWalSync() {
+        return walSync;
+    }
+
+    /**
+     * Cambios registrados tras los cuales se escribe una instantánea nueva del catálogo
+     */
+    public int getSnapshotEvery() {
+        return snapshotEvery;
+    }
+
+    /**
+     * Archivo del registro de accesos; null lo desactiva
+     */
+    public String getAccessLogFile() {
+        return accessLogFile;
+    }
+
+    /**
+     * Entradas que el registro de accesos acumula en memoria antes de aplicar la política de lleno
+     */
+    public int getAccessLogBuffer() {
+        return accessLogBuffer;
+    }
+
+    public AccessLog.FullPolicy getAccessLogFullPolicy() {
+        return accessLogFullPolicy;
+    }
+
+    /**
+     * Tamaño a partir del cual rota el registro de accesos, en bytes; 0 sin límite
+     */
+    public long getAccessLogMaxBytes() {
+        return accessLogMaxBytes;
+    }
+
+    /**
+     * Segundos tras los cuales rota el registro de accesos; 0 nunca
+     */
+    public int getAccessLogRotateInterval() {
+        return accessLogRotateInterval;
+    }
+
+    /**
+     * Muestra en consola la solicitud, sus headers y la ruta resuelta (solo para depurar)
+     */
+    public boolean isDebugLog() {
+        return debugLog;
+    }
+
+    /**
+     * Publica las métricas del servidor en GET /metrics
+     */
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * Segundos que el apagado espera a las solicitudes en curso antes de cortarlas
+     */
+    public int getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    @Override
+    public String toString() {
+        return "ServerConfig{" +
+                "port=" + port +
+                ", engine=" + engine +
+                ", acceptors=" + acceptors +
+                ", backlog=" + backlog +
+                ", reusePort=" + reusePort +
+                ", tcpNoDelay=" + tcpNoDelay +
+                ", sendBufferSize=" + sendBufferSize +
+                ", receiveBufferSize=" + receiveBufferSize +
+                ", socketTimeout=" + socketTimeout +
+                ", eventLoops=" + eventLoops +
+                ", executorMode=" + executorMode +
+                ", poolSize=" + poolSize +
+                ", queueSize=" + queueSize +
+                ", keepAliveTimeout=" + keepAliveTimeout +
+                ", maxKeepAliveRequests=" + maxKeepAliveRequests +
+                ", staticCacheBytes=" + staticCacheBytes +
+                ", staticCacheMaxFileSize=" + staticCacheMaxFileSize +
+                ", cacheControlRules='" + cacheControlRules + '\'' +
+                ", compressionEnabled=" + compressionEnabled +
+                ", catalogFile=" + catalogFile +
+                ", pageCacheBytes=" + pageCacheBytes +
+                ", pageCacheTtl=" + pageCacheTtl +
+                ", maxPageSize=" + maxPageSize +
+                ", templatesDir='" + templatesDir + '\'' +
+                ", devMode=" + devMode +
+                ", dataDir=" + dataDir +
+                ", walSync=" + walSync +
+                ", snapshotEvery=" + snapshotEvery +
+                ", accessLogFile=" + accessLogFile +
+                ", accessLogBuffer=" + accessLogBuffer +
+                ", accessLogFullPolicy=" + accessLogFullPolicy +
+                ", accessLogMaxBytes=" + accessLogMaxBytes +
+                ", accessLogRotateInterval=" + accessLogRotateInterval +
+                ", debugLog=" + debugLog +
+                ", metricsEnabled=" + metricsEnabled +
+                ", shutdownTimeout=" + shutdownTimeout +
+                '}';
+    }
+}
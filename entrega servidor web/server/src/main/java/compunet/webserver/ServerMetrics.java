@@ -0,0 +1,190 @@
+package compunet.webserver;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Métricas del servidor en formato de texto de Prometheus (GET /metrics)
+ * Los contadores son LongAdder (un contador por núcleo, sin contención entre hilos) y las
+ * latencias se guardan en un LatencyHistogram por ruta y código de estado. Los valores que
+ * ya lleva otra clase (cachés, registro de accesos, pool) se leen solo al generar la respuesta
+ */
+public class ServerMetrics {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * Contadores de una ruta con un código de estado
+     */
+    private static final class RouteStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder bytes = new LongAdder();
+    }
+
+    /**
+     * Valor que se lee al generar la respuesta
+     */
+    private static final class Gauge {
+        private final String name;
+        private final String type;
+        private final String help;
+        private final LongSupplier value;
+
+        Gauge(String name, String type, String help, LongSupplier value) {
+            this.name = name;
+            this.type = type;
+            this.help = help;
+            this.value = value;
+        }
+    }
+
+    private final ConcurrentMap<String, RouteStats> routes = new ConcurrentHashMap<>();
+    private final List<Gauge> gauges = new ArrayList<>();
+    private final LongAdder connectionsAccepted = new LongAdder();
+    private final LongAdder connectionsRejected = new LongAdder();
+    private final LongAdder activeConnections = new LongAdder();
+    private final long startMillis = System.currentTimeMillis();
+
+    public ServerMetrics() {
+        gauge("server_uptime_seconds", "Segundos desde el arranque",
+                () -> (System.currentTimeMillis() - startMillis) / 1000);
+        counter("http_connections_accepted_total", "Conexiones aceptadas", connectionsAccepted::sum);
+        counter("http_connections_rejected_total", "Conexiones rechazadas con 503 por el pool lleno",
+                connectionsRejected::sum);
+        gauge("http_connections_active", "Conexiones abiertas", activeConnections::sum);
+        gauge("jvm_memory_used_bytes", "Memoria del heap en uso",
+                () -> Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+        gauge("jvm_threads", "Hilos vivos de la JVM", () -> ManagementFactory.getThreadMXBean().getThreadCount());
+        gauge("catalog_courses", "Cursos del catálogo vigente",
+                () -> CourseManager.getInstance().getCatalog().size());
+        counter("catalog_version", "Cambios publicados del catálogo",
+                () -> CourseManager.getInstance().getCatalogVersion());
+    }
+
+    /**
+     * Registra un valor que sube y baja (tamaño de una cola, bytes en caché...)
+     */
+    public synchronized void gauge(String name, String help, LongSupplier value) {
+        gauges.add(new Gauge(name, "gauge", help, value));
+    }
+
+    /**
+     * Registra un contador que ya lleva otra clase (aciertos de una caché...)
+     */
+    public synchronized void counter(String name, String help, LongSupplier value) {
+        gauges.add(new Gauge(name, "counter", help, value));
+    }
+
+    /**
+     * Suma una solicitud atendida: su latencia y los bytes del cuerpo enviado
+     */
+    public void recordRequest(String route, int status, long latencyMicros, long bodyBytes) {
+        String key = route + ' ' + status;
+        RouteStats stats = routes.get(key);
+        if (stats == null) {
+            stats = routes.computeIfAbsent(key, ignored -> new RouteStats());
+        }
+        stats.latency.record(latencyMicros);
+        stats.bytes.add(bodyBytes);
+    }
+
+    public void connectionAccepted() {
+        connectionsAccepted.increment();
+    }
+
+    public void connectionRejected() {
+        connectionsRejected.increment();
+    }
+
+    public void connectionOpened() {
+        activeConnections.increment();
+    }
+
+    public void connectionClosed() {
+        activeConnections.decrement();
+    }
+
+    /**
+     * Texto de la respuesta de /metrics (formato de exposición 0.0.4)
+     */
+    public String render() {
+        StringBuilder out = new StringBuilder(4096);
+        // Ordenadas para que la salida sea estable entre consultas
+        Map<String, RouteStats> sorted = new TreeMap<>(routes);
+        Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+        for (Map.Entry<String, RouteStats> entry : sorted.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().latency.snapshot());
+        }
+
+        header(out, "http_requests_total", "counter", "Solicitudes atendidas por ruta y código de estado");
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : snapshots.entrySet()) {
+            out.append("http_requests_total");
+            labels(out, entry.getKey(), null);
+            out.append(' ').append(entry.getValue().getCount()).append('\n');
+        }
+
+        header(out, "http_response_body_bytes_total", "counter", "Bytes de cuerpo enviados por ruta y código de estado");
+        for (Map.Entry<String, RouteStats> entry : sorted.entrySet()) {
+            out.append("http_response_body_bytes_total");
+            labels(out, entry.getKey(), null);
+            out.append(' ').append(entry.getValue().bytes.sum()).append('\n');
+        }
+
+        header(out, "http_request_duration_seconds", "summary",
+                "Tiempo desde que la solicitud está completa hasta que se entrega la respuesta");
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : snapshots.entrySet()) {
+            LatencyHistogram.Snapshot snapshot = entry.getValue();
+            for (double quantile : QUANTILES) {
+                out.append("http_request_duration_seconds");
+                labels(out, entry.getKey(), quantile);
+                out.append(' ').append(seconds(snapshot.getValueAtQuantile(quantile))).append('\n');
+            }
+            out.append("http_request_duration_seconds_sum");
+            labels(out, entry.getKey(), null);
+            out.append(' ').append(seconds(snapshot.getSum())).append('\n');
+            out.append("http_request_duration_seconds_count");
+            labels(out, entry.getKey(), null);
+            out.append(' ').append(snapshot.getCount()).append('\n');
+        }
+
+        List<Gauge> current;
+        synchronized (this) {
+            current = new ArrayList<>(gauges);
+        }
+        for (Gauge gauge : current) {
+            header(out, gauge.name, gauge.type, gauge.help);
+            out.append(gauge.name).append(' ').append(gauge.value.getAsLong()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * {route="...",status="..."} a partir de la clave "ruta estado"
+     */
+    private static void labels(StringBuilder out, String key, Double quantile) {
+        int space = key.lastIndexOf(' ');
+        out.append("{route=\"").append(key, 0, space)
+                .append("\",status=\"").append(key, space + 1, key.length()).append('"');
+        if (quantile != null) {
+            out.append(",quantile=\"").append(quantile).append('"');
+        }
+        out.append('}');
+    }
+
+    private static String seconds(long micros) {
+        return String.format(Locale.ROOT, "%.6f", micros / 1_000_000.0);
+    }
+}
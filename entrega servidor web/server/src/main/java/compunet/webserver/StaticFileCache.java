@@ -0,0 +1,315 @@
+package compunet.webserver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché en memoria de archivos estáticos indexada por ruta
+ * Guarda el contenido en ByteBuffers directos con un presupuesto total de bytes y expulsión LRU;
+ * los archivos mayores que maxFileSize solo guardan sus metadatos y se envían con transferTo.
+ * Cada entrada se revalida (fecha de modificación y tamaño) como máximo una vez por segundo
+ */
+public class StaticFileCache {
+
+    private static final long REVALIDATE_INTERVAL_MS = 1000;
+    /** Costo fijo estimado de una entrada, para acotar también las entradas sin contenido */
+    private static final long ENTRY_OVERHEAD = 256;
+
+    private final long maxBytes;
+    private final long maxFileSize;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public StaticFileCache(long maxBytes, long maxFileSize) {
+        this.maxBytes = maxBytes;
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * Entrada de la caché: metadatos del archivo y, si cabe, su contenido
+     */
+    public static class Entry {
+        private final Path path;
+        private final String mimeType;
+        private final long size;
+        private final long lastModified;
+        private final String etag;
+        private final ByteBuffer body;
+        private final Map<String, ByteBuffer> encodedBodies = new ConcurrentHashMap<>();
+        private volatile long lastChecked;
+        /** Bytes que la entrada descuenta del presupuesto; solo se modifica con el lock de la caché */
+        private long cost;
+
+        Entry(Path path, String mimeType, long size, long lastModified, String etag, ByteBuffer body) {
+            this.path = path;
+            this.mimeType = mimeType;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.etag = etag;
+            this.body = body;
+            this.lastChecked = System.currentTimeMillis();
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * ETag fuerte calculado una sola vez al cargar la entrada
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Vista independiente del contenido, o null si el archivo se envía desde disco
+         */
+        public ByteBuffer getBody() {
+            return body != null ? body.duplicate() : null;
+        }
+
+        /**
+         * Indica si es un marcador de archivo inexistente
+         */
+        boolean isMissing() {
+            return size < 0;
+        }
+    }
+
+    /**
+     * Obtiene la entrada del archivo, cargándola o recargándola si cambió en disco
+     * Devuelve null si el archivo no existe o no es un archivo regular
+     */
+    public Entry get(String requestPath, Path filePath) throws IOException {
+        return get(requestPath, filePath, false);
+    }
+
+    /**
+     * Igual que get(), pero con rememberMissing también guarda en la caché que el archivo
+     * no existe (para variantes opcionales como .gz, que se consultan en cada solicitud)
+     */
+    public Entry get(String requestPath, Path filePath, boolean rememberMissing) throws IOException {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(requestPath);
+        }
+
+        if (entry != null) {
+            long now = System.currentTimeMillis();
+            if (now - entry.lastChecked < REVALIDATE_INTERVAL_MS) {
+                hits.incrementAndGet();
+                return entry.isMissing() ? null : entry;
+            }
+            BasicFileAttributes attributes = readAttributes(filePath);
+            boolean unchanged = entry.isMissing()
+                    ? attributes == null || !attributes.isRegularFile()
+                    : attributes != null && attributes.isRegularFile()
+                            && attributes.size() == entry.size
+                            && attributes.lastModifiedTime().toMillis() == entry.lastModified;
+            if (unchanged) {
+                entry.lastChecked = now;
+                hits.incrementAndGet();
+                return entry.isMissing() ? null : entry;
+            }
+            invalidations.incrementAndGet();
+            remove(requestPath, entry);
+        }
+
+        misses.incrementAndGet();
+        BasicFileAttributes attributes = readAttributes(filePath);
+        if (attributes == null || !attributes.isRegularFile()) {
+            if (rememberMissing) {
+                put(requestPath, new Entry(filePath, null, -1, 0, null, null));
+            }
+            return null;
+        }
+        Entry loaded = load(requestPath, filePath, attributes);
+        put(requestPath, loaded);
+        return loaded;
+    }
+
+    /**
+     * Lee el archivo en un buffer directo si su tamaño lo permite
+     */
+    private Entry load(String requestPath, Path filePath, BasicFileAttributes attributes) throws IOException {
+        long size = attributes.size();
+        ByteBuffer body = null;
+        if (size <= maxFileSize && size + ENTRY_OVERHEAD <= maxBytes) {
+            body = ByteBuffer.allocateDirect((int) size);
+            try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+                while (body.hasRemaining() && channel.read(body) >= 0) {
+                    // Lee hasta llenar el buffer o llegar al final
+                }
+            }
+            body.flip();
+            body = body.asReadOnlyBuffer();
+            size = body.remaining();
+        }
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = body != null
+                ? contentEtag(body.duplicate())
+                : "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(size) + "\"";
+        return new Entry(filePath, RequestRouter.getMimeType(requestPath), size, lastModified, etag, body);
+    }
+
+    /**
+     * ETag a partir del contenido (SHA-1 truncado); los archivos que solo se envían
+     * desde disco usan fecha de modificación y tamaño para no leerlos completos
+     */
+    private static String contentEtag(ByteBuffer content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(content);
+            byte[] hash = digest.digest();
+            StringBuilder etag = new StringBuilder("\"");
+            for (int i = 0; i < 10; i++) {
+                etag.append(Character.forDigit((hash[i] >> 4) & 0xF, 16));
+                etag.append(Character.forDigit(hash[i] & 0xF, 16));
+            }
+            return etag.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 no disponible", e);
+        }
+    }
+
+    /**
+     * Variante comprimida (gzip/deflate) del contenido, calculada una sola vez por entrada
+     * y descontada del mismo presupuesto; null si la entrada no tiene contenido en memoria
+     */
+    public ByteBuffer getEncodedBody(String requestPath, Entry entry, String encoding) throws IOException {
+        if (entry.body == null) {
+            return null;
+        }
+        ByteBuffer encoded = entry.encodedBodies.get(encoding);
+        if (encoded == null) {
+            byte[] bytes = ContentEncoding.encode(entry.body, encoding);
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes);
+            direct.flip();
+            encoded = entry.encodedBodies.putIfAbsent(encoding, direct.asReadOnlyBuffer());
+            if (encoded == null) {
+                encoded = entry.encodedBodies.get(encoding);
+                addCost(requestPath, entry, bytes.length);
+            }
+        }
+        return encoded.duplicate();
+    }
+
+    private synchronized void put(String requestPath, Entry entry) {
+        Entry previous = entries.put(requestPath, entry);
+        if (previous != null) {
+            currentBytes -= previous.cost;
+        }
+        entry.cost = ENTRY_OVERHEAD + (entry.body != null ? entry.body.capacity() : 0);
+        currentBytes += entry.cost;
+        evict(entry);
+    }
+
+    private synchronized void addCost(String requestPath, Entry entry, long bytes) {
+        if (entries.get(requestPath) == entry) {
+            entry.cost += bytes;
+            currentBytes += bytes;
+            evict(entry);
+        }
+    }
+
+    /**
+     * Expulsa las entradas menos usadas hasta respetar el presupuesto, sin tocar la actual
+     */
+    private void evict(Entry current) {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            if (evicted == current) {
+                continue;
+            }
+            eldest.remove();
+            currentBytes -= evicted.cost;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private synchronized void remove(String requestPath, Entry entry) {
+        if (entries.get(requestPath) == entry) {
+            entries.remove(requestPath);
+            currentBytes -= entry.cost;
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(Path filePath) {
+        try {
+            return Files.readAttributes(filePath, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "StaticFileCache{" +
+                "hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", evictions=" + getEvictions() +
+                ", invalidations=" + getInvalidations() +
+                ", entries=" + getEntryCount() +
+                ", bytes=" + getCurrentBytes() + "/" + maxBytes +
+                '}';
+    }
+}
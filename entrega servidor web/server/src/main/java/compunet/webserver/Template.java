@@ -0,0 +1,333 @@
+package compunet.webserver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Plantilla HTML compilada por TemplateEngine
+ * El texto fijo queda como arreglos de bytes UTF-8 ya codificados; al renderizar solo se
+ * codifican los valores de los slots, escapados para HTML, directamente en el stream de salida
+ */
+public class Template {
+
+    /**
+     * Valores que la plantilla consulta por nombre; null si no tiene ese valor
+     */
+    public interface Model {
+        Object get(String name);
+    }
+
+    /** Cómo se escribe el valor de un slot */
+    static final int ESCAPE_HTML = 0;
+    static final int RAW = 1;
+    static final int URL = 2;
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes();
+
+    private final String name;
+    private final Node[] nodes;
+
+    Template(String name, Node[] nodes) {
+        this.name = name;
+        this.nodes = nodes;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Escribe la plantilla en out con los valores del modelo (Model o Map)
+     */
+    public void render(Object model, OutputStream out) throws IOException {
+        Output output = new Output(out);
+        renderNodes(nodes, new Scope(model, null), output);
+        output.flush();
+    }
+
+    private static void renderNodes(Node[] nodes, Scope scope, Output out) throws IOException {
+        for (Node node : nodes) {
+            node.render(scope, out);
+        }
+    }
+
+    /**
+     * Parte de una plantilla compilada
+     */
+    abstract static class Node {
+        abstract void render(Scope scope, Output out) throws IOException;
+    }
+
+    /**
+     * Texto fijo ya codificado en UTF-8
+     */
+    static final class Static extends Node {
+        private final byte[] bytes;
+
+        Static(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        void render(Scope scope, Output out) throws IOException {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * {{nombre}}: números sin pasar por String, texto escapado según el filtro
+     */
+    static final class Slot extends Node {
+        private final String name;
+        private final int mode;
+
+        Slot(String name, int mode) {
+            this.name = name;
+            this.mode = mode;
+        }
+
+        @Override
+        void render(Scope scope, Output out) throws IOException {
+            Object value = scope.lookup(name);
+            if (value == null) {
+                return;
+            }
+            if (value instanceof Integer || value instanceof Long) {
+                out.writeNumber(((Number) value).longValue());
+            } else {
+                out.writeText(value instanceof CharSequence ? (CharSequence) value : value.toString(), mode);
+            }
+        }
+    }
+
+    /**
+     * {{#each lista}}...{{/each}}: repite el cuerpo con cada elemento como ámbito interior
+     */
+    static final class Each extends Node {
+        private final String name;
+        private final Node[] body;
+
+        Each(String name, Node[] body) {
+            this.name = name;
+            this.body = body;
+        }
+
+        @Override
+        void render(Scope scope, Output out) throws IOException {
+            Object value = scope.lookup(name);
+            if (!(value instanceof Iterable)) {
+                return;
+            }
+            for (Object item : (Iterable<?>) value) {
+                renderNodes(body, new Scope(item, scope), out);
+            }
+        }
+    }
+
+    /**
+     * {{#if valor}}...{{else}}...{{/if}}: null, false, 0, texto vacío y listas vacías son falsos
+     */
+    static final class If extends Node {
+        private final String name;
+        private final Node[] then;
+        private final Node[] otherwise;
+
+        If(String name, Node[] then, Node[] otherwise) {
+            this.name = name;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+
+        @Override
+        void render(Scope scope, Output out) throws IOException {
+            renderNodes(isTrue(scope.lookup(name)) ? then : otherwise, scope, out);
+        }
+
+        private static boolean isTrue(Object value) {
+            if (value == null) {
+                return false;
+            }
+            if (value instanceof Boolean) {
+                return (Boolean) value;
+            }
+            if (value instanceof Number) {
+                return ((Number) value).longValue() != 0;
+            }
+            if (value instanceof CharSequence) {
+                return ((CharSequence) value).length() > 0;
+            }
+            if (value instanceof Iterable) {
+                return ((Iterable<?>) value).iterator().hasNext();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Ámbitos anidados: un nombre se busca del elemento del ciclo hacia el modelo principal
+     */
+    static final class Scope {
+        private final Object model;
+        private final Scope parent;
+
+        Scope(Object model, Scope parent) {
+            this.model = model;
+            this.parent = parent;
+        }
+
+        Object lookup(String name) {
+            for (Scope scope = this; scope != null; scope = scope.parent) {
+                Object value = null;
+                if (scope.model instanceof Model) {
+                    value = ((Model) scope.model).get(name);
+                } else if (scope.model instanceof Map) {
+                    value = ((Map<?, ?>) scope.model).get(name);
+                }
+                if (value != null) {
+                    return value;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Buffer de salida: codifica en UTF-8 (escapando) sin crear Strings ni arreglos intermedios
+     */
+    static final class Output {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[1024];
+        private int count;
+
+        Output(OutputStream out) {
+            this.out = out;
+        }
+
+        void write(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length - count) {
+                flush();
+                if (bytes.length >= buffer.length) {
+                    out.write(bytes);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, count, bytes.length);
+            count += bytes.length;
+        }
+
+        void writeNumber(long value) throws IOException {
+            if (value < 0) {
+                writeAscii(Long.toString(value));
+                return;
+            }
+            ensure(19);
+            int start = count;
+            do {
+                buffer[count++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+            for (int i = start, j = count - 1; i < j; i++, j--) {
+                byte digit = buffer[i];
+                buffer[i] = buffer[j];
+                buffer[j] = digit;
+            }
+        }
+
+        void writeText(CharSequence text, int mode) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (mode == ESCAPE_HTML) {
+                    switch (c) {
+                        case '<':
+                            writeAscii("&lt;");
+                            continue;
+                        case '>':
+                            writeAscii("&gt;");
+                            continue;
+                        case '&':
+                            writeAscii("&amp;");
+                            continue;
+                        case '"':
+                            writeAscii("&quot;");
+                            continue;
+                        case '\'':
+                            writeAscii("&#39;");
+                            continue;
+                        default:
+                            break;
+                    }
+                }
+                int codePoint = c;
+                if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    codePoint = Character.toCodePoint(c, text.charAt(++i));
+                } else if (Character.isSurrogate(c)) {
+                    codePoint = '?';
+                }
+                if (mode == URL && !isUnreserved(codePoint)) {
+                    writePercentEncoded(codePoint);
+                } else {
+                    writeUtf8(codePoint);
+                }
+            }
+        }
+
+        private static boolean isUnreserved(int c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '.' || c == '_' || c == '~';
+        }
+
+        private void writePercentEncoded(int codePoint) throws IOException {
+            ensure(4 * 3);
+            int start = count;
+            writeUtf8(codePoint);
+            int length = count - start;
+            for (int i = length - 1; i >= 0; i--) {
+                int b = buffer[start + i] & 0xFF;
+                buffer[start + i * 3] = '%';
+                buffer[start + i * 3 + 1] = HEX[b >> 4];
+                buffer[start + i * 3 + 2] = HEX[b & 0xF];
+            }
+            count = start + length * 3;
+        }
+
+        private void writeUtf8(int codePoint) throws IOException {
+            ensure(4);
+            if (codePoint < 0x80) {
+                buffer[count++] = (byte) codePoint;
+            } else if (codePoint < 0x800) {
+                buffer[count++] = (byte) (0xC0 | (codePoint >> 6));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (codePoint < 0x10000) {
+                buffer[count++] = (byte) (0xE0 | (codePoint >> 12));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+            }
+        }
+
+        private void writeAscii(String text) throws IOException {
+            ensure(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                buffer[count++] = (byte) text.charAt(i);
+            }
+        }
+
+        private void ensure(int space) throws IOException {
+            if (buffer.length - count < space) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            if (count > 0) {
+                out.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package compunet.webserver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Motor de plantillas HTML: compila al arrancar los archivos .html de una carpeta
+ * Sintaxis:
+ *   {{nombre}}            valor escapado para HTML ({{nombre|url}} para query strings, {{nombre|raw}} sin escapar)
+ *   {{#each lista}}...{{/each}}, {{#if valor}}...{{else}}...{{/if}}
+ *   {{> _parcial}}        incluye _parcial.html al compilar
+ *   {{! comentario}}
+ * Los archivos que empiezan con '_' son parciales y no se publican como plantillas. Una etiqueta de
+ * bloque sola en su línea no deja esa línea en la salida. En modo desarrollo cada plantilla se
+ * recompila cuando cambia alguno de sus archivos; fuera de él no se vuelve a mirar el disco
+ */
+public class TemplateEngine {
+
+    private static final String EXTENSION = ".html";
+    private static final int MAX_INCLUDE_DEPTH = 16;
+
+    private final Path directory;
+    private final boolean devMode;
+    private final Map<String, Compiled> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Compila todas las plantillas de la carpeta; falla con la primera que tenga errores
+     */
+    public TemplateEngine(Path directory, boolean devMode) throws IOException {
+        this.directory = directory;
+        this.devMode = devMode;
+        if (!Files.isDirectory(directory)) {
+            throw new TemplateException("Carpeta de plantillas inexistente: " + directory.toAbsolutePath());
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                if (!fileName.startsWith("_")) {
+                    String name = fileName.substring(0, fileName.length() - EXTENSION.length());
+                    templates.put(name, compile(name));
+                }
+            }
+        }
+        System.out.println("[INFO] Plantillas compiladas: " + templates.keySet()
+                + (devMode ? " (recarga automática activada)" : ""));
+    }
+
+    /**
+     * Plantilla compilada y los archivos de los que depende, con su fecha de modificación
+     */
+    private static class Compiled {
+        private final Template template;
+        private final Map<Path, Long> files;
+
+        Compiled(Template template, Map<Path, Long> files) {
+            this.template = template;
+            this.files = files;
+        }
+
+        boolean isStale() {
+            for (Map.Entry<Path, Long> file : files.entrySet()) {
+                if (lastModified(file.getKey()) != file.getValue()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Plantilla por nombre (sin extensión)
+     */
+    public Template get(String name) throws TemplateException {
+        Compiled compiled = templates.get(name);
+        if (compiled == null) {
+            throw new TemplateException("Plantilla inexistente: " + name);
+        }
+        if (devMode && compiled.isStale()) {
+            compiled = reload(name, compiled);
+        }
+        return compiled.template;
+    }
+
+    /**
+     * Renderiza la plantilla en out
+     */
+    public void render(String name, Object model, OutputStream out) throws IOException {
+        get(name).render(model, out);
+    }
+
+    /**
+     * Recompila una plantilla que cambió; si la nueva versión tiene errores se sigue usando la anterior
+     */
+    private synchronized Compiled reload(String name, Compiled previous) {
+        Compiled current = templates.get(name);
+        if (current != previous) {
+            return current;
+        }
+        try {
+            Compiled reloaded = compile(name);
+            templates.put(name, reloaded);
+            System.out.println("[INFO] Plantilla recargada: " + name);
+            return reloaded;
+        } catch (IOException e) {
+            System.err.println("[ERROR] Error al recompilar la plantilla " + name + ": " + e.getMessage());
+            Compiled kept = new Compiled(previous.template, currentTimes(previous.files));
+            templates.put(name, kept);
+            return kept;
+        }
+    }
+
+    private static Map<Path, Long> currentTimes(Map<Path, Long> files) {
+        Map<Path, Long> times = new LinkedHashMap<>();
+        for (Path file : files.keySet()) {
+            times.put(file, lastModified(file));
+        }
+        return times;
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private Compiled compile(String name) throws IOException {
+        Map<Path, Long> files = new LinkedHashMap<>();
+        List<Token> tokens = new ArrayList<>();
+        tokenize(name, files, new ArrayDeque<>(), tokens);
+        Parser parser = new Parser(tokens);
+        Template.Node[] nodes = parser.parseBlock(null);
+        return new Compiled(new Template(name, nodes), files);
+    }
+
+    // ---------------------------------------------------------------- compilación
+
+    private enum Kind {
+        TEXT, VARIABLE, SECTION, ELSE, END, PARTIAL, COMMENT
+    }
+
+    private static class Token {
+        private final Kind kind;
+        private String text;
+        /** El texto empieza al inicio de una línea (inicio del archivo o tras una línea quitada) */
+        private boolean atLineStart;
+        private final String argument;
+        private final String file;
+        private final int line;
+
+        Token(Kind kind, String text, String argument, String file, int line) {
+            this.kind = kind;
+            this.text = text;
+            this.argument = argument;
+            this.file = file;
+            this.line = line;
+        }
+
+        boolean isStandaloneKind() {
+            return kind != Kind.TEXT && kind != Kind.VARIABLE;
+        }
+    }
+
+    /**
+     * Divide el archivo en texto y etiquetas, quita las líneas de las etiquetas de bloque
+     * solitarias y reemplaza los parciales por sus propios tokens
+     */
+    private void tokenize(String name, Map<Path, Long> files, Deque<String> includes, List<Token> out)
+            throws IOException {
+        String file = name + EXTENSION;
+        if (includes.contains(name) || includes.size() >= MAX_INCLUDE_DEPTH) {
+            throw new TemplateException("Inclusión circular o demasiado profunda: " + includes + " -> " + name);
+        }
+        Path path = directory.resolve(file);
+        if (!Files.isRegularFile(path)) {
+            throw new TemplateException("Plantilla inexistente: " + path);
+        }
+        files.put(path, lastModified(path));
+        String source = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+
+        List<Token> tokens = scan(source, file);
+        removeStandaloneLines(tokens);
+
+        includes.push(name);
+        for (Token token : tokens) {
+            if (token.kind == Kind.PARTIAL) {
+                tokenize(token.argument, files, includes, out);
+            } else if (token.kind != Kind.COMMENT && !(token.kind == Kind.TEXT && token.text.isEmpty())) {
+                out.add(token);
+            }
+        }
+        includes.pop();
+    }
+
+    private static List<Token> scan(String source, String file) throws TemplateException {
+        List<Token> tokens = new ArrayList<>();
+        int position = 0;
+        int line = 1;
+        while (position < source.length()) {
+            int open = source.indexOf("{{", position);
+            if (open < 0) {
+                tokens.add(new Token(Kind.TEXT, source.substring(position), null, file, line));
+                break;
+            }
+            if (open > position) {
+                tokens.add(new Token(Kind.TEXT, source.substring(position, open), null, file, line));
+                line += countLines(source, position, open);
+            }
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new TemplateException(file, line, "falta cerrar la etiqueta con '}}'");
+            }
+            tokens.add(tag(source.substring(open + 2, close).trim(), file, line));
+            line += countLines(source, open, close);
+            position = close + 2;
+        }
+        return tokens;
+    }
+
+    private static Token tag(String content, String file, int line) throws TemplateException {
+        if (content.isEmpty()) {
+            throw new TemplateException(file, line, "etiqueta vacía");
+        }
+        char type = content.charAt(0);
+        String argument = content.substring(1).trim();
+        switch (type) {
+            case '#':
+                return new Token(Kind.SECTION, null, argument, file, line);
+            case '/':
+                return new Token(Kind.END, null, argument, file, line);
+            case '>':
+                return new Token(Kind.PARTIAL, null, argument, file, line);
+            case '!':
+                return new Token(Kind.COMMENT, null, argument, file, line);
+            default:
+                if (content.equals("else")) {
+                    return new Token(Kind.ELSE, null, null, file, line);
+                }
+                return new Token(Kind.VARIABLE, null, content, file, line);
+        }
+    }
+
+    private static int countLines(String source, int from, int to) {
+        int lines = 0;
+        for (int i = from; i < to; i++) {
+            if (source.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Una etiqueta de bloque, parcial o comentario sola en su línea se lleva la sangría y el salto de línea
+     */
+    private static void removeStandaloneLines(List<Token> tokens) {
+        if (!tokens.isEmpty()) {
+            tokens.get(0).atLineStart = true;
+        }
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (!token.isStandaloneKind()) {
+                continue;
+            }
+            Token before = i > 0 ? tokens.get(i - 1) : null;
+            Token after = i + 1 < tokens.size() ? tokens.get(i + 1) : null;
+            int lineStart = -1;
+            if (before == null) {
+                lineStart = 0;
+            } else if (before.kind == Kind.TEXT) {
+                int newline = before.text.lastIndexOf('\n');
+                if (isBlank(before.text, newline + 1, before.text.length()) && (newline >= 0 || before.atLineStart)) {
+                    lineStart = newline + 1;
+                }
+            }
+            int lineEnd = -1;
+            if (after == null) {
+                lineEnd = 0;
+            } else if (after.kind == Kind.TEXT) {
+                int newline = after.text.indexOf('\n');
+                int end = newline < 0 ? after.text.length() : newline;
+                if (isBlank(after.text, 0, end) && (newline >= 0 || i + 2 == tokens.size())) {
+                    lineEnd = newline < 0 ? end : newline + 1;
+                }
+            }
+            if (lineStart >= 0 && lineEnd >= 0) {
+                if (before != null) {
+                    before.text = before.text.substring(0, lineStart);
+                }
+                if (after != null) {
+                    after.atLineStart = after.atLineStart || lineEnd > 0 && after.text.charAt(lineEnd - 1) == '\n';
+                    after.text = after.text.substring(lineEnd);
+                }
+            }
+        }
+    }
+
+    private static boolean isBlank(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c != ' ' && c != '\t' && c != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Arma el árbol de nodos; el texto consecutivo se une en un solo arreglo de bytes
+     */
+    private static class Parser {
+        private final List<Token> tokens;
+        private int index;
+        private Token last;
+
+        Parser(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        /**
+         * Nodos hasta el cierre del bloque (o el fin si section es null); deja en last la
+         * etiqueta que lo terminó (else o cierre)
+         */
+        Template.Node[] parseBlock(Token section) throws TemplateException {
+            List<Template.Node> nodes = new ArrayList<>();
+            StringBuilder text = new StringBuilder();
+            while (index < tokens.size()) {
+                Token token = tokens.get(index++);
+                switch (token.kind) {
+                    case TEXT:
+                        text.append(token.text);
+                        break;
+                    case VARIABLE:
+                        flushText(text, nodes);
+                        nodes.add(slot(token));
+                        break;
+                    case SECTION:
+                        flushText(text, nodes);
+                        nodes.add(section(token));
+                        break;
+                    case ELSE:
+                    case END:
+                        if (section == null) {
+                            throw new TemplateException(token.file, token.line, "cierre sin bloque abierto");
+                        }
+                        flushText(text, nodes);
+                        last = token;
+                        return nodes.toArray(new Template.Node[0]);
+                    default:
+                        break;
+                }
+            }
+            if (section != null) {
+                throw new TemplateException(section.file, section.line, "falta {{/" + blockType(section) + "}}");
+            }
+            flushText(text, nodes);
+            return nodes.toArray(new Template.Node[0]);
+        }
+
+        private Template.Node section(Token token) throws TemplateException {
+            String type = blockType(token);
+            String name = token.argument.substring(type.length()).trim();
+            if (name.isEmpty() || !(type.equals("each") || type.equals("if"))) {
+                throw new TemplateException(token.file, token.line, "bloque inválido: {{#" + token.argument + "}}");
+            }
+            Template.Node[] body = parseBlock(token);
+            Template.Node[] otherwise = new Template.Node[0];
+            if (last.kind == Kind.ELSE) {
+                if (!type.equals("if")) {
+                    throw new TemplateException(last.file, last.line, "{{else}} solo se permite dentro de {{#if}}");
+                }
+                otherwise = parseBlock(token);
+                if (last.kind == Kind.ELSE) {
+                    throw new TemplateException(last.file, last.line, "{{else}} repetido");
+                }
+            }
+            if (!last.argument.equals(type)) {
+                throw new TemplateException(last.file, last.line, "se esperaba {{/" + type + "}}");
+            }
+            return type.equals("each") ? new Template.Each(name, body) : new Template.If(name, body, otherwise);
+        }
+
+        private static String blockType(Token token) {
+            int space = token.argument.indexOf(' ');
+            return space < 0 ? token.argument : token.argument.substring(0, space);
+        }
+
+        private static Template.Node slot(Token token) throws TemplateException {
+            String name = token.argument;
+            int mode = Template.ESCAPE_HTML;
+            int pipe = name.indexOf('|');
+            if (pipe >= 0) {
+                String filter = name.substring(pipe + 1).trim();
+                name = name.substring(0, pipe).trim();
+                if (filter.equals("raw")) {
+                    mode = Template.RAW;
+                } else if (filter.equals("url")) {
+                    mode = Template.URL;
+                } else {
+                    throw new TemplateException(token.file, token.line, "filtro desconocido: " + filter);
+                }
+            }
+            return new Template.Slot(name, mode);
+        }
+
+        private static void flushText(StringBuilder text, List<Template.Node> nodes) {
+            if (text.length() > 0) {
+                nodes.add(new Template.Static(text.toString().getBytes(StandardCharsets.UTF_8)));
+                text.setLength(0);
+            }
+        }
+    }
+}
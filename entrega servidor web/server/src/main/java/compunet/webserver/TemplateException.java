@@ -0,0 +1,19 @@
+package compunet.webserver;
+
+import java.io.IOException;
+
+/**
+ * Error al compilar una plantilla: archivo inexistente o sintaxis inválida (con archivo y línea)
+ */
+public class TemplateException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TemplateException(String message) {
+        super(message);
+    }
+
+    public TemplateException(String file, int line, String message) {
+        super(file + ":" + line + ": " + message);
+    }
+}
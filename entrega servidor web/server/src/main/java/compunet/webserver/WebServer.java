@@ -0,0 +1,278 @@
+package compunet.webserver;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * Servidor Web Multi-hilo HTTP/1.0
+ * Escucha conexiones TCP en puerto configurable con uno o más hilos aceptadores y delega
+ * cada conexión en un ejecutor
+ */
+public class WebServer {
+
+    private int port;
+    private List<ServerSocketChannel> listeners = new ArrayList<>();
+    private ServerConfig config;
+    private ExecutorService executor;
+    private RequestRouter router;
+    private volatile boolean running;
+    private volatile boolean draining;
+
+    /** Conexiones que ya tienen un hilo; el apagado les pide terminar */
+    private final Set<ClientHandler> activeHandlers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger drainedCount = new AtomicInteger();
+    private final AtomicInteger idleClosedCount = new AtomicInteger();
+    private final AtomicInteger abortedCount = new AtomicInteger();
+
+    public WebServer(int port) {
+        this(port, new ServerConfig());
+    }
+
+    public WebServer(int port, ServerConfig config) {
+        this.port = port;
+        this.config = config;
+        this.router = new RequestRouter(config);
+    }
+
+    /**
+     * Inicia el servidor y espera conexiones
+     */
+    public void start() {
+        try {
+            executor = WorkerExecutors.create(config);
+            registerExecutorMetrics();
+            // Canales bloqueantes para poder usar transferTo en los archivos
+            listeners = ListenerSockets.open(config, port, config.getAcceptors());
+            running = true;
+            System.out.println("[INFO] Servidor iniciado en puerto: " + port + " con " + config.getAcceptors()
+                    + " aceptadores" + (listeners.size() > 1 ? " (SO_REUSEPORT)" : ""));
+            System.out.println("[INFO] Accede a http://localhost:" + port + "/index.html");
+
+            List<Thread> acceptors = new ArrayList<>();
+            for (int i = 0; i < config.getAcceptors(); i++) {
+                ServerSocketChannel listener = listeners.get(i % listeners.size());
+                acceptors.add(new Thread(() -> acceptConnections(listener), "acceptor-" + (i + 1)));
+            }
+            for (Thread acceptor : acceptors) {
+                acceptor.start();
+            }
+            for (Thread acceptor : acceptors) {
+                acceptor.join();
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Error al iniciar el servidor: " + e.getMessage());
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Hilo aceptador: entrega cada conexión del socket de escucha al ejecutor
+     */
+    private void acceptConnections(ServerSocketChannel listener) {
+        while (running) {
+            SocketChannel channel;
+            try {
+                channel = listener.accept();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("[ERROR] Error al aceptar conexión: " + e.getMessage());
+                }
+                // Sin running, shutdown cerró el socket de escucha
+                return;
+            }
+            router.getMetrics().connectionAccepted();
+            Socket clientSocket = channel.socket();
+            try {
+                ListenerSockets.configureClient(channel, config);
+            } catch (IOException e) {
+                System.err.println("[ERROR] Error al configurar la conexión: " + e.getMessage());
+            }
+
+            ClientHandler clientHandler = new ClientHandler(clientSocket, config, router);
+            try {
+                executor.execute(() -> handle(clientHandler));
+            } catch (RejectedExecutionException e) {
+                router.getMetrics().connectionRejected();
+                rejectConnection(clientSocket);
+            }
+        }
+    }
+
+    /**
+     * Atiende la conexión registrándola para que el apagado la pueda drenar
+     */
+    private void handle(ClientHandler clientHandler) {
+        activeHandlers.add(clientHandler);
+        try {
+            if (draining) {
+                clientHandler.drain();
+            }
+            clientHandler.run();
+        } finally {
+            activeHandlers.remove(clientHandler);
+            if (clientHandler.isDraining()) {
+                if (clientHandler.wasAborted()) {
+                    abortedCount.incrementAndGet();
+                } else if (clientHandler.wasClosedIdle()) {
+                    idleClosedCount.incrementAndGet();
+                } else {
+                    drainedCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Ocupación del pool en /metrics (el ejecutor de hilos virtuales no la expone)
+     */
+    private void registerExecutorMetrics() {
+        if (!(executor instanceof ThreadPoolExecutor)) {
+            return;
+        }
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+        ServerMetrics metrics = router.getMetrics();
+        metrics.gauge("worker_pool_threads", "Hilos del pool", pool::getPoolSize);
+        metrics.gauge("worker_pool_active_threads", "Hilos atendiendo una conexión", pool::getActiveCount);
+        metrics.gauge("worker_pool_queue_size", "Conexiones aceptadas que esperan un hilo", () -> pool.getQueue().size());
+    }
+
+    /**
+     * Responde 503 de inmediato cuando el pool y la cola están llenos
+     */
+    private void rejectConnection(Socket clientSocket) {
+        try {
+            HTTPResponse response = new HTTPResponse(503, "text/plain");
+            response.setBody("503 - Servidor ocupado, intente de nuevo");
+            OutputStream out = clientSocket.getOutputStream();
+            out.write(response.getBytes());
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("[ERROR] Error al rechazar conexión: " + e.getMessage());
+        } finally {
+            try {
+                clientSocket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Cierra el servidor esperando a las solicitudes en curso (shutdown-timeout)
+     */
+    public void stop() {
+        shutdown(config.getShutdownTimeout() * 1000L);
+    }
+
+    /**
+     * Apagado ordenado: deja de aceptar, cierra las conexiones inactivas, espera a que las
+     * ocupadas terminen su respuesta (que sale con "Connection: close") y corta las que
+     * sigan abiertas al vencer el plazo
+     */
+    public synchronized void shutdown(long timeoutMillis) {
+        if (!running) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        running = false;
+        draining = true;
+        for (ServerSocketChannel listener : listeners) {
+            try {
+                listener.close();
+            } catch (IOException e) {
+                System.err.println("[ERROR] Error al cerrar el socket de escucha: " + e.getMessage());
+            }
+        }
+        System.out.println("[INFO] Apagando: " + activeHandlers.size() + " conexiones abiertas");
+        for (ClientHandler clientHandler : activeHandlers) {
+            clientHandler.drain();
+        }
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                for (ClientHandler clientHandler : activeHandlers) {
+                    clientHandler.abort();
+                }
+                executor.shutdownNow();
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        System.out.println("[INFO] Apagado ordenado: " + drainedCount.get() + " terminaron su solicitud, "
+                + idleClosedCount.get() + " inactivas cerradas, " + abortedCount.get() + " abortadas ("
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms)");
+        router.close();
+    }
+
+    /**
+     * Método principal
+     * Opciones: --config=archivo --port=N --acceptors=N --backlog=N --reuse-port=on|off
+     *           --tcp-no-delay=on|off --send-buffer=bytes --receive-buffer=bytes --socket-timeout=ms
+     *           --engine=blocking|nio --event-loops=N
+     *           --mode=pool|virtual --pool-size=N --queue-size=N
+     *           --keep-alive-timeout=ms --max-requests=N --shutdown-timeout=s
+     * Ctrl+C o SIGTERM apagan el servidor de forma ordenada
+     */
+    public static void main(String[] args) {
+        ServerConfig config = ServerConfig.fromArgs(args);
+        int port = config.getPort();
+        if (config.getCatalogFile() != null) {
+            try {
+                CourseManager.getInstance().loadCatalog(Paths.get(config.getCatalogFile()));
+            } catch (IOException e) {
+                System.err.println("[ERROR] No se pudo cargar el catálogo, se usan los cursos de prueba: " + e.getMessage());
+            }
+        }
+        if (config.getDataDir() != null) {
+            try {
+                CourseManager.getInstance().openStorage(Paths.get(config.getDataDir()), config.getWalSync(),
+                        config.getSnapshotEvery());
+            } catch (IOException e) {
+                // Sin almacenamiento los cambios se perderían: mejor no arrancar
+                System.err.println("[ERROR] No se pudo abrir el almacenamiento " + config.getDataDir() + ": " + e.getMessage());
+                return;
+            }
+        }
+        // Los constructores compilan las plantillas; si fallan el servidor no arranca
+        Runnable server;
+        LongConsumer shutdown;
+        try {
+            if (config.getEngine() == ServerConfig.Engine.NIO) {
+                NioWebServer nioServer = new NioWebServer(port, config);
+                server = nioServer::start;
+                shutdown = nioServer::shutdown;
+            } else {
+                WebServer blockingServer = new WebServer(port, config);
+                server = blockingServer::start;
+                shutdown = blockingServer::shutdown;
+            }
+        } catch (IllegalStateException e) {
+            System.err.println("[ERROR] " + e.getMessage());
+            return;
+        }
+        // Primero se drenan las conexiones y después se guardan los cambios del catálogo
+        long shutdownTimeout = config.getShutdownTimeout() * 1000L;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            shutdown.accept(shutdownTimeout);
+            CourseManager.getInstance().close();
+        }, "shutdown"));
+        server.run();
+    }
+}
@@ -0,0 +1,89 @@
+package compunet.webserver;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fábrica de ejecutores para los ClientHandler
+ * Ofrece un pool acotado de hilos de plataforma o un hilo virtual por conexión
+ */
+public final class WorkerExecutors {
+
+    private WorkerExecutors() {
+    }
+
+    /**
+     * Crea el ejecutor correspondiente al modo configurado
+     */
+    public static ExecutorService create(ServerConfig config) {
+        if (config.getExecutorMode() == ServerConfig.ExecutorMode.VIRTUAL) {
+            ExecutorService virtual = newVirtualThreadExecutor();
+            if (virtual != null) {
+                System.out.println("[INFO] Ejecutor: un hilo virtual por conexión");
+                return virtual;
+            }
+            System.err.println("[ERROR] Hilos virtuales no disponibles en esta JVM, se usa el pool acotado");
+        }
+        System.out.println("[INFO] Ejecutor: pool de " + config.getPoolSize()
+                + " hilos, cola de " + config.getQueueSize());
+        return newBoundedPool(config.getPoolSize(), config.getQueueSize());
+    }
+
+    /**
+     * Pool de hilos de plataforma con cola acotada
+     * Cuando el pool y la cola están llenos lanza RejectedExecutionException
+     */
+    public static ThreadPoolExecutor newBoundedPool(int poolSize, int queueSize) {
+        BlockingQueue<Runnable> queue = queueSize > 0
+                ? new ArrayBlockingQueue<Runnable>(queueSize)
+                : new SynchronousQueue<Runnable>();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                60L, TimeUnit.SECONDS,
+                queue,
+                new NamedThreadFactory("worker"),
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Obtiene Executors.newVirtualThreadPerTaskExecutor() por reflexión (JDK 21+)
+     * Devuelve null si la JVM no soporta hilos virtuales
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Fábrica de hilos con nombre secuencial
+     */
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(false);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package compunet.webserver;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Segmento del registro de escrituras (write-ahead log) de los cursos
+ * Cada cambio es un registro autocontenido; los registros se acumulan en memoria y flush
+ * los escribe con una sola llamada, de modo que un lote completo cuesta un solo fsync.
+ * Formato (big-endian) de cada registro:
+ * <pre>
+ * largo del contenido (4 bytes), CRC32 del contenido (4 bytes)
+ * contenido: tipo (1 = guardar, 2 = eliminar), id; al guardar además nombre y profesor
+ *            (UTF modificado de DataOutput) y créditos
+ * </pre>
+ * Guardar y eliminar dejan el curso en un estado final, así que volver a aplicar un
+ * registro ya incluido en la instantánea no cambia el resultado
+ */
+public class WriteAheadLog implements AutoCloseable {
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int RECORD_HEADER = 8;
+    /** Mayor contenido posible: tipo, id, dos cadenas UTF de hasta 65535 bytes y créditos */
+    private static final int MAX_PAYLOAD = 1 + 4 + 2 * (2 + 65535) + 4;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(4096);
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
+    private final DataOutputStream payloadOut = new DataOutputStream(payload);
+    private final CRC32 crc = new CRC32();
+    private long records;
+    private long pendingRecords;
+
+    private WriteAheadLog(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+    }
+
+    /**
+     * Abre el segmento para agregar al final; lo crea si no existe
+     */
+    public static WriteAheadLog open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+        channel.position(channel.size());
+        return new WriteAheadLog(file, channel);
+    }
+
+    /**
+     * Agrega el cambio de un curso al buffer del segmento
+     *
+     * @param course el curso guardado, o null si se eliminó
+     */
+    public void append(int id, Course course) throws IOException {
+        payload.reset();
+        payloadOut.writeByte(course != null ? PUT : DELETE);
+        payloadOut.writeInt(id);
+        if (course != null) {
+            payloadOut.writeUTF(course.getName());
+            payloadOut.writeUTF(course.getProfessor());
+            payloadOut.writeInt(course.getCredits());
+        }
+        byte[] bytes = payload.toByteArray();
+        crc.reset();
+        crc.update(bytes, 0, bytes.length);
+        pendingOut.writeInt(bytes.length);
+        pendingOut.writeInt((int) crc.getValue());
+        pendingOut.write(bytes);
+        pendingRecords++;
+    }
+
+    /**
+     * Escribe los registros pendientes; con force espera a que lleguen al disco
+     * Si falla, los pendientes se descartan y el archivo vuelve a su tamaño anterior: el
+     * llamador ya informó el error y esos cambios no deben aparecer al recuperar
+     */
+    public void flush(boolean force) throws IOException {
+        if (pending.size() == 0) {
+            if (force) {
+                channel.force(false);
+            }
+            return;
+        }
+        long start = channel.position();
+        boolean written = false;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (force) {
+                channel.force(false);
+            }
+            records += pendingRecords;
+            written = true;
+        } finally {
+            pending.reset();
+            pendingRecords = 0;
+            if (!written) {
+                truncateQuietly(start);
+            }
+        }
+    }
+
+    /**
+     * Posición del final del segmento (sin contar lo pendiente), para volver a ella con rollback
+     */
+    public long position() throws IOException {
+        return channel.position();
+    }
+
+    /**
+     * Descarta todo lo escrito después de position (un lote que falló a medias)
+     */
+    public void rollback(long position, long recordsAtPosition) throws IOException {
+        pending.reset();
+        pendingRecords = 0;
+        channel.truncate(position);
+        channel.position(position);
+        channel.force(false);
+        records = recordsAtPosition;
+    }
+
+    private void truncateQuietly(long position) {
+        try {
+            channel.truncate(position);
+            channel.position(position);
+        } catch (IOException e) {
+            System.err.println("[ERROR] No se pudo descartar el registro incompleto de " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registros escritos desde que se abrió el segmento
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Aplica los registros del segmento sobre changes (por id, el curso o null si se eliminó)
+     * Un registro incompleto o con CRC inválido es el final de una escritura interrumpida:
+     * se descarta junto con lo que le sigue y el archivo se trunca en ese punto
+     *
+     * @return cantidad de registros aplicados
+     */
+    public static int replay(Path file, Map<Integer, Course> changes) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        CRC32 checksum = new CRC32();
+        int count = 0;
+        int valid = 0;
+        while (data.remaining() >= RECORD_HEADER) {
+            int length = data.getInt();
+            int expected = data.getInt();
+            if (length <= 0 || length > MAX_PAYLOAD || length > data.remaining()) {
+                break;
+            }
+            checksum.reset();
+            checksum.update(data.array(), data.position(), length);
+            if ((int) checksum.getValue() != expected) {
+                break;
+            }
+            try {
+                applyRecord(new DataInputStream(new ByteArrayInputStream(data.array(), data.position(), length)), changes);
+            } catch (IOException | IllegalArgumentException e) {
+                break;
+            }
+            data.position(data.position() + length);
+            valid = data.position();
+            count++;
+        }
+        if (valid < data.limit()) {
+            System.err.println("[ERROR] " + file + ": se descartan " + (data.limit() - valid)
+                    + " bytes de un registro incompleto");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+                channel.force(false);
+            }
+        }
+        return count;
+    }
+
+    private static void applyRecord(DataInputStream record, Map<Integer, Course> changes) throws IOException {
+        byte type = record.readByte();
+        int id = record.readInt();
+        if (type == DELETE) {
+            changes.put(id, null);
+        } else if (type == PUT) {
+            String name = record.readUTF();
+            String professor = record.readUTF();
+            changes.put(id, new Course(id, name, professor, record.readInt()));
+        } else {
+            throw new IllegalArgumentException("Tipo de registro desconocido: " + type);
+        }
+    }
+}
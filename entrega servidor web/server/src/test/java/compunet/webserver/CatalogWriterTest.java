@@ -0,0 +1,145 @@
+package compunet.webserver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Escritor del catálogo sobre el CourseManager compartido; cada prueba deja el catálogo
+ * con los mismos cursos que encontró
+ */
+class CatalogWriterTest {
+
+    private static final String BATCH_NAME = "Curso del lote";
+
+    private final CourseManager manager = CourseManager.getInstance();
+
+    private static Course course(String name) {
+        return new Course(0, name, "Profesor de prueba", 3);
+    }
+
+    private static Course await(CompletableFuture<Course> result) throws Exception {
+        return result.get(10, TimeUnit.SECONDS);
+    }
+
+    private static int countByName(CourseCatalog catalog, String name) {
+        int count = 0;
+        for (Course course : catalog.getAll()) {
+            if (course.getName().equals(name)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    void doesNotReuseTheIdOfADeletedCourse() throws Exception {
+        CatalogWriter writer = new CatalogWriter(manager, null);
+        writer.start();
+        try {
+            Course first = await(writer.submit(CatalogWriter.Operation.CREATE, 0, course("Primero")));
+            assertEquals(first.getId(), await(writer.submit(CatalogWriter.Operation.DELETE, first.getId(), null)).getId());
+            assertNull(manager.getCourseById(first.getId()));
+
+            Course second = await(writer.submit(CatalogWriter.Operation.CREATE, 0, course("Segundo")));
+            assertTrue(second.getId() > first.getId(), second.getId() + " <= " + first.getId());
+            assertEquals("Segundo", manager.getCourseById(second.getId()).getName());
+
+            // Reemplazar o eliminar un id que no existe no publica nada
+            long version = manager.getCatalogVersion();
+            assertNull(await(writer.submit(CatalogWriter.Operation.UPDATE, first.getId(), course("Otro"))));
+            assertNull(await(writer.submit(CatalogWriter.Operation.DELETE, first.getId(), null)));
+            assertEquals(version, manager.getCatalogVersion());
+
+            await(writer.submit(CatalogWriter.Operation.DELETE, second.getId(), null));
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    void failedBatchIsNotPublished() throws Exception {
+        CatalogWriter writer = new CatalogWriter(manager, null);
+        CourseCatalog before = manager.getCatalog();
+        long version = manager.getCatalogVersion();
+
+        // Encolados antes de arrancar el hilo, los dos cambios forman un mismo lote;
+        // el segundo (sin curso) hace fallar el lote completo
+        CompletableFuture<Course> valid = writer.submit(CatalogWriter.Operation.CREATE, 0, course("Válido"));
+        CompletableFuture<Course> invalid = writer.submit(CatalogWriter.Operation.CREATE, 0, null);
+        writer.start();
+        try {
+            assertThrows(ExecutionException.class, () -> await(valid));
+            assertThrows(ExecutionException.class, () -> await(invalid));
+            assertSame(before, manager.getCatalog());
+            assertEquals(version, manager.getCatalogVersion());
+            assertEquals(0, countByName(manager.getCatalog(), "Válido"));
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    void readersSeeWholeBatchesOnly() throws Exception {
+        CatalogWriter writer = new CatalogWriter(manager, null);
+        CourseCatalog before = manager.getCatalog();
+        int initialSize = before.size();
+        int batchSize = 100;
+        List<CompletableFuture<Course>> created = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            created.add(writer.submit(CatalogWriter.Operation.CREATE, 0, course(BATCH_NAME)));
+        }
+
+        AtomicReference<String> inconsistency = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                CourseCatalog snapshot = manager.getCatalog();
+                int count = countByName(snapshot, BATCH_NAME);
+                if ((count != 0 && count != batchSize) || snapshot.size() != initialSize + count) {
+                    inconsistency.set(count + " cursos del lote en un catálogo de " + snapshot.size());
+                    return;
+                }
+            }
+        }, "catalog-reader");
+        reader.start();
+        writer.start();
+        try {
+            List<Integer> ids = new ArrayList<>();
+            for (CompletableFuture<Course> result : created) {
+                ids.add(await(result).getId());
+            }
+            Thread.sleep(50);
+            reader.interrupt();
+            reader.join(5000);
+            assertNull(inconsistency.get());
+
+            // El catálogo que se leyó antes del lote no cambia
+            assertEquals(initialSize, before.size());
+            assertNull(before.getById(ids.get(0)));
+            assertEquals(batchSize, countByName(manager.getCatalog(), BATCH_NAME));
+
+            List<CompletableFuture<Course>> deleted = new ArrayList<>();
+            for (int id : ids) {
+                deleted.add(writer.submit(CatalogWriter.Operation.DELETE, id, null));
+            }
+            for (CompletableFuture<Course> result : deleted) {
+                await(result);
+            }
+            assertEquals(initialSize, manager.getCatalog().size());
+        } finally {
+            reader.interrupt();
+            writer.shutdown();
+        }
+    }
+}
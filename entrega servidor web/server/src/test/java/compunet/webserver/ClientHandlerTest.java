@@ -0,0 +1,176 @@
+package compunet.webserver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Conexiones persistentes del motor bloqueante, sobre un WebServer real en loopback
+ */
+class ClientHandlerTest {
+
+    private static final int KEEP_ALIVE_TIMEOUT = 300;
+
+    private static WebServer server;
+    private static int port;
+
+    /**
+     * Respuesta leída del socket: línea de estado y headers (en minúsculas); el cuerpo se descarta
+     */
+    private static final class Response {
+        private final String statusLine;
+        private final Map<String, String> headers;
+
+        Response(String statusLine, Map<String, String> headers) {
+            this.statusLine = statusLine;
+            this.headers = headers;
+        }
+    }
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        server = new WebServer(port, ServerConfig.fromArgs(new String[]{
+                "--keep-alive-timeout=" + KEEP_ALIVE_TIMEOUT, "--access-log="}));
+        Thread thread = new Thread(server::start, "test-server");
+        thread.setDaemon(true);
+        thread.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            try (Socket socket = new Socket("localhost", port)) {
+                return;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+
+    private static Socket connect() throws IOException {
+        Socket socket = new Socket("localhost", port);
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private static void send(Socket socket, String text) throws IOException {
+        socket.getOutputStream().write(text.getBytes(StandardCharsets.US_ASCII));
+        socket.getOutputStream().flush();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new IOException("Conexión cerrada a mitad de la respuesta");
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return new String(line.toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+    private static Response read(InputStream in) throws IOException {
+        String statusLine = readLine(in);
+        Map<String, String> headers = new HashMap<>();
+        for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+            int colon = line.indexOf(':');
+            headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+        }
+        long length = Long.parseLong(headers.getOrDefault("content-length", "0"));
+        for (long read = 0; read < length; read++) {
+            if (in.read() < 0) {
+                throw new IOException("Cuerpo incompleto");
+            }
+        }
+        return new Response(statusLine, headers);
+    }
+
+    private static void assertClosed(Socket socket) throws IOException {
+        assertEquals(-1, socket.getInputStream().read(), "el servidor debía cerrar la conexión");
+    }
+
+    @Test
+    void answersPipelinedRequestsInOrderOnOneConnection() throws Exception {
+        try (Socket socket = connect()) {
+            send(socket, "GET /no-existe-1 HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                    + "GET /no-existe-2 HTTP/1.1\r\nHost: localhost\r\n\r\n");
+            InputStream in = socket.getInputStream();
+            Response first = read(in);
+            Response second = read(in);
+            assertEquals("HTTP/1.1 404 Not Found", first.statusLine);
+            assertEquals("keep-alive", first.headers.get("connection"));
+            assertEquals("HTTP/1.1 404 Not Found", second.statusLine);
+            assertEquals("keep-alive", second.headers.get("connection"));
+
+            // La conexión sigue abierta para una tercera solicitud
+            send(socket, "GET /no-existe-3 HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n");
+            Response third = read(in);
+            assertTrue(third.statusLine.endsWith("404 Not Found"));
+            assertEquals("close", third.headers.get("connection"));
+            assertClosed(socket);
+        }
+    }
+
+    @Test
+    void closesAfterConnectionCloseOnHttp11() throws Exception {
+        try (Socket socket = connect()) {
+            send(socket, "GET /no-existe HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n");
+            Response response = read(socket.getInputStream());
+            assertEquals("close", response.headers.get("connection"));
+            assertClosed(socket);
+        }
+    }
+
+    @Test
+    void http10ClosesUnlessKeepAliveIsRequested() throws Exception {
+        try (Socket socket = connect()) {
+            send(socket, "GET /no-existe HTTP/1.0\r\n\r\n");
+            Response response = read(socket.getInputStream());
+            assertEquals("HTTP/1.0 404 Not Found", response.statusLine);
+            assertEquals("close", response.headers.get("connection"));
+            assertClosed(socket);
+        }
+        try (Socket socket = connect()) {
+            send(socket, "GET /no-existe HTTP/1.0\r\nConnection: keep-alive\r\n\r\n");
+            assertEquals("keep-alive", read(socket.getInputStream()).headers.get("connection"));
+            send(socket, "GET /no-existe HTTP/1.0\r\n\r\n");
+            assertEquals("close", read(socket.getInputStream()).headers.get("connection"));
+            assertClosed(socket);
+        }
+    }
+
+    @Test
+    void closesIdleConnectionAfterKeepAliveTimeout() throws Exception {
+        try (Socket socket = connect()) {
+            send(socket, "GET /no-existe HTTP/1.1\r\nHost: localhost\r\n\r\n");
+            assertEquals("keep-alive", read(socket.getInputStream()).headers.get("connection"));
+            long start = System.currentTimeMillis();
+            assertClosed(socket);
+            long idle = System.currentTimeMillis() - start;
+            assertTrue(idle >= KEEP_ALIVE_TIMEOUT - 50 && idle < 3000, "cerrada tras " + idle + " ms");
+        }
+    }
+}
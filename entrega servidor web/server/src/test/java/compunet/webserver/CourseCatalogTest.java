@@ -0,0 +1,113 @@
+package compunet.webserver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CourseCatalogTest {
+
+    private static final CourseCatalog.SortField CREDITS = CourseCatalog.SortField.CREDITS;
+    private static final CourseCatalog.SortField NAME = CourseCatalog.SortField.NAME;
+
+    /** Varios cursos comparten créditos y nombre, para que las claves repetidas crucen el borde de página */
+    private static final CourseCatalog CATALOG = new CourseCatalog(Arrays.asList(
+            new Course(1, "Redes", "Andrés Núñez", 4),
+            new Course(2, "Cálculo", "María Gómez", 3),
+            new Course(3, "Física", "Pedro Ruiz", 3),
+            new Course(4, "redes", "Inés Soto", 3),
+            new Course(5, "Álgebra", "Luis Mora", 2),
+            new Course(6, "Cálculo", "Ana Torres", 3),
+            new Course(7, "Ética, Sociedad", "Laura Ríos", 4)));
+
+    private static List<Integer> ids(List<Course> courses) {
+        List<Integer> ids = new ArrayList<>();
+        for (Course course : courses) {
+            ids.add(course.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Recorre el orden página a página siguiendo el cursor del último curso de cada una
+     */
+    private static List<List<Integer>> forward(CourseCatalog.SortField field, boolean ascending, int size) {
+        List<List<Integer>> pages = new ArrayList<>();
+        int start = 0;
+        while (start < CATALOG.size()) {
+            List<Course> page = CATALOG.slice(field, ascending, start, Math.min(start + size, CATALOG.size()));
+            pages.add(ids(page));
+            CourseCursor next = CourseCursor.parse(CourseCursor.of(page.get(page.size() - 1), field).toString());
+            start = CATALOG.indexAfter(field, ascending, next);
+        }
+        return pages;
+    }
+
+    @Test
+    void followsNextCursorsAcrossDuplicateKeys() {
+        // Créditos: 5(2) | 2,3,4,6(3) | 1,7(4); las páginas de 2 cortan dentro del grupo de 3
+        assertEquals(Arrays.asList(Arrays.asList(5, 2), Arrays.asList(3, 4), Arrays.asList(6, 1), Arrays.asList(7)),
+                forward(CREDITS, true, 2));
+        assertEquals(Arrays.asList(Arrays.asList(7, 1, 6), Arrays.asList(4, 3, 2), Arrays.asList(5)),
+                forward(CREDITS, false, 3));
+        // Nombres repetidos sin distinguir mayúsculas: Cálculo 2 y 6, Redes 1 y 4
+        assertEquals(Arrays.asList(Arrays.asList(2, 6), Arrays.asList(3, 1), Arrays.asList(4, 5), Arrays.asList(7)),
+                forward(NAME, true, 2));
+    }
+
+    @Test
+    void previousCursorReturnsToTheSamePage() {
+        for (CourseCatalog.SortField field : CourseCatalog.SortField.values()) {
+            for (boolean ascending : new boolean[]{true, false}) {
+                for (int start = 0; start + 2 < CATALOG.size(); start++) {
+                    List<Course> page = CATALOG.slice(field, ascending, start, start + 2);
+                    List<Course> following = CATALOG.slice(field, ascending, start + 2,
+                            Math.min(start + 4, CATALOG.size()));
+
+                    CourseCursor next = CourseCursor.of(page.get(1), field);
+                    assertEquals(start + 2, CATALOG.indexAfter(field, ascending, next), field + " " + ascending);
+                    // "Anterior" desde la página siguiente termina justo donde empezaba esta
+                    CourseCursor previous = CourseCursor.of(following.get(0), field);
+                    int end = CATALOG.indexBefore(field, ascending, previous);
+                    assertEquals(ids(page), ids(CATALOG.slice(field, ascending, end - 2, end)), field + " " + ascending);
+                }
+            }
+        }
+    }
+
+    @Test
+    void firstAndLastPagesHaveNoCursorBeyondThem() {
+        int last = CATALOG.size() - 1;
+        for (boolean ascending : new boolean[]{true, false}) {
+            CourseCursor first = CourseCursor.of(CATALOG.get(CREDITS, ascending, 0), CREDITS);
+            CourseCursor end = CourseCursor.of(CATALOG.get(CREDITS, ascending, last), CREDITS);
+            assertEquals(0, CATALOG.indexBefore(CREDITS, ascending, first));
+            assertEquals(CATALOG.size(), CATALOG.indexAfter(CREDITS, ascending, end));
+        }
+        assertEquals(3, CATALOG.indexAfter(CREDITS, true, new CourseCursor("3", 3)));
+        // Un cursor de un curso que ya no existe sigue ubicándose por su clave y su id
+        assertEquals(4, CATALOG.indexAfter(CREDITS, true, new CourseCursor("3", 5)));
+        assertEquals(4, CATALOG.indexAfter(NAME, true, new CourseCursor("REDES", 2)));
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertNull(CourseCursor.parse(null));
+        assertNull(CourseCursor.parse("Redes"));
+        assertNull(CourseCursor.parse("Redes,uno"));
+        assertNull(CourseCursor.parse("Redes,"));
+
+        CourseCursor withComma = CourseCursor.parse("Ética, Sociedad,7");
+        assertEquals("Ética, Sociedad", withComma.getKey());
+        assertEquals(7, withComma.getId());
+        assertEquals("Ética, Sociedad,7", withComma.toString());
+
+        // Para créditos la clave tiene que ser un número
+        assertEquals(-1, CATALOG.indexAfter(CREDITS, true, new CourseCursor("tres", 2)));
+        assertEquals(-1, CATALOG.indexBefore(CREDITS, false, new CourseCursor("", 2)));
+    }
+}
@@ -0,0 +1,90 @@
+package compunet.webserver;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class CourseSearchIndexTest {
+
+    private static CourseSearchIndex index(Course... courses) {
+        CourseSearchIndex.Editor editor = CourseSearchIndex.empty().edit();
+        for (Course course : courses) {
+            editor.add(course);
+        }
+        return editor.build();
+    }
+
+    private static int[] ids(CourseSearchIndex.Result result) {
+        int[] ids = new int[result.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = result.getId(i);
+        }
+        return ids;
+    }
+
+    @Test
+    void tokenizeFoldsAccentsCaseAndPunctuation() {
+        assertEquals(Arrays.asList("introduccion", "a", "la", "programacion", "2"),
+                CourseSearchIndex.tokenize("Introducción a la PROGRAMACIÓN-2"));
+        assertEquals(Arrays.asList("nunez", "pena"), CourseSearchIndex.tokenize("  Núñez, Peña  "));
+        assertEquals(0, CourseSearchIndex.tokenize(null).size());
+    }
+
+    @Test
+    void matchesWithOrWithoutAccents() {
+        CourseSearchIndex index = index(
+                new Course(1, "Introducción a la Programación", "María Gómez", 3),
+                new Course(2, "Redes", "Andrés Núñez", 4));
+        assertArrayEquals(new int[]{1}, ids(index.search("introduccion")));
+        assertArrayEquals(new int[]{1}, ids(index.search("PROGRAMACIÓN")));
+        assertArrayEquals(new int[]{2}, ids(index.search("nunez")));
+        assertArrayEquals(new int[]{2}, ids(index.search("Núñez")));
+    }
+
+    @Test
+    void requiresEveryTermAndAcceptsPrefixes() {
+        CourseSearchIndex index = index(
+                new Course(1, "Bases de Datos", "Laura Ríos", 3),
+                new Course(2, "Bases de Programación", "Carlos Díaz", 3),
+                new Course(3, "Estructuras de Datos", "Laura Ríos", 3));
+        assertArrayEquals(new int[]{1}, ids(index.search("bases datos")));
+        assertArrayEquals(new int[]{1, 3}, ids(index.search("dat laura")));
+        assertArrayEquals(new int[0], ids(index.search("bases redes")));
+        assertArrayEquals(new int[0], ids(index.search(" -- ")));
+    }
+
+    @Test
+    void ranksNameOverProfessorAndExactOverPrefix() {
+        CourseSearchIndex index = index(
+                new Course(1, "Álgebra", "Inés Redescoa", 3),
+                new Course(2, "Cálculo", "Redes Martínez", 3),
+                new Course(3, "Redespliegue de Servicios", "Ana Torres", 3),
+                new Course(4, "Redes Avanzadas", "Luis Mora", 3),
+                new Course(5, "Redes de Computadores", "Ana Torres", 3),
+                new Course(6, "Ética", "Ana Torres", 3));
+        // Nombre exacto (4 y 5 por id), nombre prefijo, profesor exacto, profesor prefijo
+        assertArrayEquals(new int[]{4, 5, 3, 2, 1}, ids(index.search("redes")));
+    }
+
+    @Test
+    void editorLeavesPublishedIndexUnchanged() {
+        Course original = new Course(1, "Física I", "Pedro Ruiz", 3);
+        CourseSearchIndex first = index(original);
+        CourseSearchIndex second = first.edit()
+                .update(original, new Course(1, "Química I", "Pedro Ruiz", 3))
+                .add(new Course(2, "Física II", "Pedro Ruiz", 3))
+                .build();
+
+        assertArrayEquals(new int[]{1}, ids(first.search("fisica")));
+        assertArrayEquals(new int[0], ids(first.search("quimica")));
+        assertEquals(1, first.getDocumentCount());
+
+        assertArrayEquals(new int[]{2}, ids(second.search("fisica")));
+        assertArrayEquals(new int[]{1}, ids(second.search("quimica")));
+        assertArrayEquals(new int[]{1, 2}, ids(second.search("ruiz")));
+        assertEquals(2, second.getDocumentCount());
+    }
+}
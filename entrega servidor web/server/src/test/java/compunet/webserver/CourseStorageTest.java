@@ -0,0 +1,113 @@
+package compunet.webserver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CourseStorageTest {
+
+    @TempDir
+    Path directory;
+
+    /** Se libera un permiso por cada instantánea terminada */
+    private final Semaphore snapshots = new Semaphore(0);
+
+    private CourseStorage open() throws Exception {
+        CourseStorage storage = CourseStorage.open(directory, ServerConfig.WalSync.BATCH, 2);
+        storage.setSnapshotListener(snapshots::release);
+        return storage;
+    }
+
+    private void awaitSnapshot() throws InterruptedException {
+        assertTrue(snapshots.tryAcquire(10, TimeUnit.SECONDS), "la instantánea no terminó");
+    }
+
+    private static CourseCatalog initialCatalog() {
+        return new CourseCatalog(Arrays.asList(
+                new Course(1, "Redes", "Andrés Núñez", 4),
+                new Course(2, "Cálculo", "María Gómez", 3),
+                new Course(3, "Física", "Pedro Ruiz", 3)));
+    }
+
+    private static CourseCatalog apply(CourseStorage storage, CourseCatalog catalog, Map<Integer, Course> changes)
+            throws Exception {
+        storage.log(changes);
+        CourseCatalog published = new CourseCatalog(OverlayCourseStore.apply(catalog.getStore(), changes));
+        storage.afterPublish(published);
+        return published;
+    }
+
+    @Test
+    void rotatesGenerationsAndRecoversSnapshotPlusTail() throws Exception {
+        CourseStorage storage = open();
+        CourseCatalog catalog = storage.recover(initialCatalog());
+        awaitSnapshot();
+        assertTrue(Files.exists(directory.resolve("snapshot-00000001.db")));
+        assertNotNull(storage.rebase());
+
+        catalog = apply(storage, catalog, Collections.singletonMap(4, new Course(4, "Álgebra", "Inés Soto", 3)));
+        assertTrue(Files.exists(directory.resolve("wal-00000001.log")));
+        assertFalse(Files.exists(directory.resolve("wal-00000002.log")));
+
+        // El segundo registro completa la generación 1 y abre la 2
+        catalog = apply(storage, catalog, Collections.<Integer, Course>singletonMap(1, null));
+        awaitSnapshot();
+        assertTrue(Files.exists(directory.resolve("snapshot-00000002.db")));
+        assertFalse(Files.exists(directory.resolve("snapshot-00000001.db")));
+        assertFalse(Files.exists(directory.resolve("wal-00000001.log")));
+
+        apply(storage, catalog, Collections.singletonMap(5, new Course(5, "Ética", "Luis Mora", 2)));
+        CourseCatalog rebased = storage.rebase();
+        assertEquals(4, rebased.size());
+        assertEquals("Ética", rebased.getById(5).getName());
+        storage.close();
+
+        CourseStorage reopened = open();
+        CourseCatalog recovered = reopened.recover(initialCatalog());
+        awaitSnapshot();
+        reopened.close();
+        assertEquals(4, recovered.size());
+        assertNull(recovered.getById(1));
+        assertEquals("Cálculo", recovered.getById(2).getName());
+        assertEquals("Álgebra", recovered.getById(4).getName());
+        assertEquals("Ética", recovered.getById(5).getName());
+    }
+
+    @Test
+    void recoversIgnoringATornTailAndLeftoverTemporaryFiles() throws Exception {
+        CourseStorage storage = open();
+        CourseCatalog catalog = storage.recover(initialCatalog());
+        awaitSnapshot();
+        apply(storage, catalog, Collections.singletonMap(2, new Course(2, "Cálculo II", "María Gómez", 4)));
+        storage.close();
+
+        Path log = directory.resolve("wal-00000001.log");
+        Files.write(log, new byte[]{0, 0, 0, 20, 9, 9}, StandardOpenOption.APPEND);
+        Files.write(directory.resolve("snapshot-00000002.db.tmp"), new byte[]{1, 2, 3});
+
+        CourseStorage reopened = open();
+        CourseCatalog recovered = reopened.recover(new CourseCatalog(Collections.<Course>emptyList()));
+        awaitSnapshot();
+        reopened.close();
+        // La generación recuperada pasa a una instantánea nueva y el registro viejo se borra
+        assertFalse(Files.exists(log));
+        assertFalse(Files.exists(directory.resolve("snapshot-00000002.db.tmp")));
+        assertEquals(3, recovered.size());
+        assertEquals("Cálculo II", recovered.getById(2).getName());
+        assertEquals(4, recovered.getById(2).getCredits());
+    }
+}
@@ -0,0 +1,137 @@
+package compunet.webserver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class HttpRequestParserTest {
+
+    private final HttpRequestParser parser = new HttpRequestParser();
+    private final HttpRequest request = new HttpRequest();
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private int parse(String text) throws HttpParseException {
+        byte[] data = bytes(text);
+        return parser.parse(data, 0, data.length, request);
+    }
+
+    private int statusOf(String text) {
+        return assertThrows(HttpParseException.class, () -> parse(text)).getStatusCode();
+    }
+
+    @Test
+    void parsesRequestLineHeadersAndQuery() throws Exception {
+        String text = "GET /api/courses?page=2&q=redes HTTP/1.1\r\nHost: localhost\r\nAccept:  text/html \r\n\r\n";
+        assertEquals(text.length(), parse(text));
+        assertEquals("GET", request.getMethod());
+        assertEquals("/api/courses", request.getPath());
+        assertEquals(HttpRequest.HTTP_1_1, request.getHttpVersion());
+        assertEquals("2", request.getParameter("page"));
+        assertEquals("redes", request.getParameter("q"));
+        assertEquals("localhost", request.getHeader("HOST"));
+        assertEquals("text/html", request.getHeader("accept"));
+    }
+
+    @Test
+    void decodesQueryParametersAsUtf8WithOrWithoutEscapes() throws Exception {
+        // Navegadores y clientes pueden mandar la consulta sin escapar, en UTF-8
+        byte[] raw = "GET /search?q=Cálculo&p=a+b HTTP/1.1\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+        assertEquals(raw.length, parser.parse(raw, 0, raw.length, request));
+        assertEquals("Cálculo", request.getParameter("q"));
+        assertEquals("a b", request.getParameter("p"));
+
+        parse("GET /search?q=C%C3%A1lculo+I&r=%ZZ HTTP/1.1\r\n\r\n");
+        assertEquals("Cálculo I", request.getParameter("q"));
+        assertEquals("%ZZ", request.getParameter("r"));
+    }
+
+    @Test
+    void acceptsBareLineFeedsAndSkipsLeadingEmptyLines() throws Exception {
+        String text = "\r\n\nGET /index.html HTTP/1.0\nHost: a\n\n";
+        assertEquals(text.length(), parse(text));
+        assertEquals("/index.html", request.getPath());
+        assertEquals(HttpRequest.HTTP_1_0, request.getHttpVersion());
+    }
+
+    @Test
+    void waitsForDataArrivingByteByByte() throws Exception {
+        byte[] data = bytes("POST /api/courses HTTP/1.1\r\nContent-Length: 5\r\n\r\nhola!");
+        for (int end = 0; end < data.length; end++) {
+            assertEquals(-1, parser.parse(data, 0, end, request), "completa con " + end + " bytes");
+        }
+        assertEquals(data.length, parser.parse(data, 0, data.length, request));
+        assertEquals("hola!", request.getBodyAsString());
+    }
+
+    @Test
+    void reparsesHeaderWhenBodyArrivesInAnotherBuffer() throws Exception {
+        byte[] head = bytes("PUT /api/courses/1 HTTP/1.1\r\nContent-Length: 4\r\n\r\nab");
+        assertEquals(-1, parser.parse(head, 0, head.length, request));
+
+        // La conexión compacta los datos al inicio de otro buffer antes de la siguiente lectura
+        byte[] moved = bytes("..PUT /api/courses/1 HTTP/1.1\r\nContent-Length: 4\r\n\r\nabcd");
+        assertEquals(moved.length, parser.parse(moved, 2, moved.length, request));
+        assertEquals("/api/courses/1", request.getPath());
+        assertEquals("abcd", request.getBodyAsString());
+    }
+
+    @Test
+    void returnsEndOfEachPipelinedRequest() throws Exception {
+        String first = "GET /a HTTP/1.1\r\n\r\n";
+        byte[] data = bytes(first + "GET /b HTTP/1.1\r\n\r\n");
+        int end = parser.parse(data, 0, data.length, request);
+        assertEquals(first.length(), end);
+        assertEquals("/a", request.getPath());
+        assertEquals(data.length, parser.parse(data, end, data.length, request));
+        assertEquals("/b", request.getPath());
+    }
+
+    @Test
+    void rejectsOversizedOrTooManyHeadersWith431() {
+        StringBuilder big = new StringBuilder("GET / HTTP/1.1\r\nX-Big: ");
+        while (big.length() <= HttpRequestParser.MAX_HEADER_SIZE) {
+            big.append("aaaaaaaaaa");
+        }
+        assertEquals(431, statusOf(big.toString()));
+        assertEquals(431, statusOf(big + "\r\n\r\n"));
+
+        StringBuilder many = new StringBuilder("GET / HTTP/1.1\r\n");
+        for (int i = 0; i <= HttpRequestParser.MAX_HEADERS; i++) {
+            many.append("X-").append(i).append(": v\r\n");
+        }
+        assertEquals(431, statusOf(many + "\r\n"));
+    }
+
+    @Test
+    void rejectsMalformedRequestsWith400() {
+        assertEquals(400, statusOf("GET /\r\n\r\n"));
+        assertEquals(400, statusOf("GET / HTTP/2.0\r\n\r\n"));
+        assertEquals(400, statusOf("G(T / HTTP/1.1\r\n\r\n"));
+        assertEquals(400, statusOf("GET / HTTP/1.1\r\nSin dos puntos\r\n\r\n"));
+        assertEquals(400, statusOf("GET / HTTP/1.1\r\nMal Nombre: x\r\n\r\n"));
+        assertEquals(400, statusOf("POST / HTTP/1.1\r\nContent-Length: 12a\r\n\r\n"));
+        assertEquals(400, statusOf("POST / HTTP/1.1\r\nContent-Length:\r\n\r\n"));
+    }
+
+    @Test
+    void rejectsBodiesOverTheLimitWith413() {
+        assertEquals(413, statusOf("POST / HTTP/1.1\r\nContent-Length: "
+                + (HttpRequestParser.MAX_BODY_SIZE + 1) + "\r\n\r\n"));
+        assertEquals(413, statusOf("POST / HTTP/1.1\r\nContent-Length: 99999999999\r\n\r\n"));
+    }
+
+    @Test
+    void answersTransferEncodingWith501() {
+        HttpParseException e = assertThrows(HttpParseException.class,
+                () -> parse("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n"));
+        assertEquals(501, e.getStatusCode());
+        assertTrue(e.getMessage().contains("Content-Length"));
+    }
+}
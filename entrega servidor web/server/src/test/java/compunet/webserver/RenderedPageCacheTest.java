@@ -0,0 +1,83 @@
+package compunet.webserver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class RenderedPageCacheTest {
+
+    private static byte[] page(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void newerCatalogVersionInvalidatesCachedPages() {
+        RenderedPageCache cache = new RenderedPageCache(64 * 1024, 60_000);
+        RenderedPageCache.Entry first = cache.put("NAME+3|page|0", 1, page("<p>Página 1</p>"));
+        cache.put("NAME+3|page|1", 1, page("<p>Página 2</p>"));
+        assertSame(first, cache.get("NAME+3|page|0", 1));
+        assertEquals(2, cache.getEntryCount());
+
+        // La primera consulta con la versión nueva descarta todo lo guardado
+        assertNull(cache.get("NAME+3|page|0", 2));
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getCurrentBytes());
+        assertEquals(2, cache.getInvalidations());
+        assertNull(cache.get("NAME+3|page|1", 2));
+
+        RenderedPageCache.Entry second = cache.put("NAME+3|page|0", 2, page("<p>Página 1 nueva</p>"));
+        assertSame(second, cache.get("NAME+3|page|0", 2));
+    }
+
+    @Test
+    void pageRenderedFromAnOlderVersionIsNotStored() {
+        RenderedPageCache cache = new RenderedPageCache(64 * 1024, 60_000);
+        assertNull(cache.get("NAME+3|page|0", 5));
+
+        // La página se generó con la versión 4, antes de que otra consulta viera la 5
+        RenderedPageCache.Entry stale = cache.put("NAME+3|page|1", 4, page("<p>vieja</p>"));
+        assertNotNull(stale);
+        assertEquals("<p>vieja</p>", new String(stale.getBody(), StandardCharsets.UTF_8));
+        assertEquals(0, cache.getEntryCount());
+        assertNull(cache.get("NAME+3|page|1", 5));
+
+        // Una versión más nueva que la conocida sí se guarda
+        cache.put("NAME+3|page|1", 6, page("<p>nueva</p>"));
+        assertEquals(1, cache.getEntryCount());
+        assertNotNull(cache.get("NAME+3|page|1", 6));
+    }
+
+    @Test
+    void expiresEntriesAfterTheTtl() throws Exception {
+        RenderedPageCache cache = new RenderedPageCache(64 * 1024, 50);
+        cache.put("NAME+3|page|0", 1, page("<p>Página 1</p>"));
+        assertNotNull(cache.get("NAME+3|page|0", 1));
+        Thread.sleep(80);
+        assertNull(cache.get("NAME+3|page|0", 1));
+        assertEquals(0, cache.getCurrentBytes());
+    }
+
+    @Test
+    void skipsPagesOverAQuarterOfTheBudgetAndEvictsLeastRecentlyUsed() {
+        // Cada página cuesta 256 + 744 = 1000 bytes; caben 4
+        RenderedPageCache cache = new RenderedPageCache(4000, 60_000);
+        byte[] body = new byte[744];
+        cache.put("grande", 1, new byte[745]);
+        assertEquals(0, cache.getEntryCount());
+        for (int i = 0; i < 4; i++) {
+            cache.put("p" + i, 1, body);
+        }
+        assertEquals(4000, cache.getCurrentBytes());
+        assertNotNull(cache.get("p0", 1));
+        cache.put("p4", 1, body);
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get("p1", 1));
+        assertNotNull(cache.get("p0", 1));
+        assertEquals(4000, cache.getCurrentBytes());
+    }
+}
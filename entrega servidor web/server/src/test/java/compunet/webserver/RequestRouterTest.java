@@ -0,0 +1,288 @@
+package compunet.webserver;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+class RequestRouterTest {
+
+    private final RequestRouter router = new RequestRouter(ServerConfig.fromArgs(new String[]{"--access-log="}));
+
+    /**
+     * Atiende la solicitud armada con la línea, los headers y el cuerpo (JSON) dados
+     */
+    private HTTPResponse send(String method, String target, String body, String... headers) throws IOException {
+        StringBuilder text = new StringBuilder(method).append(' ').append(target).append(" HTTP/1.1\r\n");
+        for (String header : headers) {
+            text.append(header).append("\r\n");
+        }
+        byte[] content = body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (body != null) {
+            text.append("Content-Type: application/json\r\nContent-Length: ").append(content.length).append("\r\n");
+        }
+        byte[] head = text.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1);
+        byte[] data = Arrays.copyOf(head, head.length + content.length);
+        System.arraycopy(content, 0, data, head.length, content.length);
+
+        HttpRequest request = new HttpRequest();
+        assertEquals(data.length, new HttpRequestParser().parse(data, 0, data.length, request));
+        return router.handleRequest(request);
+    }
+
+    private HTTPResponse get(String target, String... headers) throws IOException {
+        return send("GET", target, null, headers);
+    }
+
+    private static byte[] body(HTTPResponse response) throws IOException {
+        byte[] all = response.getBytes();
+        int headerLength = response.getHeaderBytes().length;
+        return Arrays.copyOfRange(all, headerLength, all.length);
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            byte[] buffer = new byte[4096];
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void assertRanges(List<long[]> actual, long[]... expected) {
+        assertNotNull(actual);
+        assertEquals(expected.length, actual.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], actual.get(i));
+        }
+    }
+
+    @Test
+    void parsesClosedAndOpenRanges() {
+        assertRanges(RequestRouter.parseRanges("bytes=0-99", 1000), new long[]{0, 99});
+        assertRanges(RequestRouter.parseRanges(" bytes=500- ", 1000), new long[]{500, 999});
+        assertRanges(RequestRouter.parseRanges("bytes=900-5000", 1000), new long[]{900, 999});
+    }
+
+    @Test
+    void parsesSuffixRanges() {
+        assertRanges(RequestRouter.parseRanges("bytes=-100", 1000), new long[]{900, 999});
+        // Un sufijo mayor que el recurso lo pide completo
+        assertRanges(RequestRouter.parseRanges("bytes=-5000", 1000), new long[]{0, 999});
+    }
+
+    @Test
+    void returnsEmptyListWhenNoRangeIsSatisfiable() {
+        assertRanges(RequestRouter.parseRanges("bytes=1000-", 1000));
+        assertRanges(RequestRouter.parseRanges("bytes=2000-3000, -0", 1000));
+        assertRanges(RequestRouter.parseRanges("bytes=0-10", 0));
+    }
+
+    @Test
+    void ignoresInvalidHeaders() {
+        assertNull(RequestRouter.parseRanges("items=0-10", 1000));
+        assertNull(RequestRouter.parseRanges("bytes=10", 1000));
+        assertNull(RequestRouter.parseRanges("bytes=a-b", 1000));
+        assertNull(RequestRouter.parseRanges("bytes=50-10", 1000));
+        StringBuilder many = new StringBuilder("bytes=0-0");
+        for (int i = 1; i <= 16; i++) {
+            many.append(',').append(i).append('-').append(i);
+        }
+        assertNull(RequestRouter.parseRanges(many.toString(), 1000));
+    }
+
+    @Test
+    void buildsMultipartBodyForSeveralRanges() throws Exception {
+        byte[] content = "0123456789".getBytes(StandardCharsets.US_ASCII);
+        List<long[]> ranges = RequestRouter.parseRanges("bytes=0-1, 4-5, -2", content.length);
+        assertRanges(ranges, new long[]{0, 1}, new long[]{4, 5}, new long[]{8, 9});
+
+        HTTPResponse response = new HTTPResponse(206, "text/plain");
+        response.setBodyBytes(content);
+        response.setRanges(ranges);
+
+        String contentType = response.getContentType();
+        assertTrue(contentType.startsWith("multipart/byteranges; boundary="), contentType);
+        String boundary = contentType.substring(contentType.indexOf('=') + 1);
+
+        byte[] all = response.getBytes();
+        int headerLength = response.getHeaderBytes().length;
+        String body = new String(all, headerLength, all.length - headerLength, StandardCharsets.US_ASCII);
+        assertEquals(response.getContentLength(), body.length());
+        assertEquals("\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 0-1/10\r\n\r\n01"
+                + "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 4-5/10\r\n\r\n45"
+                + "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 8-9/10\r\n\r\n89"
+                + "\r\n--" + boundary + "--\r\n", body);
+    }
+
+    @Test
+    void singleRangeUsesContentRangeHeader() throws Exception {
+        HTTPResponse response = new HTTPResponse(206, "text/plain");
+        response.setBodyBytes("0123456789".getBytes(StandardCharsets.US_ASCII));
+        response.setRanges(RequestRouter.parseRanges("bytes=-3", 10));
+        assertEquals("bytes 7-9/10", response.getHeader("Content-Range"));
+        assertEquals("text/plain", response.getContentType());
+        assertEquals(3, response.getContentLength());
+    }
+
+    @Test
+    void answersNotModifiedForAMatchingEtag() throws Exception {
+        HTTPResponse full = get("/index.html");
+        assertEquals(200, full.getStatusCode());
+        String etag = full.getHeader("ETag");
+        assertNotNull(etag);
+
+        HTTPResponse notModified = get("/index.html", "If-None-Match: " + etag);
+        assertEquals(304, notModified.getStatusCode());
+        assertEquals(etag, notModified.getHeader("ETag"));
+        assertEquals(0, body(notModified).length);
+
+        assertEquals(304, get("/index.html", "If-None-Match: \"otro\", W/" + etag).getStatusCode());
+        assertEquals(304, get("/index.html", "If-None-Match: *").getStatusCode());
+        assertEquals(200, get("/index.html", "If-None-Match: \"otro\"").getStatusCode());
+    }
+
+    @Test
+    void answersNotModifiedWhenUnchangedSinceTheGivenDate() throws Exception {
+        String lastModified = get("/index.html").getHeader("Last-Modified");
+        assertNotNull(lastModified);
+
+        assertEquals(304, get("/index.html", "If-Modified-Since: " + lastModified).getStatusCode());
+        assertEquals(200, get("/index.html", "If-Modified-Since: Thu, 01 Jan 1970 00:00:00 GMT").getStatusCode());
+        assertEquals(200, get("/index.html", "If-Modified-Since: no es una fecha").getStatusCode());
+        // If-None-Match manda sobre If-Modified-Since
+        assertEquals(200, get("/index.html", "If-None-Match: \"otro\"",
+                "If-Modified-Since: " + lastModified).getStatusCode());
+    }
+
+    @Test
+    void negotiatesEncodingWithQualityValues() {
+        assertNull(ContentEncoding.negotiate(null));
+        assertNull(ContentEncoding.negotiate("identity"));
+        assertNull(ContentEncoding.negotiate("gzip;q=0"));
+        assertNull(ContentEncoding.negotiate("*;q=0"));
+        assertNull(ContentEncoding.negotiate("gzip;q=0, deflate;q=0.0, br"));
+        assertEquals("gzip", ContentEncoding.negotiate("gzip, deflate"));
+        assertEquals("gzip", ContentEncoding.negotiate("deflate;q=0.5, GZIP;q=0.5"));
+        assertEquals("gzip", ContentEncoding.negotiate("*"));
+        assertEquals("deflate", ContentEncoding.negotiate("gzip;q=0, *"));
+        assertEquals("deflate", ContentEncoding.negotiate("gzip;q=0.2, deflate"));
+        assertEquals("deflate", ContentEncoding.negotiate("deflate, gzip;q=nada"));
+    }
+
+    @Test
+    void compressesTextAndVariesOnAcceptEncoding() throws Exception {
+        HTTPResponse plain = get("/index.html");
+        byte[] original = body(plain);
+        assertNull(plain.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", plain.getHeader("Vary"));
+
+        HTTPResponse gzip = get("/index.html", "Accept-Encoding: deflate;q=0.5, gzip");
+        assertEquals("gzip", gzip.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", gzip.getHeader("Vary"));
+        assertTrue(gzip.getContentLength() < original.length);
+        assertArrayEquals(original, gunzip(body(gzip)));
+        // Cada representación tiene su propio ETag
+        assertNotEquals(plain.getHeader("ETag"), gzip.getHeader("ETag"));
+
+        HTTPResponse refused = get("/index.html", "Accept-Encoding: gzip;q=0");
+        assertNull(refused.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", refused.getHeader("Vary"));
+        assertArrayEquals(original, body(refused));
+    }
+
+    @Test
+    void doesNotCompressImages() throws Exception {
+        HTTPResponse image = get("/images/" + firstImage(), "Accept-Encoding: gzip");
+        assertEquals(200, image.getStatusCode());
+        assertNull(image.getHeader("Content-Encoding"));
+        assertNull(image.getHeader("Vary"));
+    }
+
+    private static String firstImage() {
+        String[] images = new File("public/images").list((directory, name) -> name.endsWith(".jpg"));
+        assertNotNull(images);
+        Arrays.sort(images);
+        return images[0];
+    }
+
+    @Test
+    void apiRejectsInvalidBodies() throws Exception {
+        assertEquals(400, send("POST", "/api/courses", "{\"name\": \"Redes\"}").getStatusCode());
+        assertEquals(400, send("POST", "/api/courses", "{no es json").getStatusCode());
+        assertEquals(400, send("POST", "/api/courses",
+                "{\"name\": \"Redes\", \"professor\": \"Ana\", \"credits\": -1}").getStatusCode());
+        assertEquals(400, send("PUT", "/api/courses/1", "[]").getStatusCode());
+        HTTPResponse error = send("POST", "/api/courses", "{}");
+        assertEquals("application/json", error.getContentType());
+        assertTrue(new String(body(error), StandardCharsets.UTF_8).contains("name"));
+    }
+
+    @Test
+    void rejectsMalformedCursorsWith400() throws Exception {
+        HTTPResponse api = get("/api/courses?after=abc");
+        assertEquals(400, api.getStatusCode());
+        assertEquals("application/json", api.getContentType());
+        assertEquals(400, get("/api/courses?before=Redes,uno").getStatusCode());
+        assertEquals(400, get("/courses?sort=credits&after=tres,2").getStatusCode());
+        // Un cursor bien formado de un curso que ya no existe sigue siendo válido
+        assertEquals(200, get("/api/courses?sort=credits&after=3,999999").getStatusCode());
+        assertEquals(200, get("/courses?after=Redes,999999").getStatusCode());
+    }
+
+    @Test
+    void apiAnswersNotFoundForUnknownIds() throws Exception {
+        String course = "{\"name\": \"Redes\", \"professor\": \"Ana Torres\", \"credits\": 4}";
+        assertEquals(404, get("/api/courses/999999").getStatusCode());
+        assertEquals(404, get("/api/courses/uno").getStatusCode());
+        assertEquals(404, send("PUT", "/api/courses/999999", course).getStatusCode());
+        assertEquals(404, send("DELETE", "/api/courses/999999", null).getStatusCode());
+    }
+
+    @Test
+    void apiAnswersMethodNotAllowedWithAllow() throws Exception {
+        HTTPResponse collection = send("PATCH", "/api/courses", null);
+        assertEquals(405, collection.getStatusCode());
+        assertEquals("GET, POST", collection.getHeader("Allow"));
+        HTTPResponse item = send("POST", "/api/courses/1", null);
+        assertEquals(405, item.getStatusCode());
+        assertEquals("GET, PUT, DELETE", item.getHeader("Allow"));
+        assertEquals("GET", send("DELETE", "/index.html", null).getHeader("Allow"));
+    }
+
+    @Test
+    void apiCreatesUpdatesAndDeletesWithoutReusingIds() throws Exception {
+        String course = "{\"name\": \"Redes\", \"professor\": \"Ana Torres\", \"credits\": 4}";
+        HTTPResponse created = send("POST", "/api/courses", course);
+        assertEquals(201, created.getStatusCode());
+        String location = created.getHeader("Location");
+        int id = Integer.parseInt(location.substring("/api/courses/".length()));
+
+        assertEquals(200, send("PUT", location, "{\"name\": \"Redes II\", \"professor\": \"Ana Torres\", \"credits\": 4}")
+                .getStatusCode());
+        assertTrue(new String(body(get(location)), StandardCharsets.UTF_8).contains("Redes II"));
+        assertEquals(204, send("DELETE", location, null).getStatusCode());
+        assertEquals(404, get(location).getStatusCode());
+
+        HTTPResponse again = send("POST", "/api/courses", course);
+        int next = Integer.parseInt(again.getHeader("Location").substring("/api/courses/".length()));
+        assertTrue(next > id, next + " <= " + id);
+        assertEquals(204, send("DELETE", again.getHeader("Location"), null).getStatusCode());
+    }
+}
@@ -0,0 +1,103 @@
+package compunet.webserver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StaticFileCacheTest {
+
+    private static final int FILE_SIZE = 1000;
+    /** Costo de una entrada: tamaño del contenido más el costo fijo de la caché */
+    private static final long ENTRY_COST = FILE_SIZE + 256;
+
+    @TempDir
+    Path directory;
+
+    private Path file(String name, int size, char fill) throws Exception {
+        char[] content = new char[size];
+        Arrays.fill(content, fill);
+        return Files.write(directory.resolve(name), new String(content).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String text(StaticFileCache.Entry entry) {
+        ByteBuffer body = entry.getBody();
+        byte[] bytes = new byte[body.remaining()];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntryWhenOverBudget() throws Exception {
+        StaticFileCache cache = new StaticFileCache(3 * ENTRY_COST, FILE_SIZE);
+        Path a = file("a.txt", FILE_SIZE, 'a');
+        Path b = file("b.txt", FILE_SIZE, 'b');
+        Path c = file("c.txt", FILE_SIZE, 'c');
+        Path d = file("d.txt", FILE_SIZE, 'd');
+
+        cache.get("/a.txt", a);
+        cache.get("/b.txt", b);
+        cache.get("/c.txt", c);
+        assertEquals(3, cache.getEntryCount());
+        assertEquals(3 * ENTRY_COST, cache.getCurrentBytes());
+
+        // Usar /a.txt deja a /b.txt como la menos usada
+        cache.get("/a.txt", a);
+        cache.get("/d.txt", d);
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3, cache.getEntryCount());
+        assertEquals(3 * ENTRY_COST, cache.getCurrentBytes());
+
+        long misses = cache.getMisses();
+        cache.get("/a.txt", a);
+        assertEquals(misses, cache.getMisses());
+        cache.get("/b.txt", b);
+        assertEquals(misses + 1, cache.getMisses());
+    }
+
+    @Test
+    void keepsOnlyMetadataForFilesOverTheSizeLimit() throws Exception {
+        StaticFileCache cache = new StaticFileCache(10 * ENTRY_COST, FILE_SIZE);
+        StaticFileCache.Entry entry = cache.get("/big.txt", file("big.txt", FILE_SIZE + 1, 'x'));
+        assertNotNull(entry);
+        assertNull(entry.getBody());
+        assertEquals(FILE_SIZE + 1, entry.getSize());
+        assertEquals(256, cache.getCurrentBytes());
+        assertNull(cache.get("/missing.txt", directory.resolve("missing.txt")));
+    }
+
+    @Test
+    void revalidatesAgainstTheFileAfterTheInterval() throws Exception {
+        StaticFileCache cache = new StaticFileCache(10 * ENTRY_COST, FILE_SIZE);
+        Path path = file("page.txt", 10, 'v');
+        StaticFileCache.Entry first = cache.get("/page.txt", path);
+        assertEquals("vvvvvvvvvv", text(first));
+
+        // Dentro del intervalo se sirve la copia sin mirar el disco
+        file("page.txt", 12, 'w');
+        assertSame(first, cache.get("/page.txt", path));
+        assertEquals(0, cache.getInvalidations());
+
+        Thread.sleep(1100);
+        StaticFileCache.Entry second = cache.get("/page.txt", path);
+        assertEquals(1, cache.getInvalidations());
+        assertEquals("wwwwwwwwwwww", text(second));
+        assertEquals(12, second.getSize());
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(12 + 256, cache.getCurrentBytes());
+
+        // Sin cambios en disco la entrada se conserva tras revalidar
+        Thread.sleep(1100);
+        assertSame(second, cache.get("/page.txt", path));
+        assertEquals(1, cache.getInvalidations());
+    }
+}
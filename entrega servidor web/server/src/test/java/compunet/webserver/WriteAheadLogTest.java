@@ -0,0 +1,101 @@
+package compunet.webserver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    private Path writeThree() throws Exception {
+        Path file = directory.resolve("wal-00000001.log");
+        try (WriteAheadLog log = WriteAheadLog.open(file)) {
+            log.append(1, new Course(1, "Redes", "Andrés Núñez", 4));
+            log.append(2, new Course(2, "Cálculo", "María Gómez", 3));
+            log.flush(true);
+            log.append(1, null);
+            log.flush(true);
+            assertEquals(3, log.getRecords());
+        }
+        return file;
+    }
+
+    @Test
+    void replaysPutsAndDeletesInOrder() throws Exception {
+        Path file = writeThree();
+        Map<Integer, Course> changes = new LinkedHashMap<>();
+        assertEquals(3, WriteAheadLog.replay(file, changes));
+        assertEquals(2, changes.size());
+        assertTrue(changes.containsKey(1));
+        assertNull(changes.get(1));
+        assertEquals("Cálculo", changes.get(2).getName());
+        assertEquals("María Gómez", changes.get(2).getProfessor());
+        assertEquals(3, changes.get(2).getCredits());
+    }
+
+    @Test
+    void truncatesTornTail() throws Exception {
+        Path file = writeThree();
+        long size = Files.size(file);
+        // Un registro del que solo alcanzó a escribirse el comienzo
+        Files.write(file, new byte[]{0, 0, 0, 40, 1, 2, 3, 4, 1, 0}, StandardOpenOption.APPEND);
+
+        Map<Integer, Course> changes = new LinkedHashMap<>();
+        assertEquals(3, WriteAheadLog.replay(file, changes));
+        assertEquals(size, Files.size(file));
+
+        // Después de truncar se puede seguir agregando
+        try (WriteAheadLog log = WriteAheadLog.open(file)) {
+            log.append(3, new Course(3, "Física", "Pedro Ruiz", 3));
+        }
+        changes.clear();
+        assertEquals(4, WriteAheadLog.replay(file, changes));
+        assertEquals("Física", changes.get(3).getName());
+    }
+
+    @Test
+    void discardsRecordsFromTheFirstBadChecksum() throws Exception {
+        Path file = writeThree();
+        byte[] data = Files.readAllBytes(file);
+        // El último byte pertenece al registro de eliminación (tipo e id)
+        data[data.length - 1] ^= 0x01;
+        Files.write(file, data);
+
+        Map<Integer, Course> changes = new LinkedHashMap<>();
+        assertEquals(2, WriteAheadLog.replay(file, changes));
+        assertEquals("Redes", changes.get(1).getName());
+        assertEquals(data.length - 13, Files.size(file));
+    }
+
+    @Test
+    void rollbackRemovesAPartiallyWrittenBatch() throws Exception {
+        Path file = directory.resolve("wal-00000002.log");
+        try (WriteAheadLog log = WriteAheadLog.open(file)) {
+            log.append(1, new Course(1, "Redes", "Andrés Núñez", 4));
+            log.flush(true);
+            long position = log.position();
+            long records = log.getRecords();
+
+            log.append(2, new Course(2, "Cálculo", "María Gómez", 3));
+            log.flush(true);
+            log.append(3, null);
+            log.rollback(position, records);
+            assertEquals(1, log.getRecords());
+            assertEquals(position, Files.size(file));
+        }
+        Map<Integer, Course> changes = new LinkedHashMap<>();
+        assertEquals(1, WriteAheadLog.replay(file, changes));
+        assertEquals(1, changes.size());
+    }
+}